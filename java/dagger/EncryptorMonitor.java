@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger;
+
+/**
+ * A hook for monitoring the {@code encrypt} and {@code decrypt} methods of an encryptor generated
+ * for a {@link SymEncrypt}-annotated type.
+ *
+ * <p>Monitors are created by {@link Factory factories}, and are installed by passing a set of
+ * factories to the generated encryptor's {@code installMonitors} method. The set is typically a
+ * multibinding, in the same way as {@code ProductionComponentMonitor.Factory} contributions:
+ *
+ * <pre><code>
+ *   {@literal @}Module
+ *   final class MyMonitorModule {
+ *     {@literal @}Provides {@literal @}IntoSet
+ *     static EncryptorMonitor.Factory provideMonitorFactory(MyEncryptorMonitor.Factory factory) {
+ *       return factory;
+ *     }
+ *   }
+ *
+ *   SecureDagger_Foo.getInstance().installMonitors(component.encryptorMonitorFactories());
+ * </code></pre>
+ *
+ * <p>If no monitors are installed, the generated encryptor does not read the clock or call into any
+ * monitor.
+ *
+ * <p>All methods on this class are called from the thread that called {@code encrypt} or {@code
+ * decrypt}, after the operation has finished.
+ */
+public abstract class EncryptorMonitor {
+  /** The operations of a generated encryptor that are reported to monitors. */
+  public enum Operation {
+    ENCRYPT,
+    DECRYPT,
+  }
+
+  /**
+   * Reports that an operation has completed successfully.
+   *
+   * <p>This implementation is a no-op.
+   *
+   * @param inputBytes the number of bytes that were passed to the cipher
+   * @param outputBytes the number of bytes that the cipher produced
+   * @param latencyNanos the wall-clock time, in nanoseconds, that the operation took
+   */
+  public void recordSuccess(
+      Operation operation, long inputBytes, long outputBytes, long latencyNanos) {}
+
+  /**
+   * Reports that an operation has failed with the given exception.
+   *
+   * <p>If the cipher failed with a checked exception, the operation returns null after this is
+   * called. Runtime exceptions, such as the {@link IllegalArgumentException} thrown for input to
+   * {@code decrypt} that isn't Base64, are rethrown after this is called.
+   *
+   * <p>This implementation is a no-op.
+   *
+   * @param latencyNanos the wall-clock time, in nanoseconds, from the start of the operation until
+   *     it failed
+   */
+  public void recordFailure(Operation operation, Throwable exception, long latencyNanos) {}
+
+  private static final EncryptorMonitor NO_OP = new EncryptorMonitor() {};
+
+  /** Returns a monitor that does no monitoring. */
+  public static EncryptorMonitor noOp() {
+    return NO_OP;
+  }
+
+  /** Creates monitors for generated encryptors. */
+  public abstract static class Factory {
+    /** Creates an encryptor-specific monitor when the monitors are installed on the encryptor. */
+    public abstract EncryptorMonitor create(Object encryptor);
+
+    private static final Factory NO_OP_FACTORY =
+        new Factory() {
+          @Override
+          public EncryptorMonitor create(Object encryptor) {
+            return EncryptorMonitor.noOp();
+          }
+        };
+
+    /** Returns a factory that returns no-op monitors. */
+    public static Factory noOp() {
+      return NO_OP_FACTORY;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package dagger;
 
 
+import dagger.internal.EncryptorMonitors;
 import javax.crypto.*;
 import javax.crypto.spec.IvParameterSpec;
 import java.security.InvalidAlgorithmParameterException;
@@ -8,12 +9,14 @@ import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.Set;
 
 public class SecureDagger_Foo {
     private SecretKey secretKey;
     private IvParameterSpec ivParameterSpec;
     private String algorithms;
     private Cipher cipher;
+    private volatile EncryptorMonitor monitor;
     private static volatile SecureDagger_Foo instance;
     private static Object syn = new Object();
     //private Enc enc;
@@ -36,25 +39,59 @@ public class SecureDagger_Foo {
     }
 
     public String encrypt(String input){
+        EncryptorMonitor monitor = this.monitor;
+        long startNanos = monitor == null ? 0L : System.nanoTime();
         try {
             cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivParameterSpec);
-            return Base64.getEncoder().encodeToString(cipher.doFinal(input.getBytes()));
+            byte[] inputBytes = input.getBytes();
+            byte[] outputBytes = cipher.doFinal(inputBytes);
+            if (monitor != null) {
+                monitor.recordSuccess(EncryptorMonitor.Operation.ENCRYPT, inputBytes.length, outputBytes.length, System.nanoTime() - startNanos);
+            }
+            return Base64.getEncoder().encodeToString(outputBytes);
         } catch (InvalidAlgorithmParameterException | InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
+            if (monitor != null) {
+                monitor.recordFailure(EncryptorMonitor.Operation.ENCRYPT, e, System.nanoTime() - startNanos);
+            }
             e.printStackTrace();
+        } catch (RuntimeException e) {
+            if (monitor != null) {
+                monitor.recordFailure(EncryptorMonitor.Operation.ENCRYPT, e, System.nanoTime() - startNanos);
+            }
+            throw e;
         }
         return null;
     }
 
     public String decrypt(String input){
+        EncryptorMonitor monitor = this.monitor;
+        long startNanos = monitor == null ? 0L : System.nanoTime();
         try{
             cipher.init(Cipher.DECRYPT_MODE, secretKey, ivParameterSpec);
-            return new String(cipher.doFinal(Base64.getDecoder().decode(input.getBytes())));
+            byte[] inputBytes = Base64.getDecoder().decode(input.getBytes());
+            byte[] outputBytes = cipher.doFinal(inputBytes);
+            if (monitor != null) {
+                monitor.recordSuccess(EncryptorMonitor.Operation.DECRYPT, inputBytes.length, outputBytes.length, System.nanoTime() - startNanos);
+            }
+            return new String(outputBytes);
         }catch (InvalidAlgorithmParameterException | InvalidKeyException | BadPaddingException | IllegalBlockSizeException e) {
+            if (monitor != null) {
+                monitor.recordFailure(EncryptorMonitor.Operation.DECRYPT, e, System.nanoTime() - startNanos);
+            }
             e.printStackTrace();
+        } catch (RuntimeException e) {
+            if (monitor != null) {
+                monitor.recordFailure(EncryptorMonitor.Operation.DECRYPT, e, System.nanoTime() - startNanos);
+            }
+            throw e;
         }
         return null;
     }
 
+    public void installMonitors(Set<EncryptorMonitor.Factory> factories){
+        this.monitor = EncryptorMonitors.createMonitorForEncryptor(this, factories);
+    }
+
     public SecretKey getSecretKey() {
         return secretKey;
     }
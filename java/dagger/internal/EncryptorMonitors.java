@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal;
+
+import dagger.EncryptorMonitor;
+import dagger.EncryptorMonitor.Operation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Utility methods relating to {@link EncryptorMonitor}s, for use in generated encryptors.
+ */
+public final class EncryptorMonitors {
+  private static final Logger logger = Logger.getLogger(EncryptorMonitors.class.getName());
+
+  /**
+   * Creates a monitor for the given encryptor from a set of monitor factories. The returned monitor
+   * will not throw a {@link RuntimeException}.
+   *
+   * <p>Returns {@code null} if no factory returns a monitor, so that generated encryptors can skip
+   * all monitoring work with a single null check.
+   */
+  public static EncryptorMonitor createMonitorForEncryptor(
+      Object encryptor, Collection<? extends EncryptorMonitor.Factory> factories) {
+    List<EncryptorMonitor> monitors = new ArrayList<>(factories.size());
+    for (EncryptorMonitor.Factory factory : factories) {
+      try {
+        EncryptorMonitor monitor = factory.create(encryptor);
+        if (monitor != null && monitor != EncryptorMonitor.noOp()) {
+          monitors.add(monitor);
+        }
+      } catch (RuntimeException e) {
+        logger.log(
+            Level.SEVERE,
+            "RuntimeException while calling EncryptorMonitor.Factory.create on factory "
+                + factory
+                + " with encryptor "
+                + encryptor,
+            e);
+      }
+    }
+    switch (monitors.size()) {
+      case 0:
+        return null;
+      case 1:
+        return new NonThrowingEncryptorMonitor(monitors.get(0));
+      default:
+        return new DelegatingEncryptorMonitor(monitors);
+    }
+  }
+
+  /**
+   * A monitor that delegates to a single monitor, and catches and logs all exceptions that the
+   * delegate throws.
+   */
+  private static final class NonThrowingEncryptorMonitor extends EncryptorMonitor {
+    private final EncryptorMonitor delegate;
+
+    NonThrowingEncryptorMonitor(EncryptorMonitor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void recordSuccess(
+        Operation operation, long inputBytes, long outputBytes, long latencyNanos) {
+      try {
+        delegate.recordSuccess(operation, inputBytes, outputBytes, latencyNanos);
+      } catch (RuntimeException e) {
+        logMonitorMethodException(e, delegate, "recordSuccess");
+      }
+    }
+
+    @Override
+    public void recordFailure(Operation operation, Throwable exception, long latencyNanos) {
+      try {
+        delegate.recordFailure(operation, exception, latencyNanos);
+      } catch (RuntimeException e) {
+        logMonitorMethodException(e, delegate, "recordFailure");
+      }
+    }
+  }
+
+  /**
+   * A monitor that delegates to several monitors, and catches and logs all exceptions that the
+   * delegates throw.
+   */
+  private static final class DelegatingEncryptorMonitor extends EncryptorMonitor {
+    private final EncryptorMonitor[] delegates;
+
+    DelegatingEncryptorMonitor(List<EncryptorMonitor> delegates) {
+      this.delegates = delegates.toArray(new EncryptorMonitor[delegates.size()]);
+    }
+
+    @Override
+    public void recordSuccess(
+        Operation operation, long inputBytes, long outputBytes, long latencyNanos) {
+      for (EncryptorMonitor delegate : delegates) {
+        try {
+          delegate.recordSuccess(operation, inputBytes, outputBytes, latencyNanos);
+        } catch (RuntimeException e) {
+          logMonitorMethodException(e, delegate, "recordSuccess");
+        }
+      }
+    }
+
+    @Override
+    public void recordFailure(Operation operation, Throwable exception, long latencyNanos) {
+      for (EncryptorMonitor delegate : delegates) {
+        try {
+          delegate.recordFailure(operation, exception, latencyNanos);
+        } catch (RuntimeException e) {
+          logMonitorMethodException(e, delegate, "recordFailure");
+        }
+      }
+    }
+  }
+
+  private static void logMonitorMethodException(
+      RuntimeException e, EncryptorMonitor monitor, String method) {
+    logger.log(
+        Level.SEVERE,
+        "RuntimeException while calling EncryptorMonitor." + method + " on monitor " + monitor,
+        e);
+  }
+
+  private EncryptorMonitors() {}
+}
@@ -21,6 +21,7 @@ import static com.google.auto.common.MoreTypes.isTypeOf;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.Iterables.getLast;
 import static com.google.common.collect.Iterables.isEmpty;
 import static dagger.internal.codegen.ComponentDescriptor.Kind.PRODUCTION_COMPONENT;
 import static dagger.internal.codegen.ComponentDescriptor.isComponentContributionMethod;
@@ -44,7 +45,6 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Sets;
@@ -64,7 +64,9 @@ import dagger.producers.Producer;
 import dagger.releasablereferences.CanReleaseReferences;
 import dagger.releasablereferences.ReleasableReferenceManager;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -75,6 +77,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import javax.inject.Inject;
@@ -145,6 +148,107 @@ abstract class BindingGraph {
    */
   abstract ImmutableSet<Scope> scopesRequiringReleasableReferenceManagers();
 
+  /**
+   * The number of production bindings on the longest chain of dependents of each key in this graph,
+   * counting the key's own binding if it is a production binding. The producers with the largest
+   * values are on the critical path of the component, so they are the ones to run first.
+   *
+   * <p>Keys in a cycle (through a {@code Provider} or {@code Producer}) are all given the same
+   * value, counting every production binding in the cycle once, so that the values don't depend
+   * on the order in which the keys are visited.
+   */
+  @Memoized
+  ImmutableMap<Key, Integer> producerCriticalPathLengths() {
+    ImmutableSetMultimap.Builder<Key, Key> dependentsBuilder = ImmutableSetMultimap.builder();
+    for (ResolvedBindings resolvedBindings : contributionBindings().values()) {
+      for (ContributionBinding binding : resolvedBindings.contributionBindings()) {
+        for (DependencyRequest dependency : binding.dependencies()) {
+          dependentsBuilder.put(dependency.key(), resolvedBindings.key());
+        }
+      }
+    }
+    CriticalPathLengths criticalPathLengths = new CriticalPathLengths(dependentsBuilder.build());
+    for (Key key : contributionBindings().keySet()) {
+      criticalPathLengths.visit(key);
+    }
+    return ImmutableMap.copyOf(criticalPathLengths.lengths);
+  }
+
+  /**
+   * Computes {@link #producerCriticalPathLengths()} over the strongly connected components of the
+   * dependents graph, using Tarjan's algorithm. A component is only completed once all of the
+   * components of its dependents are, so their lengths are known by then.
+   */
+  private final class CriticalPathLengths {
+    final ImmutableSetMultimap<Key, Key> dependents;
+    final Map<Key, Integer> lengths = new HashMap<>();
+    final Map<Key, Integer> indexes = new HashMap<>();
+    final Map<Key, Integer> lowLinks = new HashMap<>();
+    final Deque<Key> stack = new ArrayDeque<>();
+    final Set<Key> onStack = new HashSet<>();
+
+    CriticalPathLengths(ImmutableSetMultimap<Key, Key> dependents) {
+      this.dependents = dependents;
+    }
+
+    void visit(Key key) {
+      if (indexes.containsKey(key)) {
+        return;
+      }
+      int index = indexes.size();
+      indexes.put(key, index);
+      lowLinks.put(key, index);
+      stack.push(key);
+      onStack.add(key);
+      for (Key dependent : dependents.get(key)) {
+        if (!indexes.containsKey(dependent)) {
+          visit(dependent);
+          lowLinks.put(key, Math.min(lowLinks.get(key), lowLinks.get(dependent)));
+        } else if (onStack.contains(dependent)) {
+          lowLinks.put(key, Math.min(lowLinks.get(key), indexes.get(dependent)));
+        }
+      }
+      if (lowLinks.get(key) == index) {
+        completeComponent(key);
+      }
+    }
+
+    /** Pops the strongly connected component whose first visited key is {@code root}. */
+    private void completeComponent(Key root) {
+      List<Key> component = new ArrayList<>();
+      Key member;
+      do {
+        member = stack.pop();
+        onStack.remove(member);
+        component.add(member);
+      } while (!member.equals(root));
+
+      int productionBindings = 0;
+      int longestDependentPath = 0;
+      for (Key key : component) {
+        if (isProduction(key)) {
+          productionBindings++;
+        }
+        for (Key dependent : dependents.get(key)) {
+          // Dependents in this component don't have a length yet; all others do.
+          Integer dependentLength = lengths.get(dependent);
+          if (dependentLength != null) {
+            longestDependentPath = Math.max(longestDependentPath, dependentLength);
+          }
+        }
+      }
+      for (Key key : component) {
+        lengths.put(key, longestDependentPath + productionBindings);
+      }
+    }
+
+    private boolean isProduction(Key key) {
+      ResolvedBindings resolvedBindings = contributionBindings().get(key);
+      return resolvedBindings != null
+          && resolvedBindings.bindingTypes().contains(BindingType.PRODUCTION);
+    }
+  }
+
   /** Returns the resolved bindings for the dependencies of {@code binding}. */
   ImmutableSet<ResolvedBindings> resolvedDependencies(ContributionBinding binding) {
     return binding
@@ -259,6 +363,8 @@ abstract class BindingGraph {
     private final KeyFactory keyFactory;
     private final ProvisionBinding.Factory provisionBindingFactory;
     private final ProductionBinding.Factory productionBindingFactory;
+    private final Map<ComponentDescriptor, SubcomponentResolution> parentIndependentSubcomponents =
+        new HashMap<>();
 
     Factory(
         Elements elements,
@@ -277,6 +383,14 @@ abstract class BindingGraph {
       return create(Optional.empty(), componentDescriptor);
     }
 
+    /**
+     * Forgets the subcomponent resolutions that can be reused across parents. Called at the end of
+     * each processing round, since the descriptors they were resolved from are not reused.
+     */
+    void clearCache() {
+      parentIndependentSubcomponents.clear();
+    }
+
     private BindingGraph create(
         Optional<Resolver> parentResolver, ComponentDescriptor componentDescriptor) {
       ImmutableSet.Builder<ContributionBinding> explicitBindingsBuilder = ImmutableSet.builder();
@@ -375,7 +489,7 @@ abstract class BindingGraph {
       for (ComponentDescriptor subcomponent :
           Iterables.consumingIterable(requestResolver.subcomponentsToResolve)) {
         if (resolvedSubcomponents.add(subcomponent)) {
-          subgraphs.add(create(Optional.of(requestResolver), subcomponent));
+          subgraphs.add(createSubgraph(requestResolver, subcomponent));
         }
       }
 
@@ -389,6 +503,13 @@ abstract class BindingGraph {
             componentDescriptor);
       }
 
+      if (parentResolver.isPresent()) {
+        parentResolver
+            .get()
+            .subcomponentResolutions
+            .add(new SubcomponentResolution(requestResolver, releasableReferenceManagerBindings));
+      }
+
       return new AutoValue_BindingGraph(
           componentDescriptor,
           resolvedContributionBindingsMap,
@@ -399,6 +520,37 @@ abstract class BindingGraph {
           requestResolver.getOwnedModules());
     }
 
+    /**
+     * Returns the graph for {@code subcomponent} as a child of {@code parentResolver}'s component.
+     *
+     * <p>A subcomponent that is installed in many parents is usually resolved the same way in each
+     * of them. If an earlier resolution of {@code subcomponent} {@linkplain
+     * SubcomponentResolution#isIndependentOf(Resolver) did not depend} on any of the bindings,
+     * declarations or scopes of its ancestors, and doesn't depend on those of {@code
+     * parentResolver}'s lineage either, then that resolution is reused and only the bindings
+     * inherited from the new parent are filled in. Otherwise the subcomponent is resolved again.
+     */
+    private BindingGraph createSubgraph(
+        Resolver parentResolver, ComponentDescriptor subcomponent) {
+      SubcomponentResolution previousResolution = parentIndependentSubcomponents.get(subcomponent);
+      if (previousResolution != null && previousResolution.isIndependentOf(parentResolver)) {
+        parentResolver.subcomponentResolutions.add(previousResolution);
+        return previousResolution.inheritFrom(
+            parentResolver.getResolvedContributionBindings(),
+            Sets.union(
+                    parentResolver.getInheritedModules(),
+                    parentResolver.componentDescriptor.transitiveModules())
+                .immutableCopy());
+      }
+
+      BindingGraph subgraph = create(Optional.of(parentResolver), subcomponent);
+      SubcomponentResolution resolution = getLast(parentResolver.subcomponentResolutions);
+      if (resolution.isIndependentOf(parentResolver)) {
+        parentIndependentSubcomponents.put(subcomponent, resolution);
+      }
+      return subgraph;
+    }
+
     /**
      * Returns the bindings for {@link ReleasableReferenceManager}s for all {@link
      * CanReleaseReferences @CanReleaseReferences} scopes.
@@ -463,6 +615,113 @@ abstract class BindingGraph {
       return scopes.build();
     }
 
+    /**
+     * The parts of a subcomponent's resolution, and of its descendants' resolutions, that don't
+     * come from its ancestors, along with the keys and scopes that the resolution looked up. If
+     * none of those keys or scopes are declared, bound or resolved in a component's lineage, then
+     * resolving the subcomponent as a child of that component would give the same result.
+     */
+    private final class SubcomponentResolution {
+      final ComponentDescriptor componentDescriptor;
+      final ImmutableMap<Key, ResolvedBindings> ownedContributionBindings;
+      final ImmutableMap<Key, ResolvedBindings> membersInjectionBindings;
+      final ImmutableSetMultimap<Scope, ProvisionBinding> releasableReferenceManagerBindings;
+      final ImmutableList<SubcomponentResolution> subcomponents;
+      final ImmutableSet<Key> lookedUpKeys;
+      final ImmutableSet<Scope> bindingScopes;
+
+      SubcomponentResolution(
+          Resolver resolver,
+          ImmutableSetMultimap<Scope, ProvisionBinding> releasableReferenceManagerBindings) {
+        this.componentDescriptor = resolver.componentDescriptor;
+        this.ownedContributionBindings = ImmutableMap.copyOf(resolver.resolvedContributionBindings);
+        this.membersInjectionBindings = resolver.getResolvedMembersInjectionBindings();
+        this.releasableReferenceManagerBindings = releasableReferenceManagerBindings;
+        this.subcomponents = ImmutableList.copyOf(resolver.subcomponentResolutions);
+        ImmutableSet.Builder<Key> lookedUpKeys =
+            ImmutableSet.<Key>builder().addAll(resolver.lookedUpKeys);
+        ImmutableSet.Builder<Scope> bindingScopes =
+            ImmutableSet.<Scope>builder().addAll(resolver.bindingScopes);
+        for (SubcomponentResolution subcomponent : subcomponents) {
+          lookedUpKeys.addAll(subcomponent.lookedUpKeys);
+          bindingScopes.addAll(subcomponent.bindingScopes);
+        }
+        this.lookedUpKeys = lookedUpKeys.build();
+        this.bindingScopes = bindingScopes.build();
+      }
+
+      /**
+       * Returns {@code true} if resolving this subcomponent as a child of {@code parentResolver}
+       * would not find any binding, declaration or scope from {@code parentResolver} or its
+       * ancestors, other than by inheriting bindings that the subcomponent didn't resolve itself.
+       */
+      boolean isIndependentOf(Resolver parentResolver) {
+        ImmutableList<Resolver> lineage = parentResolver.resolverLineage;
+        for (Resolver ancestor : lineage) {
+          if (!Collections.disjoint(ancestor.componentDescriptor.scopes(), bindingScopes)) {
+            return false;
+          }
+        }
+        for (Key key : lookedUpKeys) {
+          Key delegateKey = keyFactory.convertToDelegateKey(key);
+          Optional<Key> unwrappedOptionalKey = keyFactory.unwrapOptional(key);
+          for (Resolver ancestor : lineage) {
+            if (ancestor.resolvedContributionBindings.containsKey(key)
+                || ancestor.explicitBindings.containsKey(key)
+                || ancestor.explicitMultibindings.containsKey(key)
+                || ancestor.multibindingDeclarations.containsKey(key)
+                || ancestor.subcomponentDeclarations.containsKey(key)
+                || ancestor.delegateDeclarations.containsKey(delegateKey)
+                || ancestor.delegateMultibindingDeclarations.containsKey(delegateKey)
+                || (unwrappedOptionalKey.isPresent()
+                    && ancestor.optionalBindingDeclarations.containsKey(
+                        unwrappedOptionalKey.get()))) {
+              return false;
+            }
+          }
+        }
+        return true;
+      }
+
+      /**
+       * Returns the graph for this subcomponent as a child of a component whose resolved bindings,
+       * including those it inherits, are {@code parentBindings}.
+       *
+       * @param inheritedModules the modules of all of the new parent's lineage
+       */
+      BindingGraph inheritFrom(
+          ImmutableMap<Key, ResolvedBindings> parentBindings,
+          ImmutableSet<ModuleDescriptor> inheritedModules) {
+        ImmutableMap.Builder<Key, ResolvedBindings> contributionBindings = ImmutableMap.builder();
+        contributionBindings.putAll(ownedContributionBindings);
+        parentBindings.forEach(
+            (key, resolvedInParent) -> {
+              if (!ownedContributionBindings.containsKey(key)) {
+                contributionBindings.put(key, resolvedInParent.asInheritedIn(componentDescriptor));
+              }
+            });
+        ImmutableMap<Key, ResolvedBindings> contributionBindingsMap = contributionBindings.build();
+
+        ImmutableSet<ModuleDescriptor> modulesInheritedBySubcomponents =
+            Sets.union(inheritedModules, componentDescriptor.transitiveModules()).immutableCopy();
+        ImmutableSet.Builder<BindingGraph> subgraphs = ImmutableSet.builder();
+        for (SubcomponentResolution subcomponent : subcomponents) {
+          subgraphs.add(
+              subcomponent.inheritFrom(contributionBindingsMap, modulesInheritedBySubcomponents));
+        }
+
+        return new AutoValue_BindingGraph(
+            componentDescriptor,
+            contributionBindingsMap,
+            membersInjectionBindings,
+            subgraphs.build(),
+            getScopesRequiringReleasableReferenceManagers(
+                releasableReferenceManagerBindings, contributionBindingsMap.keySet()),
+            Sets.difference(componentDescriptor.transitiveModules(), inheritedModules)
+                .immutableCopy());
+      }
+    }
+
     private final class Resolver {
       final Optional<Resolver> parentResolver;
       final ComponentDescriptor componentDescriptor;
@@ -474,12 +733,30 @@ abstract class BindingGraph {
       final ImmutableSetMultimap<Key, DelegateDeclaration> delegateDeclarations;
       final ImmutableSetMultimap<Key, OptionalBindingDeclaration> optionalBindingDeclarations;
       final ImmutableSetMultimap<Key, DelegateDeclaration> delegateMultibindingDeclarations;
+      /** This resolver and its ancestors, from the root to this resolver. */
+      final ImmutableList<Resolver> resolverLineage;
+      // The declarations of this resolver and all ancestor resolvers, in lineage order.
+      final ImmutableSetMultimap<Key, ContributionBinding> explicitBindingsInLineage;
+      final ImmutableSetMultimap<Key, ContributionBinding> explicitMultibindingsInLineage;
+      final ImmutableSetMultimap<Key, MultibindingDeclaration> multibindingDeclarationsInLineage;
+      final ImmutableSetMultimap<Key, SubcomponentDeclaration> subcomponentDeclarationsInLineage;
+      final ImmutableSetMultimap<Key, DelegateDeclaration> delegateDeclarationsInLineage;
+      final ImmutableSetMultimap<Key, OptionalBindingDeclaration>
+          optionalBindingDeclarationsInLineage;
+      final ImmutableSetMultimap<Key, DelegateDeclaration>
+          delegateMultibindingDeclarationsInLineage;
       final Map<Key, ResolvedBindings> resolvedContributionBindings = new LinkedHashMap<>();
       final Map<Key, ResolvedBindings> resolvedMembersInjectionBindings = new LinkedHashMap<>();
-      final Deque<Key> cycleStack = new ArrayDeque<>();
+      /** The keys currently being resolved or looked up as the right-hand side of a delegate. */
+      final Set<Key> cycleKeys = new HashSet<>();
       final Map<Key, Boolean> keyDependsOnLocalBindingsCache = new HashMap<>();
       final Map<Binding, Boolean> bindingDependsOnLocalBindingsCache = new HashMap<>();
       final Queue<ComponentDescriptor> subcomponentsToResolve = new ArrayDeque<>();
+      final List<SubcomponentResolution> subcomponentResolutions = new ArrayList<>();
+      /** The keys looked up while resolving this component, for {@link SubcomponentResolution}. */
+      final Set<Key> lookedUpKeys = new HashSet<>();
+      /** The scopes of bindings resolved in this component, for {@link SubcomponentResolution}. */
+      final Set<Scope> bindingScopes = new HashSet<>();
 
       Resolver(
           Optional<Resolver> parentResolver,
@@ -501,9 +778,60 @@ abstract class BindingGraph {
             multibindingContributionsByMultibindingKey(explicitBindingsSet);
         this.delegateMultibindingDeclarations =
             multibindingContributionsByMultibindingKey(delegateDeclarations.values());
+        this.resolverLineage =
+            parentResolver.isPresent()
+                ? ImmutableList.<Resolver>builder()
+                    .addAll(parentResolver.get().resolverLineage)
+                    .add(this)
+                    .build()
+                : ImmutableList.of(this);
+        this.explicitBindingsInLineage =
+            inLineage(this.explicitBindings, resolver -> resolver.explicitBindingsInLineage);
+        this.explicitMultibindingsInLineage =
+            inLineage(
+                this.explicitMultibindings, resolver -> resolver.explicitMultibindingsInLineage);
+        this.multibindingDeclarationsInLineage =
+            inLineage(
+                this.multibindingDeclarations,
+                resolver -> resolver.multibindingDeclarationsInLineage);
+        this.subcomponentDeclarationsInLineage =
+            inLineage(
+                this.subcomponentDeclarations,
+                resolver -> resolver.subcomponentDeclarationsInLineage);
+        this.delegateDeclarationsInLineage =
+            inLineage(
+                this.delegateDeclarations, resolver -> resolver.delegateDeclarationsInLineage);
+        this.optionalBindingDeclarationsInLineage =
+            inLineage(
+                this.optionalBindingDeclarations,
+                resolver -> resolver.optionalBindingDeclarationsInLineage);
+        this.delegateMultibindingDeclarationsInLineage =
+            inLineage(
+                this.delegateMultibindingDeclarations,
+                resolver -> resolver.delegateMultibindingDeclarationsInLineage);
         subcomponentsToResolve.addAll(componentDescriptor.subcomponentsFromEntryPoints());
       }
 
+      /**
+       * Returns the entries of the parent resolver's {@code inheritedIndex} followed by {@code
+       * localIndex}, so that lookups of ancestors' declarations don't walk the lineage.
+       */
+      private <T> ImmutableSetMultimap<Key, T> inLineage(
+          ImmutableSetMultimap<Key, T> localIndex,
+          Function<Resolver, ImmutableSetMultimap<Key, T>> inheritedIndex) {
+        if (!parentResolver.isPresent()) {
+          return localIndex;
+        }
+        ImmutableSetMultimap<Key, T> parentIndex = inheritedIndex.apply(parentResolver.get());
+        if (localIndex.isEmpty()) {
+          return parentIndex;
+        }
+        return ImmutableSetMultimap.<Key, T>builder()
+            .putAll(parentIndex)
+            .putAll(localIndex)
+            .build();
+      }
+
       /**
        * Returns the resolved contribution bindings for the given {@link Key}:
        *
@@ -538,6 +866,7 @@ abstract class BindingGraph {
             ImmutableSet.builder();
 
         for (Key key : keysMatchingRequest(requestKey)) {
+          lookedUpKeys.add(key);
           contributionBindings.addAll(getExplicitBindings(key));
           multibindingContributionsBuilder.addAll(getExplicitMultibindings(key));
           multibindingDeclarationsBuilder.addAll(getMultibindingDeclarations(key));
@@ -732,16 +1061,15 @@ abstract class BindingGraph {
        */
       private ContributionBinding createDelegateBinding(DelegateDeclaration delegateDeclaration) {
         Key delegateKey = delegateDeclaration.delegateRequest().key();
-        if (cycleStack.contains(delegateKey)) {
+        if (!cycleKeys.add(delegateKey)) {
           return provisionBindingFactory.missingDelegate(delegateDeclaration);
         }
 
         ResolvedBindings resolvedDelegate;
         try {
-          cycleStack.push(delegateKey);
           resolvedDelegate = lookUpBindings(delegateKey);
         } finally {
-          cycleStack.pop();
+          cycleKeys.remove(delegateKey);
         }
         if (resolvedDelegate.contributionBindings().isEmpty()) {
           // This is guaranteed to result in a missing binding error, so it doesn't matter if the
@@ -823,8 +1151,10 @@ abstract class BindingGraph {
       }
 
       private Optional<Resolver> getOwningResolver(ContributionBinding binding) {
+        lookedUpKeys.add(binding.key());
+        binding.scope().ifPresent(bindingScopes::add);
         if (binding.scope().isPresent() && binding.scope().get().isReusable()) {
-          for (Resolver requestResolver : getResolverLineage().reverse()) {
+          for (Resolver requestResolver : resolverLineage.reverse()) {
             // If a @Reusable binding was resolved in an ancestor, use that component.
             if (requestResolver.resolvedContributionBindings.containsKey(binding.key())) {
               return Optional.of(requestResolver);
@@ -834,7 +1164,7 @@ abstract class BindingGraph {
           return Optional.empty();
         }
 
-        for (Resolver requestResolver : getResolverLineage().reverse()) {
+        for (Resolver requestResolver : resolverLineage.reverse()) {
           if (requestResolver.explicitBindingsSet.contains(binding)
               || requestResolver.subcomponentDeclarations.containsKey(binding.key())) {
             return Optional.of(requestResolver);
@@ -845,7 +1175,7 @@ abstract class BindingGraph {
         // in the † compatibility mode
         Optional<Scope> bindingScope = binding.scope();
         if (bindingScope.isPresent()) {
-          for (Resolver requestResolver : getResolverLineage().reverse()) {
+          for (Resolver requestResolver : resolverLineage.reverse()) {
             if (requestResolver.componentDescriptor.scopes().contains(bindingScope.get())) {
               return Optional.of(requestResolver);
             }
@@ -854,24 +1184,18 @@ abstract class BindingGraph {
         return Optional.empty();
       }
 
-      /** Returns the resolver lineage from parent to child. */
-      private ImmutableList<Resolver> getResolverLineage() {
-        List<Resolver> resolverList = Lists.newArrayList();
-        for (Optional<Resolver> currentResolver = Optional.of(this);
-            currentResolver.isPresent();
-            currentResolver = currentResolver.get().parentResolver) {
-          resolverList.add(currentResolver.get());
-        }
-        return ImmutableList.copyOf(Lists.reverse(resolverList));
-      }
-
       /**
        * Returns the explicit {@link ContributionBinding}s that match the {@code key} from this and
        * all ancestor resolvers.
        */
       private ImmutableSet<ContributionBinding> getExplicitBindings(Key key) {
+        // Delegate bindings are created by the resolver that declares them, so only walk the
+        // lineage if some resolver has a delegate declaration for the key.
+        if (!delegateDeclarationsInLineage.containsKey(keyFactory.convertToDelegateKey(key))) {
+          return explicitBindingsInLineage.get(key);
+        }
         ImmutableSet.Builder<ContributionBinding> bindings = ImmutableSet.builder();
-        for (Resolver resolver : getResolverLineage()) {
+        for (Resolver resolver : resolverLineage) {
           bindings.addAll(resolver.getLocalExplicitBindings(key));
         }
         return bindings.build();
@@ -895,8 +1219,12 @@ abstract class BindingGraph {
        * by {@code key} from this and all ancestor resolvers.
        */
       private ImmutableSet<ContributionBinding> getExplicitMultibindings(Key key) {
+        if (!delegateMultibindingDeclarationsInLineage.containsKey(
+            keyFactory.convertToDelegateKey(key))) {
+          return explicitMultibindingsInLineage.get(key);
+        }
         ImmutableSet.Builder<ContributionBinding> multibindings = ImmutableSet.builder();
-        for (Resolver resolver : getResolverLineage()) {
+        for (Resolver resolver : resolverLineage) {
           multibindings.addAll(resolver.getLocalExplicitMultibindings(key));
         }
         return multibindings.build();
@@ -926,12 +1254,7 @@ abstract class BindingGraph {
        * ancestor resolvers.
        */
       private ImmutableSet<MultibindingDeclaration> getMultibindingDeclarations(Key key) {
-        ImmutableSet.Builder<MultibindingDeclaration> multibindingDeclarations =
-            ImmutableSet.builder();
-        for (Resolver resolver : getResolverLineage()) {
-          multibindingDeclarations.addAll(resolver.multibindingDeclarations.get(key));
-        }
-        return multibindingDeclarations.build();
+        return multibindingDeclarationsInLineage.get(key);
       }
 
       /**
@@ -939,27 +1262,18 @@ abstract class BindingGraph {
        * ancestor resolvers.
        */
       private ImmutableSet<SubcomponentDeclaration> getSubcomponentDeclarations(Key key) {
-        ImmutableSet.Builder<SubcomponentDeclaration> subcomponentDeclarations =
-            ImmutableSet.builder();
-        for (Resolver resolver : getResolverLineage()) {
-          subcomponentDeclarations.addAll(resolver.subcomponentDeclarations.get(key));
-        }
-        return subcomponentDeclarations.build();
+        return subcomponentDeclarationsInLineage.get(key);
       }
+
       /**
        * Returns the {@link OptionalBindingDeclaration}s that match the {@code key} from this and
        * all ancestor resolvers.
        */
       private ImmutableSet<OptionalBindingDeclaration> getOptionalBindingDeclarations(Key key) {
         Optional<Key> unwrapped = keyFactory.unwrapOptional(key);
-        if (!unwrapped.isPresent()) {
-          return ImmutableSet.of();
-        }
-        ImmutableSet.Builder<OptionalBindingDeclaration> declarations = ImmutableSet.builder();
-        for (Resolver resolver : getResolverLineage()) {
-          declarations.addAll(resolver.optionalBindingDeclarations.get(unwrapped.get()));
-        }
-        return declarations.build();
+        return unwrapped.isPresent()
+            ? optionalBindingDeclarationsInLineage.get(unwrapped.get())
+            : ImmutableSet.of();
       }
 
       /**
@@ -988,9 +1302,10 @@ abstract class BindingGraph {
       }
 
       void resolve(Key key) {
+        lookedUpKeys.add(key);
         // If we find a cycle, stop resolving. The original request will add it with all of the
         // other resolved deps.
-        if (cycleStack.contains(key)) {
+        if (cycleKeys.contains(key)) {
           return;
         }
 
@@ -1024,13 +1339,13 @@ abstract class BindingGraph {
           }
         }
 
-        cycleStack.push(key);
+        cycleKeys.add(key);
         try {
           ResolvedBindings bindings = lookUpBindings(key);
           resolveDependencies(bindings);
           resolvedContributionBindings.put(key, bindings);
         } finally {
-          cycleStack.pop();
+          cycleKeys.remove(key);
         }
       }
 
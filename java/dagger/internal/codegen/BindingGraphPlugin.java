@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 
@@ -31,11 +32,16 @@ import javax.annotation.processing.Processor;
 public abstract class BindingGraphPlugin {
 
   private Filer filer;
+  private Messager messager;
 
   final void setFiler(Filer filer) {
     this.filer = filer;
   }
 
+  final void setMessager(Messager messager) {
+    this.messager = messager;
+  }
+
   /**
    * Returns a filer that this plug-in can use to write Java or other files based on the binding
    * graph.
@@ -44,6 +50,11 @@ public abstract class BindingGraphPlugin {
     return filer;
   }
 
+  /** Returns a messager that this plug-in can use to report diagnostics about the binding graph. */
+  protected final Messager messager() {
+    return messager;
+  }
+
   /** Called once for each valid root binding graph encountered by the Dagger processor. */
   protected abstract void visitGraph(BindingNetwork bindingNetwork);
 
@@ -56,6 +67,27 @@ public abstract class BindingGraphPlugin {
     return Collections.emptySet();
   }
 
+  /**
+   * Returns {@code true} if {@link #visitGraph(BindingNetwork)} may be called on a thread other
+   * than the processor thread, concurrently with other plugins visiting the same network.
+   *
+   * <p>A thread-safe plugin must not share mutable state with other plugins, and should only read
+   * the {@link BindingNetwork} and write through {@link #filer()} and {@link #messager()}. javac's
+   * model may only be used on the processor thread, so a thread-safe plugin must not read {@link
+   * javax.lang.model.element.Element}s or {@link javax.lang.model.type.TypeMirror}s, nor call
+   * methods that do, such as the {@code toString()} of keys and component tree paths. Plugins
+   * that describe bindings by name should not be thread-safe. The
+   * files and diagnostics it writes are recorded and replayed on the processor thread after every
+   * plugin has visited the network, so it cannot read back what it has written during the visit.
+   * Resources that it {@linkplain Filer#getResource reads} are read on the processor thread, once
+   * the plugins that are not thread-safe have visited the network.
+   *
+   * <p>The default implementation returns {@code false}.
+   */
+  protected boolean isThreadSafe() {
+    return false;
+  }
+
   /**
    * If {@link #getSupportedOptions()} returns a non-empty set, then this method will be called with
    * matching options that were actually passed on the {@code javac} command-line.
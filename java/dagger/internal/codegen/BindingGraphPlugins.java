@@ -0,0 +1,403 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+import static com.google.common.util.concurrent.Uninterruptibles.takeUninterruptibly;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager.Location;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * The {@link BindingGraphPlugin}s loaded by the processor, and the logic to run them over each
+ * {@link BindingNetwork}.
+ *
+ * <p>Plugins that are {@linkplain BindingGraphPlugin#isThreadSafe() thread-safe} visit the network
+ * concurrently on a bounded pool while the other plugins visit it one at a time on the processor
+ * thread. javac's {@link Filer} and {@link Messager} are not thread-safe, so the thread-safe
+ * plugins are given implementations that record what they write. The recordings are replayed on
+ * the processor thread, in plugin order, once every plugin has visited the network. Resources that
+ * the thread-safe plugins read are read from the {@link Filer} on the processor thread, while it
+ * waits for their visits to finish.
+ */
+final class BindingGraphPlugins {
+  private final ImmutableList<BindingGraphPlugin> plugins;
+  private final ImmutableSet<String> supportedOptions;
+  private final Filer filer;
+  private final Messager messager;
+  private final int threadSafePluginCount;
+  private ExecutorService executor;
+
+  BindingGraphPlugins(
+      Iterable<BindingGraphPlugin> plugins,
+      Filer filer,
+      Messager messager,
+      Map<String, String> processingOptions) {
+    this.plugins = ImmutableList.copyOf(plugins);
+    this.filer = filer;
+    this.messager = messager;
+    ImmutableSet.Builder<String> supportedOptions = ImmutableSet.builder();
+    int threadSafePluginCount = 0;
+    for (BindingGraphPlugin plugin : this.plugins) {
+      plugin.setFiler(filer);
+      plugin.setMessager(messager);
+      Set<String> pluginOptions = plugin.getSupportedOptions();
+      if (!pluginOptions.isEmpty()) {
+        plugin.setOptions(Maps.filterKeys(processingOptions, pluginOptions::contains));
+      }
+      supportedOptions.addAll(pluginOptions);
+      if (plugin.isThreadSafe()) {
+        threadSafePluginCount++;
+      }
+    }
+    this.supportedOptions = supportedOptions.build();
+    this.threadSafePluginCount = threadSafePluginCount;
+  }
+
+  /** Returns the annotation-processing options that any of the plugins use. */
+  ImmutableSet<String> supportedOptions() {
+    return supportedOptions;
+  }
+
+  boolean isEmpty() {
+    return plugins.isEmpty();
+  }
+
+  /** Calls {@link BindingGraphPlugin#visitGraph(BindingNetwork)} on every plugin. */
+  void visitGraph(BindingNetwork bindingNetwork) {
+    if (threadSafePluginCount == 0 || plugins.size() == 1) {
+      plugins.forEach(plugin -> plugin.visitGraph(bindingNetwork));
+      return;
+    }
+
+    BlockingQueue<Runnable> processorThreadTasks = new LinkedBlockingQueue<>();
+    Map<BindingGraphPlugin, Future<Recording>> concurrentVisits = new LinkedHashMap<>();
+    for (BindingGraphPlugin plugin : plugins) {
+      if (plugin.isThreadSafe()) {
+        Recording recording = new Recording(filer, processorThreadTasks);
+        plugin.setFiler(recording);
+        plugin.setMessager(recording);
+        concurrentVisits.put(
+            plugin,
+            executor()
+                .submit(
+                    () -> {
+                      try {
+                        plugin.visitGraph(bindingNetwork);
+                      } finally {
+                        processorThreadTasks.add(VISIT_FINISHED);
+                      }
+                    },
+                    recording));
+      }
+    }
+
+    Optional<Throwable> failure = Optional.empty();
+    try {
+      for (BindingGraphPlugin plugin : plugins) {
+        if (!plugin.isThreadSafe()) {
+          plugin.visitGraph(bindingNetwork);
+        }
+      }
+    } catch (RuntimeException | Error e) {
+      failure = Optional.of(e);
+    }
+
+    // Serve the thread-safe plugins' reads until all of them have finished.
+    for (int runningVisits = concurrentVisits.size(); runningVisits > 0; ) {
+      Runnable task = takeUninterruptibly(processorThreadTasks);
+      if (task == VISIT_FINISHED) {
+        runningVisits--;
+      } else {
+        task.run();
+      }
+    }
+
+    List<Recording> recordings = new ArrayList<>();
+    for (Map.Entry<BindingGraphPlugin, Future<Recording>> visit : concurrentVisits.entrySet()) {
+      try {
+        recordings.add(getUninterruptibly(visit.getValue()));
+      } catch (ExecutionException e) {
+        if (!failure.isPresent()) {
+          failure = Optional.of(e.getCause());
+        }
+      } finally {
+        visit.getKey().setFiler(filer);
+        visit.getKey().setMessager(messager);
+      }
+    }
+
+    for (Recording recording : recordings) {
+      recording.replay(filer, messager);
+    }
+    if (failure.isPresent()) {
+      Throwables.throwIfUnchecked(failure.get());
+      throw new RuntimeException(failure.get());
+    }
+  }
+
+  /** Marks the end of a thread-safe plugin's visit in the queue of processor thread tasks. */
+  private static final Runnable VISIT_FINISHED = () -> {};
+
+  /** Stops the threads used to run thread-safe plugins. */
+  void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  private ExecutorService executor() {
+    if (executor == null) {
+      executor =
+          Executors.newFixedThreadPool(
+              Math.min(threadSafePluginCount, Runtime.getRuntime().availableProcessors()),
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("dagger-binding-graph-plugin-%d")
+                  .build());
+    }
+    return executor;
+  }
+
+  /**
+   * A {@link Filer} and {@link Messager} for a plugin visiting a network off the processor thread.
+   * Files are buffered in memory, and diagnostics are stored, until they are {@linkplain #replay
+   * replayed}. Resources are read from the real {@link Filer} by a task that runs on the processor
+   * thread.
+   */
+  private static final class Recording implements Filer, Messager {
+    private final Filer filer;
+    private final BlockingQueue<Runnable> processorThreadTasks;
+    private final List<RecordedFile> files = new ArrayList<>();
+    private final List<RecordedDiagnostic> diagnostics = new ArrayList<>();
+
+    Recording(Filer filer, BlockingQueue<Runnable> processorThreadTasks) {
+      this.filer = filer;
+      this.processorThreadTasks = processorThreadTasks;
+    }
+
+    @Override
+    public synchronized JavaFileObject createSourceFile(
+        CharSequence name, Element... originatingElements) {
+      return record(
+          name,
+          JavaFileObject.Kind.SOURCE,
+          filer -> filer.createSourceFile(name, originatingElements));
+    }
+
+    @Override
+    public synchronized JavaFileObject createClassFile(
+        CharSequence name, Element... originatingElements) {
+      return record(
+          name,
+          JavaFileObject.Kind.CLASS,
+          filer -> filer.createClassFile(name, originatingElements));
+    }
+
+    @Override
+    public synchronized FileObject createResource(
+        Location location,
+        CharSequence pkg,
+        CharSequence relativeName,
+        Element... originatingElements) {
+      return record(
+          pkg + "/" + relativeName,
+          JavaFileObject.Kind.OTHER,
+          filer -> filer.createResource(location, pkg, relativeName, originatingElements));
+    }
+
+    @Override
+    public FileObject getResource(Location location, CharSequence pkg, CharSequence relativeName)
+        throws IOException {
+      FutureTask<FileObject> read =
+          new FutureTask<>(() -> filer.getResource(location, pkg, relativeName));
+      processorThreadTasks.add(read);
+      try {
+        return getUninterruptibly(read);
+      } catch (ExecutionException e) {
+        Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new RuntimeException(e.getCause());
+      }
+    }
+
+    private RecordedFile record(CharSequence name, JavaFileObject.Kind kind, FileCreator creator) {
+      RecordedFile file = new RecordedFile(name, kind, creator);
+      files.add(file);
+      return file;
+    }
+
+    @Override
+    public void printMessage(Diagnostic.Kind kind, CharSequence msg) {
+      printMessage(kind, msg, null, null, null);
+    }
+
+    @Override
+    public void printMessage(Diagnostic.Kind kind, CharSequence msg, Element e) {
+      printMessage(kind, msg, e, null, null);
+    }
+
+    @Override
+    public void printMessage(
+        Diagnostic.Kind kind, CharSequence msg, Element e, AnnotationMirror a) {
+      printMessage(kind, msg, e, a, null);
+    }
+
+    @Override
+    public synchronized void printMessage(
+        Diagnostic.Kind kind,
+        CharSequence msg,
+        Element e,
+        AnnotationMirror a,
+        AnnotationValue v) {
+      diagnostics.add(new RecordedDiagnostic(kind, msg.toString(), e, a, v));
+    }
+
+    /** Writes the recorded files and diagnostics to {@code filer} and {@code messager}. */
+    synchronized void replay(Filer filer, Messager messager) {
+      for (RecordedDiagnostic diagnostic : diagnostics) {
+        diagnostic.replay(messager);
+      }
+      for (RecordedFile file : files) {
+        try {
+          file.replay(filer);
+        } catch (IOException e) {
+          messager.printMessage(ERROR, "Could not write " + file.getName() + ": " + e);
+        }
+      }
+    }
+  }
+
+  /** Creates a file on the real {@link Filer}. */
+  private interface FileCreator {
+    FileObject create(Filer filer) throws IOException;
+  }
+
+  /** A file whose contents are buffered in memory until it is replayed. */
+  private static final class RecordedFile extends SimpleJavaFileObject {
+    private final CharSequence name;
+    private final FileCreator creator;
+    private StringWriter characters;
+    private ByteArrayOutputStream bytes;
+
+    RecordedFile(CharSequence name, Kind kind, FileCreator creator) {
+      super(URI.create("recorded:///" + name.toString().replace('.', '/')), kind);
+      this.name = name;
+      this.creator = creator;
+    }
+
+    @Override
+    public String getName() {
+      return name.toString();
+    }
+
+    @Override
+    public synchronized Writer openWriter() {
+      checkState(characters == null && bytes == null, "%s has already been opened", name);
+      characters = new StringWriter();
+      return characters;
+    }
+
+    @Override
+    public synchronized OutputStream openOutputStream() {
+      checkState(characters == null && bytes == null, "%s has already been opened", name);
+      bytes = new ByteArrayOutputStream();
+      return bytes;
+    }
+
+    synchronized void replay(Filer filer) throws IOException {
+      FileObject file = creator.create(filer);
+      if (characters != null) {
+        try (Writer writer = file.openWriter()) {
+          writer.write(characters.toString());
+        }
+      } else if (bytes != null) {
+        try (OutputStream outputStream = file.openOutputStream()) {
+          bytes.writeTo(outputStream);
+        }
+      }
+    }
+  }
+
+  private static final class RecordedDiagnostic {
+    private final Diagnostic.Kind kind;
+    private final String message;
+    private final Element element;
+    private final AnnotationMirror annotation;
+    private final AnnotationValue annotationValue;
+
+    RecordedDiagnostic(
+        Diagnostic.Kind kind,
+        String message,
+        Element element,
+        AnnotationMirror annotation,
+        AnnotationValue annotationValue) {
+      this.kind = kind;
+      this.message = message;
+      this.element = element;
+      this.annotation = annotation;
+      this.annotationValue = annotationValue;
+    }
+
+    void replay(Messager messager) {
+      if (element == null) {
+        messager.printMessage(kind, message);
+      } else if (annotation == null) {
+        messager.printMessage(kind, message, element);
+      } else if (annotationValue == null) {
+        messager.printMessage(kind, message, element, annotation);
+      } else {
+        messager.printMessage(kind, message, element, annotation, annotationValue);
+      }
+    }
+  }
+}
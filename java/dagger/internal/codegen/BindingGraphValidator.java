@@ -176,15 +176,98 @@ final class BindingGraphValidator {
     private final SetMultimap<ComponentDescriptor, ContributionBinding> incompatiblyScopedBindings =
         LinkedHashMultimap.create();
 
+    /**
+     * The traversal shared by every entry point, if {@linkplain
+     * CompilerOptions#linearBindingGraphValidation() each binding is traversed only once}.
+     */
+    private final Optional<SharedTraversal> sharedTraversal;
+
     ComponentValidation(BindingGraph rootGraph) {
       super(rootGraph);
       this.rootGraph = rootGraph;
+      this.sharedTraversal =
+          compilerOptions.linearBindingGraphValidation()
+              ? Optional.of(new SharedTraversal())
+              : Optional.empty();
     }
 
     @Override
     protected BindingGraphTraverser bindingGraphTraverser(
         ComponentTreePath componentPath, DependencyRequest entryPoint) {
-      return new BindingGraphValidation(componentPath, entryPoint);
+      return sharedTraversal.isPresent()
+          ? new BindingGraphValidation(componentPath, entryPoint, sharedTraversal.get())
+          : new BindingGraphValidation(componentPath, entryPoint);
+    }
+
+    /**
+     * Reports the dependency cycles among all the traversed dependency requests, if the entry
+     * points {@linkplain #sharedTraversal share a traversal}. Otherwise each entry point's
+     * traversal reports the cycles in its own dependency paths.
+     */
+    void reportDependencyCycles() {
+      if (!sharedTraversal.isPresent()) {
+        return;
+      }
+      for (DependencyCycle cycle : sharedTraversal.get().dependencyCycles(this::breaksCycle)) {
+        ImmutableList.Builder<ContributionBinding> cycleBindings = ImmutableList.builder();
+        cycle
+            .cycleDependencyTrace()
+            .forEach(
+                (dependencyRequest, resolvedBindings) ->
+                    cycleBindings.addAll(resolvedBindings.contributionBindings()));
+        report(cycle.traverser().owningGraph(cycleBindings.build()))
+            .addError(
+                String.format(
+                    CONTAINS_DEPENDENCY_CYCLE_FORMAT,
+                    dependencyRequestFormatter.format(cycle.dependencyTrace())),
+                cycle.traverser().entryPointElement());
+      }
+    }
+
+    /**
+     * Returns {@code true} if a step in a dependency cycle "breaks" the cycle. These are any
+     * nonsynthetic {@link Provider}, {@link Lazy}, or {@code Map<K, Provider<V>>} requests.
+     *
+     * <p>The synthetic request for a {@code Map<K, Provider<V>>} as a dependency of a multibound
+     * {@code Map<K, V>} does not break cycles because the map's {@link Provider}s' {@link
+     * Provider#get() get()} methods are called during provision.
+     *
+     * <p>A request for an instance of {@code Optional} breaks the cycle if it is resolved to a
+     * {@link BindsOptionalOf} binding and a request for the {@code Optional}'s type parameter
+     * would.
+     */
+    private boolean breaksCycle(
+        DependencyRequest dependencyRequest, ResolvedBindings resolvedBindings) {
+      if (!dependencyRequest.requestElement().isPresent()) {
+        return false;
+      }
+      if (breaksCycle(dependencyRequest.key().type(), dependencyRequest.kind())) {
+        return true;
+      }
+      if (!resolvedBindings.optionalBindingDeclarations().isEmpty()) {
+        /* Request resolved to a @BindsOptionalOf binding, so test the type inside the Optional.
+         * Optional<Provider or Lazy or Provider of Lazy or Map of Provider> breaks the cycle. */
+        TypeMirror optionalValueType = OptionalType.from(dependencyRequest.key()).valueType();
+        RequestKind requestKind = getRequestKind(optionalValueType);
+        return breaksCycle(extractKeyType(requestKind, optionalValueType), requestKind);
+      }
+      return false;
+    }
+
+    private boolean breaksCycle(TypeMirror requestedType, RequestKind requestKind) {
+      switch (requestKind) {
+        case PROVIDER:
+        case LAZY:
+        case PROVIDER_OF_LAZY:
+          return true;
+
+        case INSTANCE:
+          return MapType.isMap(requestedType)
+              && MapType.from(requestedType).valuesAreTypeOf(Provider.class);
+
+        default:
+          return false;
+      }
     }
 
     /** Returns a report that contains all validation messages found during traversal. */
@@ -586,6 +669,13 @@ final class BindingGraphValidator {
         super(componentPath, entryPoint);
       }
 
+      BindingGraphValidation(
+          ComponentTreePath componentPath,
+          DependencyRequest entryPoint,
+          SharedTraversal sharedTraversal) {
+        super(componentPath, entryPoint, sharedTraversal);
+      }
+
       /** Reports an error for the current component at the entry point. */
       private void reportErrorAtEntryPoint(String format, Object... args) {
         reportErrorAtEntryPoint(currentGraph(), format, args);
@@ -603,7 +693,7 @@ final class BindingGraphValidator {
 
       @Override
       protected void visitDependencyRequest(DependencyRequest dependencyRequest) {
-        if (atDependencyCycle()) {
+        if (!sharedTraversal.isPresent() && atDependencyCycle()) {
           reportDependencyCycle();
         }
         super.visitDependencyRequest(dependencyRequest);
@@ -611,7 +701,9 @@ final class BindingGraphValidator {
 
       @Override
       protected void visitResolvedBindings(ResolvedBindings resolvedBindings) {
-        if (resolvedBindings.isEmpty()) {
+        if (resolvedBindingsPreviouslyVisited()) {
+          // Already reported from the first request for the same bindings.
+        } else if (resolvedBindings.isEmpty()) {
           reportMissingBinding();
         } else if (resolvedBindings.bindings().size() > 1) {
           reportDuplicateBindings();
@@ -622,10 +714,22 @@ final class BindingGraphValidator {
       @Override
       protected void visitContributionBinding(
           ContributionBinding binding, ComponentDescriptor owningComponent) {
-        checkBindingScope(binding, owningComponent);
         if (!dependencyRequest().isNullable() && binding.nullableType().isPresent()) {
           reportNullableBindingForNonNullableRequest(binding);
         }
+        if (binding.bindingType().equals(PRODUCTION) && doesPathRequireProvisionOnly()) {
+          reportProviderMayNotDependOnProducer(binding);
+        }
+        if (!bindingPreviouslyVisited(binding, owningComponent)) {
+          validateContributionBinding(binding, owningComponent);
+        }
+        super.visitContributionBinding(binding, owningComponent);
+      }
+
+      /** Validates the parts of a contribution binding that don't depend on how it is requested. */
+      private void validateContributionBinding(
+          ContributionBinding binding, ComponentDescriptor owningComponent) {
+        checkBindingScope(binding, owningComponent);
         if (binding.bindingKind().equals(INJECTION)) {
           TypeMirror type = binding.key().type();
           ValidationReport<TypeElement> report =
@@ -634,9 +738,6 @@ final class BindingGraphValidator {
             report(currentGraph()).addSubreport(report);
           }
         }
-        if (binding.bindingType().equals(PRODUCTION) && doesPathRequireProvisionOnly()) {
-          reportProviderMayNotDependOnProducer(binding);
-        }
         if (compilerOptions.usesProducers()) {
           // TODO(dpb,beder): Validate this during @Inject/@Provides/@Produces validation.
           // Only the Dagger-specific binding may depend on the production executor.
@@ -657,13 +758,14 @@ final class BindingGraphValidator {
         } else if (binding.bindingKind().equals(MEMBERS_INJECTOR)) {
           validateMembersInjectionType(binding);
         }
-        super.visitContributionBinding(binding, owningComponent);
       }
 
       @Override
       protected void visitMembersInjectionBinding(
           MembersInjectionBinding binding, ComponentDescriptor owningComponent) {
-        validateMembersInjectionType(binding);
+        if (!bindingPreviouslyVisited(binding, owningComponent)) {
+          validateMembersInjectionType(binding);
+        }
         super.visitMembersInjectionBinding(binding, owningComponent);
       }
 
@@ -1103,17 +1205,8 @@ final class BindingGraphValidator {
       }
 
       /**
-       * Returns any steps in a dependency cycle that "break" the cycle. These are any nonsynthetic
-       * {@link Provider}, {@link Lazy}, or {@code Map<K, Provider<V>>} requests after the first
-       * request in the cycle.
-       *
-       * <p>The synthetic request for a {@code Map<K, Provider<V>>} as a dependency of a multibound
-       * {@code Map<K, V>} does not break cycles because the map's {@link Provider}s' {@link
-       * Provider#get() get()} methods are called during provision.
-       *
-       * <p>A request for an instance of {@code Optional} breaks the cycle if it is resolved to a
-       * {@link BindsOptionalOf} binding and a request for the {@code Optional}'s type parameter
-       * would.
+       * Returns any steps in a dependency cycle that {@linkplain #breaksCycle(DependencyRequest,
+       * ResolvedBindings) break} the cycle, after the first request in the cycle.
        */
       private ImmutableSet<DependencyRequest> providersBreakingCycle() {
         ImmutableSet.Builder<DependencyRequest> providers = ImmutableSet.builder();
@@ -1121,44 +1214,14 @@ final class BindingGraphValidator {
         cycleDependencyTrace()
             .forEach(
                 (dependencyRequest, resolvedBindings) -> {
-                  // Skip the first request in the cycle and any synthetic requests.
-                  if (first.getAndSet(false) || !dependencyRequest.requestElement().isPresent()) {
-                    return;
-                  }
-
-                  if (breaksCycle(dependencyRequest.key().type(), dependencyRequest.kind())) {
+                  // Skip the first request in the cycle.
+                  if (!first.getAndSet(false) && breaksCycle(dependencyRequest, resolvedBindings)) {
                     providers.add(dependencyRequest);
-                  } else if (!resolvedBindings.optionalBindingDeclarations().isEmpty()) {
-                    /* Request resolved to a @BindsOptionalOf binding, so test the type inside the
-                     * Optional. Optional<Provider or Lazy or Provider of Lazy or Map of Provider>
-                     * breaks the cycle. */
-                    TypeMirror optionalValueType =
-                        OptionalType.from(dependencyRequest.key()).valueType();
-                    RequestKind requestKind = getRequestKind(optionalValueType);
-                    if (breaksCycle(extractKeyType(requestKind, optionalValueType), requestKind)) {
-                      providers.add(dependencyRequest);
-                    }
                   }
                 });
         return providers.build();
       }
 
-      private boolean breaksCycle(TypeMirror requestedType, RequestKind requestKind) {
-        switch (requestKind) {
-          case PROVIDER:
-          case LAZY:
-          case PROVIDER_OF_LAZY:
-            return true;
-
-          case INSTANCE:
-            return MapType.isMap(requestedType)
-                && MapType.from(requestedType).valuesAreTypeOf(Provider.class);
-
-          default:
-            return false;
-        }
-      }
-
       /**
        * Returns whether the given dependency path would require the most recent request to be
        * resolved by only provision bindings.
@@ -1206,6 +1269,7 @@ final class BindingGraphValidator {
   ValidationReport<TypeElement> validate(BindingGraph graph) {
     ComponentValidation validation = new ComponentValidation(graph);
     validation.traverseComponents();
+    validation.reportDependencyCycles();
     return validation.buildReport();
   }
 
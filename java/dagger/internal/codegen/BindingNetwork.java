@@ -20,6 +20,7 @@ import static com.google.auto.common.MoreElements.asType;
 import static com.google.auto.common.MoreTypes.asTypeElement;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Sets.intersection;
 import static com.google.common.graph.Graphs.inducedSubgraph;
@@ -35,6 +36,7 @@ import static dagger.internal.codegen.DaggerStreams.toImmutableSet;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.graph.ImmutableNetwork;
 import com.google.common.graph.MutableNetwork;
 import com.google.common.graph.Network;
@@ -44,7 +46,6 @@ import dagger.Module;
 import dagger.internal.codegen.ComponentTreeTraverser.ComponentTreePath;
 import dagger.multibindings.Multibinds;
 import java.util.Optional;
-import java.util.stream.Stream;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 
@@ -87,52 +88,110 @@ public final class BindingNetwork
     return factory.bindingNetwork();
   }
 
+  private final ImmutableSet<BindingNode> bindingNodes;
+  private final ImmutableSetMultimap<BindingKey, BindingNode> bindingNodesByKey;
+  private final ImmutableSet<ComponentNode> componentNodes;
+  private final ImmutableMap<ComponentTreePath, ComponentNode> componentNodesByPath;
+  private final ImmutableSetMultimap<TypeElement, ComponentNode> componentNodesByType;
+  private final ComponentNode rootComponentNode;
+  private final ImmutableSet<DependencyEdge> dependencyEdges;
+  private final ImmutableSetMultimap<DependencyRequest, DependencyEdge> dependencyEdgesByRequest;
+  private final ImmutableSet<DependencyEdge> entryPointEdges;
+  private final ImmutableSet<BindingNode> entryPointBindingNodes;
+
   private BindingNetwork(Network<Node, Edge> bindingNetwork) {
     super(ImmutableNetwork.copyOf(bindingNetwork));
+
+    // Index the nodes and edges once, so that plugins that query the network for every node don't
+    // scan the whole network for each query.
+    ImmutableSet.Builder<BindingNode> bindingNodes = ImmutableSet.builder();
+    ImmutableSetMultimap.Builder<BindingKey, BindingNode> bindingNodesByKey =
+        ImmutableSetMultimap.builder();
+    ImmutableMap.Builder<ComponentTreePath, ComponentNode> componentNodesByPath =
+        ImmutableMap.builder();
+    ImmutableSetMultimap.Builder<TypeElement, ComponentNode> componentNodesByType =
+        ImmutableSetMultimap.builder();
+    ComponentNode rootComponentNode = null;
+    for (Node node : nodes()) {
+      if (node instanceof BindingNode) {
+        BindingNode bindingNode = (BindingNode) node;
+        bindingNodes.add(bindingNode);
+        bindingNodesByKey.put(bindingNode.bindingKey(), bindingNode);
+      } else if (node instanceof ComponentNode) {
+        ComponentNode componentNode = (ComponentNode) node;
+        ComponentTreePath componentTreePath = componentNode.componentTreePath();
+        componentNodesByPath.put(componentTreePath, componentNode);
+        componentNodesByType.put(componentTreePath.currentComponent(), componentNode);
+        if (componentTreePath.atRoot()) {
+          rootComponentNode = componentNode;
+        }
+      }
+    }
+
+    ImmutableSet.Builder<DependencyEdge> dependencyEdges = ImmutableSet.builder();
+    ImmutableSetMultimap.Builder<DependencyRequest, DependencyEdge> dependencyEdgesByRequest =
+        ImmutableSetMultimap.builder();
+    ImmutableSet.Builder<DependencyEdge> entryPointEdges = ImmutableSet.builder();
+    for (Edge edge : edges()) {
+      if (edge instanceof DependencyEdge) {
+        DependencyEdge dependencyEdge = (DependencyEdge) edge;
+        dependencyEdges.add(dependencyEdge);
+        dependencyEdgesByRequest.put(dependencyEdge.dependencyRequest(), dependencyEdge);
+        if (dependencyEdge.isEntryPoint()) {
+          entryPointEdges.add(dependencyEdge);
+        }
+      }
+    }
+
+    this.bindingNodes = bindingNodes.build();
+    this.bindingNodesByKey = bindingNodesByKey.build();
+    this.componentNodesByPath = componentNodesByPath.build();
+    this.componentNodes = ImmutableSet.copyOf(this.componentNodesByPath.values());
+    this.componentNodesByType = componentNodesByType.build();
+    this.rootComponentNode = checkNotNull(rootComponentNode, "no root component node");
+    this.dependencyEdges = dependencyEdges.build();
+    this.dependencyEdgesByRequest = dependencyEdgesByRequest.build();
+    this.entryPointEdges = entryPointEdges.build();
+    this.entryPointBindingNodes =
+        this.entryPointEdges
+            .stream()
+            .map(edge -> (BindingNode) incidentNodes(edge).target())
+            .collect(toImmutableSet());
   }
 
   /** Returns the binding nodes. */
   public ImmutableSet<BindingNode> bindingNodes() {
-    return bindingNodesStream().collect(toImmutableSet());
+    return bindingNodes;
   }
 
   /** Returns the binding nodes for a binding. */
   public ImmutableSet<BindingNode> bindingNodes(BindingKey bindingKey) {
-    return bindingNodesStream()
-        .filter(node -> node.bindingKey().equals(bindingKey))
-        .collect(toImmutableSet());
+    return bindingNodesByKey.get(bindingKey);
   }
 
   /** Returns the component nodes. */
   public ImmutableSet<ComponentNode> componentNodes() {
-    return componentNodeStream().collect(toImmutableSet());
+    return componentNodes;
   }
 
   /** Returns the component node for a component. */
   public Optional<ComponentNode> componentNode(ComponentTreePath component) {
-    return componentNodeStream()
-        .filter(node -> node.componentTreePath().equals(component))
-        .findFirst();
+    return Optional.ofNullable(componentNodesByPath.get(component));
   }
 
   /** Returns the component nodes for a component. */
   public ImmutableSet<ComponentNode> componentNodes(TypeElement component) {
-    return componentNodeStream()
-        .filter(node -> node.componentTreePath().currentComponent().equals(component))
-        .collect(toImmutableSet());
+    return componentNodesByType.get(component);
   }
 
   /** Returns the component node for the root component. */
   public ComponentNode rootComponentNode() {
-    return componentNodeStream()
-        .filter(node -> node.componentTreePath().atRoot())
-        .findFirst()
-        .get();
+    return rootComponentNode;
   }
 
   /** Returns the dependency edges. */
   public ImmutableSet<DependencyEdge> dependencyEdges() {
-    return dependencyEdgeStream().collect(toImmutableSet());
+    return dependencyEdges;
   }
 
   /** Returns the dependency edges for the dependencies of a binding. */
@@ -145,9 +204,7 @@ public final class BindingNetwork
 
   /** Returns the dependency edges from any binding for a dependency request. */
   public ImmutableSet<DependencyEdge> dependencyEdges(DependencyRequest dependencyRequest) {
-    return dependencyEdgeStream()
-        .filter(edge -> edge.dependencyRequest().equals(dependencyRequest))
-        .collect(toImmutableSet());
+    return dependencyEdgesByRequest.get(dependencyRequest);
   }
 
   /**
@@ -155,7 +212,7 @@ public final class BindingNetwork
    * edge's source node is a component node.
    */
   public ImmutableSet<DependencyEdge> entryPointEdges() {
-    return entryPointEdgeStream().collect(toImmutableSet());
+    return entryPointEdges;
   }
 
   /**
@@ -171,9 +228,7 @@ public final class BindingNetwork
 
   /** Returns the binding nodes for bindings that directly satisfy entry points. */
   public ImmutableSet<BindingNode> entryPointBindingNodes() {
-    return entryPointEdgeStream()
-        .map(edge -> (BindingNode) incidentNodes(edge).target())
-        .collect(toImmutableSet());
+    return entryPointBindingNodes;
   }
 
   /** Returns the edges for entry points that transitively depend on a binding. */
@@ -185,22 +240,6 @@ public final class BindingNetwork
         intersection(entryPointEdges(), subgraphDependingOnBindingNode.edges()));
   }
 
-  private Stream<BindingNode> bindingNodesStream() {
-    return nodes().stream().flatMap(instancesOf(BindingNode.class));
-  }
-
-  private Stream<ComponentNode> componentNodeStream() {
-    return nodes().stream().flatMap(instancesOf(ComponentNode.class));
-  }
-
-  private Stream<DependencyEdge> dependencyEdgeStream() {
-    return edges().stream().flatMap(instancesOf(DependencyEdge.class));
-  }
-
-  private Stream<DependencyEdge> entryPointEdgeStream() {
-    return dependencyEdgeStream().filter(DependencyEdge::isEntryPoint);
-  }
-
   /**
    * An edge in the binding graph. Either a {@link DependencyEdge}, a {@link
    * ChildFactoryMethodEdge}, or a {@link SubcomponentBuilderBindingEdge}.
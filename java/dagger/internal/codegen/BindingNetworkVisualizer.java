@@ -16,14 +16,16 @@
 
 package dagger.internal.codegen;
 
-import static java.util.UUID.randomUUID;
-import static java.util.regex.Matcher.quoteReplacement;
-import static java.util.stream.Collectors.groupingBy;
+import static dagger.internal.codegen.ContributionBinding.Kind.SYNTHETIC_MULTIBOUND_KINDS;
+import static javax.tools.Diagnostic.Kind.ERROR;
 
 import com.google.auto.service.AutoService;
+import com.google.common.base.Ascii;
 import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
 import com.google.common.graph.EndpointPair;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
@@ -37,15 +39,18 @@ import dagger.internal.codegen.BindingNetwork.SubcomponentBuilderBindingEdge;
 import dagger.internal.codegen.ComponentTreeTraverser.ComponentTreePath;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Queue;
+import java.util.Set;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.tools.FileObject;
 import javax.tools.StandardLocation;
@@ -59,9 +64,32 @@ import javax.tools.StandardLocation;
  *
  * <p>For example, for a nested component type {@code Foo.Bar} this will generate a file {@code
  * Foo_Bar.dot}.
+ *
+ * <p>The file is written as the network is traversed, without building a model of it first. The
+ * plugin runs on the processor thread, because its labels are read from javac's model, so it
+ * writes straight to the {@link javax.annotation.processing.Filer} instead of to a buffer that is
+ * copied there later. These options limit what is written, so that large networks stay cheap to
+ * visualize:
+ *
+ * <dl>
+ *   <dt>{@code -Adagger.visualizer.components=<component>,...}
+ *   <dd>Only writes the bindings in the named components (by qualified name) and their
+ *       subcomponents. Root components that own none of them are not written at all.
+ *   <dt>{@code -Adagger.visualizer.entryPoints=<entry point>,...}
+ *   <dd>Only writes the bindings that are reachable from the named entry points. An entry point is
+ *       named by its method name, or by the qualified name of its component, {@code #}, and its
+ *       method name.
+ *   <dt>{@code -Adagger.visualizer.collapseMultibindings=enabled}
+ *   <dd>Writes each multibinding as a single node labeled with its number of contributions,
+ *       instead of writing a node for each contribution. Bindings that are only reachable through
+ *       the contributions are not written either.
+ * </dl>
  */
 @AutoService(BindingGraphPlugin.class)
 public final class BindingNetworkVisualizer extends BindingGraphPlugin {
+  static final String COMPONENTS_OPTION = "dagger.visualizer.components";
+  static final String ENTRY_POINTS_OPTION = "dagger.visualizer.entryPoints";
+  static final String COLLAPSE_MULTIBINDINGS_OPTION = "dagger.visualizer.collapseMultibindings";
 
   /** Graphviz color names to use for binding nodes within each component. */
   private static final ImmutableList<String> COMPONENT_COLORS =
@@ -79,11 +107,52 @@ public final class BindingNetworkVisualizer extends BindingGraphPlugin {
           "/set312/11",
           "/set312/12");
 
+  private static final Splitter LIST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+  private ImmutableSet<String> components = ImmutableSet.of();
+  private ImmutableSet<String> entryPoints = ImmutableSet.of();
+  private boolean collapseMultibindings;
+
+  @Override
+  protected Set<String> getSupportedOptions() {
+    return ImmutableSet.of(COMPONENTS_OPTION, ENTRY_POINTS_OPTION, COLLAPSE_MULTIBINDINGS_OPTION);
+  }
+
+  @Override
+  protected void setOptions(Map<String, String> options) {
+    components = listOption(options, COMPONENTS_OPTION);
+    entryPoints = listOption(options, ENTRY_POINTS_OPTION);
+    if (options.containsKey(COLLAPSE_MULTIBINDINGS_OPTION)) {
+      String value = options.get(COLLAPSE_MULTIBINDINGS_OPTION);
+      try {
+        collapseMultibindings =
+            FeatureStatus.valueOf(Ascii.toUpperCase(value)).equals(FeatureStatus.ENABLED);
+      } catch (IllegalArgumentException e) {
+        messager()
+            .printMessage(
+                ERROR,
+                "Processor option -A"
+                    + COLLAPSE_MULTIBINDINGS_OPTION
+                    + " may only have the values [ENABLED, DISABLED] (case insensitive), found: "
+                    + value);
+      }
+    }
+  }
+
+  private static ImmutableSet<String> listOption(Map<String, String> options, String option) {
+    return options.containsKey(option)
+        ? ImmutableSet.copyOf(LIST_SPLITTER.split(options.get(option)))
+        : ImmutableSet.of();
+  }
+
   @Override
   public void visitGraph(BindingNetwork bindingNetwork) {
+    NetworkWriter networkWriter = new NetworkWriter(bindingNetwork);
+    if (networkWriter.nodes.isEmpty()) {
+      return;
+    }
     TypeElement componentElement =
         bindingNetwork.rootComponentNode().componentTreePath().currentComponent();
-    DotGraph graph = new NodesGraph(bindingNetwork).graph();
     ClassName componentName = ClassName.get(componentElement);
     try {
       FileObject file =
@@ -94,209 +163,307 @@ public final class BindingNetworkVisualizer extends BindingGraphPlugin {
                   Joiner.on('_').join(componentName.simpleNames()) + ".dot",
                   componentElement);
       try (PrintWriter writer = new PrintWriter(file.openWriter())) {
-        graph.write(0, writer);
+        networkWriter.write(new DotWriter(writer));
       }
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
-  private abstract static class Indented {
-
-    abstract void write(int level, PrintWriter writer);
+  /** Writes a DOT graph directly to a {@link PrintWriter}, without building a model of it. */
+  static final class DotWriter {
+    private final PrintWriter writer;
+    private int level;
+    private int attributeCount;
 
-    @CanIgnoreReturnValue
-    PrintWriter indent(int level, PrintWriter writer) {
-      writer.print(Strings.repeat(" ", level * 2));
-      return writer;
+    DotWriter(PrintWriter writer) {
+      this.writer = writer;
     }
-  }
 
-  static class DotGraph extends Indented {
-    private final String header;
-    private final List<Indented> elements = new ArrayList<>();
+    /** Starts a graph or subgraph. Must be followed by a call to {@link #endGraph()}. */
+    void beginGraph(String header) {
+      indent();
+      writer.print(header);
+      writer.println(" {");
+      level++;
+    }
 
-    DotGraph(String header) {
-      this.header = header;
+    void endGraph() {
+      level--;
+      indent();
+      writer.println('}');
     }
 
+    /**
+     * Starts a statement. Its attributes can be added with {@link #attribute(String, Object)}, and
+     * it must be followed by a call to {@link #endStatement()}.
+     */
     @CanIgnoreReturnValue
-    DotGraph add(Indented element) {
-      elements.add(element);
+    DotWriter beginStatement(String statement) {
+      indent();
+      writer.print(statement);
+      attributeCount = 0;
       return this;
     }
 
-    @Override
-    void write(int level, PrintWriter writer) {
-      indent(level, writer);
-      writer.println(header + " {");
-      for (Indented element : elements) {
-        element.write(level + 1, writer);
-      }
-      indent(level, writer);
-      writer.println("}");
-    }
-  }
-
-  static class DotStatement<S extends DotStatement<S>> extends Indented {
-    private final String base;
-    private final Map<String, Object> attributes = new LinkedHashMap<>();
-
-    DotStatement(String base) {
-      this.base = base;
+    @CanIgnoreReturnValue
+    DotWriter beginNodeStatement(Object node) {
+      indent();
+      quote(node.toString());
+      attributeCount = 0;
+      return this;
     }
 
-    @SuppressWarnings("unchecked")
     @CanIgnoreReturnValue
-    S addAttribute(String name, Object value) {
-      attributes.put(name, value);
-      return (S) this;
+    DotWriter beginEdgeStatement(Object source, Object target) {
+      indent();
+      quote(source.toString());
+      writer.print(" -> ");
+      quote(target.toString());
+      attributeCount = 0;
+      return this;
     }
 
     @CanIgnoreReturnValue
-    S addAttributeFormat(String name, String format, Object... args) {
-      return addAttribute(name, String.format(format, args));
+    DotWriter attribute(String name, Object value) {
+      writer.print(attributeCount++ == 0 ? " [" : ", ");
+      writer.print(name);
+      writer.print('=');
+      quote(value.toString());
+      return this;
     }
 
-    @Override
-    void write(int level, PrintWriter writer) {
-      indent(level, writer);
-      writer.print(base);
-      if (!attributes.isEmpty()) {
-        writer.print(
-            attributes
-                .entrySet()
-                .stream()
-                .map(
-                    entry ->
-                        String.format("%s=%s", entry.getKey(), quote(entry.getValue().toString())))
-                .collect(Collectors.joining(", ", " [", "]")));
+    void endStatement() {
+      if (attributeCount > 0) {
+        writer.print(']');
       }
       writer.println();
     }
-  }
-
-  private static String quote(String string) {
-    return '"' + string.replaceAll("\"", quoteReplacement("\\\"")) + '"';
-  }
 
-  static class DotNode extends DotStatement<DotNode> {
-    DotNode(Object nodeName) {
-      super(quote(nodeName.toString()));
+    private void indent() {
+      writer.print(Strings.repeat("  ", level));
     }
-  }
 
-  static class DotEdge extends DotStatement<DotEdge> {
-    DotEdge(Object leftNode, Object rightNode) {
-      super(quote(leftNode.toString()) + " -> " + quote(rightNode.toString()));
+    private void quote(String string) {
+      writer.print('"');
+      for (int i = 0; i < string.length(); i++) {
+        char c = string.charAt(i);
+        if (c == '"') {
+          writer.print("\\\"");
+        } else {
+          writer.print(c);
+        }
+      }
+      writer.print('"');
     }
   }
 
-  static class NodesGraph {
-    private final DotGraph graph =
-        new DotGraph("digraph")
-            .add(
-                new DotStatement<>("graph")
-                    .addAttribute("rankdir", "LR")
-                    .addAttribute("labeljust", "l")
-                    .addAttribute("compound", true));
-
+  /** Selects the nodes and edges of a network that the options allow, and writes them. */
+  final class NetworkWriter {
     private final BindingNetwork bindingNetwork;
-    private final Map<Node, UUID> nodeIds = new HashMap<>();
+    private final Set<Node> nodes;
+    private final Map<Node, Integer> collapsedContributions = new HashMap<>();
+    private final Map<Node, String> nodeIds = new HashMap<>();
 
-    NodesGraph(BindingNetwork bindingNetwork) {
+    NetworkWriter(BindingNetwork bindingNetwork) {
       this.bindingNetwork = bindingNetwork;
+      this.nodes = selectNodes();
     }
 
-    DotGraph graph() {
-      if (nodeIds.isEmpty()) {
-        Iterator<String> colors = Iterators.cycle(BindingNetworkVisualizer.COMPONENT_COLORS);
-        bindingNetwork
-            .nodes()
-            .stream()
-            .collect(groupingBy(Node::componentTreePath))
-            .forEach(
-                (component, networkNodes) -> {
-                  DotGraph subgraph = subgraph(component);
-                  subgraph.add(
-                      new DotStatement<>("node")
-                          .addAttribute("style", "filled")
-                          .addAttribute("shape", "box")
-                          .addAttribute("fillcolor", colors.next()));
-                  subgraph.add(new DotStatement<>("graph").addAttribute("label", component));
-                  for (Node node : networkNodes) {
-                    subgraph.add(dotNode(node));
-                  }
-                });
-        for (Edge edge : bindingNetwork.edges()) {
-          dotEdge(edge).ifPresent(graph::add);
+    /**
+     * Returns the nodes that are reachable from the selected entry points (or from the root
+     * component, if no entry points are selected) without going through a collapsed multibinding
+     * contribution, and that are in a selected component. They are returned in the network's
+     * order.
+     */
+    private Set<Node> selectNodes() {
+      Queue<Node> queue = new ArrayDeque<>();
+      if (entryPoints.isEmpty()) {
+        queue.add(bindingNetwork.rootComponentNode());
+      } else {
+        for (DependencyEdge edge : bindingNetwork.entryPointEdges()) {
+          if (isSelectedEntryPoint(edge)) {
+            queue.add(bindingNetwork.incidentNodes(edge).target());
+          }
+        }
+      }
+      Set<Node> reachable = new HashSet<>();
+      for (Node node = queue.poll(); node != null; node = queue.poll()) {
+        if (!isCollapsedContribution(node) && reachable.add(node)) {
+          queue.addAll(bindingNetwork.successors(node));
+        }
+      }
+      Set<Node> selected = new LinkedHashSet<>();
+      for (Node node : bindingNetwork.nodes()) {
+        if (reachable.contains(node) && isInSelectedComponent(node)) {
+          selected.add(node);
         }
       }
-      return graph;
+      if (collapseMultibindings) {
+        for (Node node : selected) {
+          if (isMultibinding(node)) {
+            collapsedContributions.put(
+                node,
+                (int)
+                    bindingNetwork
+                        .successors(node)
+                        .stream()
+                        .filter(BindingNetworkVisualizer::isMultibindingContribution)
+                        .count());
+          }
+        }
+      }
+      return selected;
     }
 
-    DotGraph subgraph(ComponentTreePath component) {
-      DotGraph subgraph = new DotGraph("subgraph " + quote(clusterName(component)));
-      graph.add(subgraph);
-      return subgraph;
+    private boolean isCollapsedContribution(Node node) {
+      return collapseMultibindings && isMultibindingContribution(node);
     }
 
-    UUID nodeId(Node node) {
-      return nodeIds.computeIfAbsent(node, n -> randomUUID());
+    private boolean isInSelectedComponent(Node node) {
+      if (components.isEmpty()) {
+        return true;
+      }
+      for (BindingGraph graph : node.componentTreePath().graphsInPath()) {
+        if (components.contains(graph.componentType().getQualifiedName().toString())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean isSelectedEntryPoint(DependencyEdge edge) {
+      if (!edge.dependencyRequest().requestElement().isPresent()) {
+        return false;
+      }
+      Element method = edge.dependencyRequest().requestElement().get();
+      String methodName = method.getSimpleName().toString();
+      TypeElement component =
+          bindingNetwork.incidentNodes(edge).source().componentTreePath().currentComponent();
+      return entryPoints.contains(methodName)
+          || entryPoints.contains(component.getQualifiedName() + "#" + methodName);
     }
 
-    Optional<DotEdge> dotEdge(Edge edge) {
-      EndpointPair<Node> incidentNodes = bindingNetwork.incidentNodes(edge);
-      DotEdge dotEdge = new DotEdge(nodeId(incidentNodes.source()), nodeId(incidentNodes.target()));
-      if (edge instanceof DependencyEdge) {
-        if (((DependencyEdge) edge).isEntryPoint()) {
-          return Optional.empty();
+    void write(DotWriter writer) {
+      writer.beginGraph("digraph");
+      writer
+          .beginStatement("graph")
+          .attribute("rankdir", "LR")
+          .attribute("labeljust", "l")
+          .attribute("compound", true)
+          .endStatement();
+
+      Map<ComponentTreePath, List<Node>> nodesByComponent = new LinkedHashMap<>();
+      for (Node node : nodes) {
+        nodesByComponent
+            .computeIfAbsent(node.componentTreePath(), component -> new ArrayList<>())
+            .add(node);
+      }
+      Iterator<String> colors = Iterators.cycle(COMPONENT_COLORS);
+      nodesByComponent.forEach(
+          (component, componentNodes) -> {
+            writer.beginGraph("subgraph \"" + clusterName(component) + "\"");
+            writer
+                .beginStatement("node")
+                .attribute("style", "filled")
+                .attribute("shape", "box")
+                .attribute("fillcolor", colors.next())
+                .endStatement();
+            writer.beginStatement("graph").attribute("label", component).endStatement();
+            for (Node node : componentNodes) {
+              writeNode(node, writer);
+            }
+            writer.endGraph();
+          });
+
+      for (Edge edge : bindingNetwork.edges()) {
+        EndpointPair<Node> incidentNodes = bindingNetwork.incidentNodes(edge);
+        if (nodes.contains(incidentNodes.source()) && nodes.contains(incidentNodes.target())) {
+          writeEdge(edge, incidentNodes, writer);
         }
-      } else if (edge instanceof ChildFactoryMethodEdge) {
-        dotEdge.addAttribute("style", "dashed");
-        dotEdge.addAttribute("lhead", clusterName(incidentNodes.target().componentTreePath()));
-        dotEdge.addAttribute("ltail", clusterName(incidentNodes.source().componentTreePath()));
-        dotEdge.addAttribute("taillabel", ((ChildFactoryMethodEdge) edge).factoryMethod());
+      }
+      writer.endGraph();
+    }
+
+    private String nodeId(Node node) {
+      return nodeIds.computeIfAbsent(node, n -> "n" + nodeIds.size());
+    }
+
+    private void writeEdge(Edge edge, EndpointPair<Node> incidentNodes, DotWriter writer) {
+      if (edge instanceof DependencyEdge && ((DependencyEdge) edge).isEntryPoint()) {
+        return;
+      }
+      writer.beginEdgeStatement(nodeId(incidentNodes.source()), nodeId(incidentNodes.target()));
+      if (edge instanceof ChildFactoryMethodEdge) {
+        writer
+            .attribute("style", "dashed")
+            .attribute("lhead", clusterName(incidentNodes.target().componentTreePath()))
+            .attribute("ltail", clusterName(incidentNodes.source().componentTreePath()))
+            .attribute("taillabel", ((ChildFactoryMethodEdge) edge).factoryMethod());
       } else if (edge instanceof SubcomponentBuilderBindingEdge) {
-        dotEdge.addAttribute("style", "dashed");
-        dotEdge.addAttribute("lhead", clusterName(incidentNodes.target().componentTreePath()));
-        dotEdge.addAttribute("taillabel", "subcomponent");
+        writer
+            .attribute("style", "dashed")
+            .attribute("lhead", clusterName(incidentNodes.target().componentTreePath()))
+            .attribute("taillabel", "subcomponent");
       }
-      return Optional.of(dotEdge);
+      writer.endStatement();
     }
 
-    DotNode dotNode(Node node) {
-      DotNode dotNode = new DotNode(nodeId(node));
+    private void writeNode(Node node, DotWriter writer) {
+      writer.beginNodeStatement(nodeId(node));
       if (node instanceof BindingNode) {
         Binding binding = ((BindingNode) node).binding();
-        switch (binding.bindingType()) {
-          case PROVISION:
-            dotNode.addAttribute("label", binding.key());
-            break;
-
-          case PRODUCTION:
-            dotNode.addAttributeFormat("label", "@Produces %s", binding.key());
-            break;
-
-          case MEMBERS_INJECTION:
-            dotNode.addAttributeFormat("label", "MembersInjector<%s>", binding.key());
-            break;
-
-          default:
-            throw new AssertionError(binding);
-        }
-        dotNode.addAttribute("tooltip", "");
+        writer.attribute("label", label(binding, collapsedContributions.get(node)));
+        writer.attribute("tooltip", "");
         if (bindingNetwork.entryPointBindingNodes().contains(node)) {
-          dotNode.addAttribute("penwidth", 3);
+          writer.attribute("penwidth", 3);
         }
       } else {
-        dotNode.addAttribute("style", "invis").addAttribute("shape", "point");
+        writer.attribute("style", "invis").attribute("shape", "point");
       }
-      return dotNode;
+      writer.endStatement();
     }
+  }
+
+  private static String label(Binding binding, Integer collapsedContributions) {
+    String label;
+    switch (binding.bindingType()) {
+      case PROVISION:
+        label = binding.key().toString();
+        break;
 
-    private static String clusterName(ComponentTreePath owningComponentPath) {
-      return "cluster" + owningComponentPath;
+      case PRODUCTION:
+        label = "@Produces " + binding.key();
+        break;
+
+      case MEMBERS_INJECTION:
+        label = "MembersInjector<" + binding.key() + ">";
+        break;
+
+      default:
+        throw new AssertionError(binding);
     }
+    return collapsedContributions == null
+        ? label
+        : label + "\\n(" + collapsedContributions + " contributions)";
+  }
+
+  private static boolean isMultibinding(Node node) {
+    return node instanceof BindingNode
+        && ((BindingNode) node).binding() instanceof ContributionBinding
+        && SYNTHETIC_MULTIBOUND_KINDS.contains(
+            ((ContributionBinding) ((BindingNode) node).binding()).bindingKind());
+  }
+
+  private static boolean isMultibindingContribution(Node node) {
+    return node instanceof BindingNode
+        && ((BindingNode) node).binding() instanceof ContributionBinding
+        && ((ContributionBinding) ((BindingNode) node).binding())
+            .contributionType()
+            .isMultibinding();
+  }
+
+  private static String clusterName(ComponentTreePath owningComponentPath) {
+    return "cluster" + owningComponentPath;
   }
 }
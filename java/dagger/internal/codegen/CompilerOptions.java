@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableSet;
 import dagger.producers.Produces;
 import java.util.EnumSet;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.util.Elements;
@@ -62,8 +63,59 @@ abstract class CompilerOptions {
   abstract boolean warnIfInjectionFactoryNotGeneratedUpstream();
   abstract boolean headerCompilation();
 
+  /**
+   * Returns true if binding graph validation should traverse the bindings for each key in each
+   * component only once, rather than once for every entry point that depends on them.
+   *
+   * <p>This makes validation take time linear in the size of the component tree, however many of
+   * its entry points share each binding. Checks that depend on the dependency request, such as
+   * nullability, still run for every request. Dependency cycles are found by a single pass over the
+   * strongly connected components of all the requests once every entry point has been traversed,
+   * and dependency traces are only built for the errors that are reported. The trade-off is that an
+   * error in a shared binding, including a dependency cycle, is reported at only the first entry
+   * point that depends on it, rather than at every one.
+   */
+  abstract boolean linearBindingGraphValidation();
+
+  /**
+   * The file to which a profile of the time and memory used by each of the processor's steps and
+   * phases is written, if profiling is enabled.
+   */
+  abstract Optional<String> profilePath();
+
+  /**
+   * Returns true if the processor declares itself to Gradle as an isolating incremental annotation
+   * processor.
+   *
+   * <p>Every file that Dagger generates is recorded with exactly one originating element: the
+   * {@code @Inject} constructor or members-injected type for a factory or members injector, the
+   * binding method for a module's factory, and the component type for a component. Binding graph
+   * plugins that write files without an originating element make Gradle fall back to full
+   * recompilation.
+   */
+  abstract boolean gradleIncrementalProcessing();
+
+  /**
+   * The directory in which the fingerprints of binding graphs that were validated without any
+   * diagnostics are kept from one build to the next, if the {@link ValidatedGraphCache} is enabled.
+   */
+  abstract Optional<String> graphCacheDirectory();
+
+  /**
+   * Returns true if production components pass each producer a priority along with its executor,
+   * so that a {@link dagger.producers.PrioritizedExecutor} can run the producers on the
+   * longest chains of dependent producers first.
+   */
+  abstract boolean criticalPathScheduling();
+
   static Builder builder() {
-    return new AutoValue_CompilerOptions.Builder().headerCompilation(false);
+    return new AutoValue_CompilerOptions.Builder()
+        .headerCompilation(false)
+        .linearBindingGraphValidation(false)
+        .profilePath(Optional.empty())
+        .gradleIncrementalProcessing(false)
+        .graphCacheDirectory(Optional.empty())
+        .criticalPathScheduling(false);
   }
 
   static CompilerOptions create(ProcessingEnvironment processingEnv, Elements elements) {
@@ -85,6 +137,15 @@ abstract class CompilerOptions {
         .scopeCycleValidationType(scopeValidationType(processingEnv))
         .warnIfInjectionFactoryNotGeneratedUpstream(
             warnIfInjectionFactoryNotGeneratedUpstream(processingEnv).equals(FeatureStatus.ENABLED))
+        .linearBindingGraphValidation(
+            linearBindingGraphValidation(processingEnv).equals(FeatureStatus.ENABLED))
+        .profilePath(Optional.ofNullable(processingEnv.getOptions().get(PROFILE_KEY)))
+        .gradleIncrementalProcessing(
+            gradleIncrementalProcessing(processingEnv).equals(FeatureStatus.ENABLED))
+        .graphCacheDirectory(
+            Optional.ofNullable(processingEnv.getOptions().get(GRAPH_CACHE_DIRECTORY_KEY)))
+        .criticalPathScheduling(
+            criticalPathScheduling(processingEnv).equals(FeatureStatus.ENABLED))
         .build();
   }
 
@@ -102,6 +163,11 @@ abstract class CompilerOptions {
     Builder scopeCycleValidationType(ValidationType type);
     Builder warnIfInjectionFactoryNotGeneratedUpstream(
         boolean warnIfInjectionFactoryNotGeneratedUpstream);
+    Builder linearBindingGraphValidation(boolean linearBindingGraphValidation);
+    Builder profilePath(Optional<String> profilePath);
+    Builder gradleIncrementalProcessing(boolean gradleIncrementalProcessing);
+    Builder graphCacheDirectory(Optional<String> graphCacheDirectory);
+    Builder criticalPathScheduling(boolean criticalPathScheduling);
     CompilerOptions build();
   }
 
@@ -123,6 +189,16 @@ abstract class CompilerOptions {
   static final String WARN_IF_INJECTION_FACTORY_NOT_GENERATED_UPSTREAM_KEY =
       "dagger.warnIfInjectionFactoryNotGeneratedUpstream";
 
+  static final String LINEAR_BINDING_GRAPH_VALIDATION_KEY = "dagger.linearBindingGraphValidation";
+
+  static final String PROFILE_KEY = "dagger.profile";
+
+  static final String GRADLE_INCREMENTAL_PROCESSING_KEY = "dagger.gradle.incremental";
+
+  static final String GRAPH_CACHE_DIRECTORY_KEY = "dagger.graphCacheDirectory";
+
+  static final String CRITICAL_PATH_SCHEDULING_KEY = "dagger.criticalPathScheduling";
+
   /**
    * If true, Dagger will generate factories and components even if some members-injected types
    * have private or static {@code @Inject}-annotated members.
@@ -143,6 +219,11 @@ abstract class CompilerOptions {
           PRIVATE_MEMBER_VALIDATION_TYPE_KEY,
           STATIC_MEMBER_VALIDATION_TYPE_KEY,
           WARN_IF_INJECTION_FACTORY_NOT_GENERATED_UPSTREAM_KEY,
+          LINEAR_BINDING_GRAPH_VALIDATION_KEY,
+          PROFILE_KEY,
+          GRADLE_INCREMENTAL_PROCESSING_KEY,
+          GRAPH_CACHE_DIRECTORY_KEY,
+          CRITICAL_PATH_SCHEDULING_KEY,
           IGNORE_PRIVATE_AND_STATIC_INJECTION_FOR_COMPONENT);
 
   private static FeatureStatus experimentalAndroidMode(ProcessingEnvironment processingEnv) {
@@ -211,6 +292,30 @@ abstract class CompilerOptions {
         EnumSet.allOf(FeatureStatus.class));
   }
 
+  private static FeatureStatus linearBindingGraphValidation(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        LINEAR_BINDING_GRAPH_VALIDATION_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus gradleIncrementalProcessing(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        GRADLE_INCREMENTAL_PROCESSING_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
+  private static FeatureStatus criticalPathScheduling(ProcessingEnvironment processingEnv) {
+    return valueOf(
+        processingEnv,
+        CRITICAL_PATH_SCHEDULING_KEY,
+        FeatureStatus.DISABLED,
+        EnumSet.allOf(FeatureStatus.class));
+  }
+
   private static <T extends Enum<T>> T valueOf(
       ProcessingEnvironment processingEnv, String key, T defaultValue, Set<T> validValues) {
     Map<String, String> options = processingEnv.getOptions();
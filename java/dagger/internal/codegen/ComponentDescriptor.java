@@ -39,11 +39,13 @@ import com.google.auto.common.MoreTypes;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
 import com.google.common.collect.TreeTraverser;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.squareup.javapoet.ClassName;
@@ -450,6 +452,13 @@ abstract class ComponentDescriptor {
     private final DependencyRequestFactory dependencyRequestFactory;
     private final ModuleDescriptor.Factory moduleDescriptorFactory;
 
+    /**
+     * The descriptors created in the current round, indexed by component type and the kind of the
+     * parent component, if any.
+     */
+    private final Table<TypeElement, Optional<Kind>, ComponentDescriptor> cache =
+        HashBasedTable.create();
+
     Factory(
         DaggerElements elements,
         Types types,
@@ -474,8 +483,31 @@ abstract class ComponentDescriptor {
       return create(componentDefinitionType, kind.get(), Optional.empty());
     }
 
+    /**
+     * Clears the cached descriptors. This must be called at the end of every processing round,
+     * because the elements from one round must not be used in later rounds.
+     */
+    void clearCache() {
+      cache.clear();
+    }
+
+    /**
+     * Returns the descriptor for a component or subcomponent. Descriptors are cached until {@link
+     * #clearCache()} is called, so a subcomponent that is installed in many parents is only read
+     * once per round.
+     */
     private ComponentDescriptor create(
         TypeElement componentDefinitionType, Kind kind, Optional<Kind> parentKind) {
+      ComponentDescriptor descriptor = cache.get(componentDefinitionType, parentKind);
+      if (descriptor == null) {
+        descriptor = createUncached(componentDefinitionType, kind, parentKind);
+        cache.put(componentDefinitionType, parentKind, descriptor);
+      }
+      return descriptor;
+    }
+
+    private ComponentDescriptor createUncached(
+        TypeElement componentDefinitionType, Kind kind, Optional<Kind> parentKind) {
       DeclaredType declaredComponentType = MoreTypes.asDeclared(componentDefinitionType.asType());
       AnnotationMirror componentMirror =
           getAnnotationMirror(componentDefinitionType, kind.annotationType()).get();
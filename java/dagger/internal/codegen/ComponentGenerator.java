@@ -22,7 +22,6 @@ import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.TypeSpec;
 import dagger.Component;
 import java.util.Optional;
-import javax.annotation.processing.Filer;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
@@ -40,12 +39,12 @@ final class ComponentGenerator extends SourceFileGenerator<BindingGraph> {
   private final CompilerOptions compilerOptions;
 
   ComponentGenerator(
-      Filer filer,
+      SourceFileWriter sourceFileWriter,
       Elements elements,
       DaggerTypes types,
       KeyFactory keyFactory,
       CompilerOptions compilerOptions) {
-    super(filer, elements);
+    super(sourceFileWriter, elements);
     this.types = types;
     this.elements = elements;
     this.keyFactory = keyFactory;
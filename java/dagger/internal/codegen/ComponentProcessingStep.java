@@ -16,12 +16,17 @@
 
 package dagger.internal.codegen;
 
+import static dagger.internal.codegen.ProcessorProfiler.Phase.DESCRIPTOR;
+import static dagger.internal.codegen.ProcessorProfiler.Phase.FINGERPRINT;
+import static dagger.internal.codegen.ProcessorProfiler.Phase.GENERATION;
+import static dagger.internal.codegen.ProcessorProfiler.Phase.PLUGINS;
+import static dagger.internal.codegen.ProcessorProfiler.Phase.RESOLUTION;
+import static dagger.internal.codegen.ProcessorProfiler.Phase.VALIDATION;
 import static javax.lang.model.util.ElementFilter.typesIn;
 
 import com.google.auto.common.BasicAnnotationProcessor.ProcessingStep;
 import com.google.auto.common.MoreElements;
 import com.google.common.base.Predicates;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimaps;
@@ -33,6 +38,7 @@ import dagger.producers.ProductionComponent;
 import dagger.producers.ProductionSubcomponent;
 import java.lang.annotation.Annotation;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import javax.annotation.processing.Messager;
 import javax.lang.model.element.Element;
@@ -54,7 +60,9 @@ final class ComponentProcessingStep implements ProcessingStep {
   private final ComponentDescriptor.Factory componentDescriptorFactory;
   private final BindingGraph.Factory bindingGraphFactory;
   private final ComponentGenerator componentGenerator;
-  private final ImmutableList<BindingGraphPlugin> bindingGraphPlugins;
+  private final BindingGraphPlugins bindingGraphPlugins;
+  private final ProcessorProfiler profiler;
+  private final ValidatedGraphCache validatedGraphCache;
 
   ComponentProcessingStep(
       Messager messager,
@@ -66,7 +74,9 @@ final class ComponentProcessingStep implements ProcessingStep {
       ComponentDescriptor.Factory componentDescriptorFactory,
       BindingGraph.Factory bindingGraphFactory,
       ComponentGenerator componentGenerator,
-      Iterable<BindingGraphPlugin> bindingGraphPlugins) {
+      BindingGraphPlugins bindingGraphPlugins,
+      ProcessorProfiler profiler,
+      ValidatedGraphCache validatedGraphCache) {
     this.messager = messager;
     this.componentValidator = componentValidator;
     this.subcomponentValidator = subcomponentValidator;
@@ -76,7 +86,9 @@ final class ComponentProcessingStep implements ProcessingStep {
     this.componentDescriptorFactory = componentDescriptorFactory;
     this.bindingGraphFactory = bindingGraphFactory;
     this.componentGenerator = componentGenerator;
-    this.bindingGraphPlugins = ImmutableList.copyOf(bindingGraphPlugins);
+    this.bindingGraphPlugins = bindingGraphPlugins;
+    this.profiler = profiler;
+    this.validatedGraphCache = validatedGraphCache;
   }
 
   @Override
@@ -119,7 +131,7 @@ final class ComponentProcessingStep implements ProcessingStep {
         processSubcomponents(subcomponentElements, subcomponentBuilderElements);
 
     for (TypeElement componentTypeElement : typesIn(componentElements)) {
-      try {
+      try (ProcessorProfiler.Span componentSpan = profiler.component(componentTypeElement)) {
         ComponentValidationReport validationReport =
             componentValidator.validate(
                 componentTypeElement, subcomponentElements, subcomponentBuilderElements);
@@ -129,24 +141,7 @@ final class ComponentProcessingStep implements ProcessingStep {
             builderReportsByComponent,
             reportsBySubcomponent,
             builderReportsBySubcomponent)) {
-          ComponentDescriptor componentDescriptor =
-              componentDescriptorFactory.forComponent(componentTypeElement);
-          ValidationReport<TypeElement> hierarchyReport =
-              componentHierarchyValidator.validate(componentDescriptor);
-          hierarchyReport.printMessagesTo(messager);
-          if (hierarchyReport.isClean()) {
-            BindingGraph bindingGraph = bindingGraphFactory.create(componentDescriptor);
-            ValidationReport<TypeElement> graphReport =
-                bindingGraphValidator.validate(bindingGraph);
-            graphReport.printMessagesTo(messager);
-            if (graphReport.isClean()) {
-              if (!bindingGraphPlugins.isEmpty()) {
-                BindingNetwork bindingNetwork = BindingNetwork.create(bindingGraph);
-                bindingGraphPlugins.forEach(plugin -> plugin.visitGraph(bindingNetwork));
-              }
-              generateComponent(bindingGraph);
-            }
-          }
+          processComponent(componentTypeElement);
         }
       } catch (TypeNotPresentException e) {
         rejectedElements.add(componentTypeElement);
@@ -155,8 +150,56 @@ final class ComponentProcessingStep implements ProcessingStep {
     return rejectedElements.build();
   }
 
-  private void generateComponent(BindingGraph bindingGraph) {
-    componentGenerator.generate(bindingGraph, messager);
+  private void processComponent(TypeElement componentTypeElement) {
+    ComponentDescriptor componentDescriptor;
+    try (ProcessorProfiler.Span span = profiler.phase(DESCRIPTOR, componentTypeElement)) {
+      componentDescriptor = componentDescriptorFactory.forComponent(componentTypeElement);
+      ValidationReport<TypeElement> hierarchyReport =
+          componentHierarchyValidator.validate(componentDescriptor);
+      hierarchyReport.printMessagesTo(messager);
+      if (!hierarchyReport.isClean()) {
+        return;
+      }
+    }
+
+    BindingGraph bindingGraph;
+    try (ProcessorProfiler.Span span = profiler.phase(RESOLUTION, componentTypeElement)) {
+      bindingGraph = bindingGraphFactory.create(componentDescriptor);
+    }
+
+    Optional<String> fingerprint = Optional.empty();
+    boolean wasValidated = false;
+    if (validatedGraphCache.isEnabled()) {
+      try (ProcessorProfiler.Span span = profiler.phase(FINGERPRINT, componentTypeElement)) {
+        fingerprint = Optional.of(validatedGraphCache.fingerprint(bindingGraph));
+        wasValidated = validatedGraphCache.wasValidated(bindingGraph, fingerprint.get());
+      }
+    }
+
+    if (!wasValidated) {
+      try (ProcessorProfiler.Span span = profiler.phase(VALIDATION, componentTypeElement)) {
+        ValidationReport<TypeElement> graphReport = bindingGraphValidator.validate(bindingGraph);
+        graphReport.printMessagesTo(messager);
+        if (!graphReport.isClean()) {
+          return;
+        }
+        if (fingerprint.isPresent()) {
+          validatedGraphCache.recordValidation(
+              bindingGraph, fingerprint.get(), graphReport, messager);
+        }
+      }
+    }
+
+    if (!bindingGraphPlugins.isEmpty()) {
+      try (ProcessorProfiler.Span span = profiler.phase(PLUGINS, componentTypeElement)) {
+        BindingNetwork bindingNetwork = BindingNetwork.create(bindingGraph);
+        bindingGraphPlugins.visitGraph(bindingNetwork);
+      }
+    }
+
+    try (ProcessorProfiler.Span span = profiler.phase(GENERATION, componentTypeElement)) {
+      componentGenerator.generate(bindingGraph, messager);
+    }
   }
 
   static ImmutableSet<Element> getElementsFromAnnotations(
@@ -16,15 +16,19 @@
 
 package dagger.internal.codegen;
 
+import static dagger.internal.codegen.DaggerStreams.toImmutableList;
 import static dagger.internal.codegen.ModuleProcessingStep.moduleProcessingStep;
 import static dagger.internal.codegen.ModuleProcessingStep.producerModuleProcessingStep;
+import static dagger.internal.codegen.ProcessorProfiler.RoundTask.REQUIRED_BINDINGS;
+import static dagger.internal.codegen.ProcessorProfiler.RoundTask.WRITE_SOURCES;
 
 import com.google.auto.common.BasicAnnotationProcessor;
 import com.google.auto.service.AutoService;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
+import com.google.googlejavaformat.java.Formatter;
 import com.google.googlejavaformat.java.filer.FormattingFiler;
+import java.util.Optional;
 import java.util.ServiceLoader;
 import java.util.Set;
 import javax.annotation.processing.Filer;
@@ -44,10 +48,24 @@ import javax.lang.model.SourceVersion;
  */
 @AutoService(Processor.class)
 public final class ComponentProcessor extends BasicAnnotationProcessor {
+  /**
+   * The option that a Gradle "dynamic" incremental annotation processor returns from {@link
+   * #getSupportedOptions()} to declare itself isolating.
+   */
+  private static final String GRADLE_ISOLATING_PROCESSOR_OPTION =
+      "org.gradle.annotation.processing.isolating";
+
   private InjectBindingRegistry injectBindingRegistry;
   private FactoryGenerator factoryGenerator;
   private MembersInjectorGenerator membersInjectorGenerator;
-  private ImmutableList<BindingGraphPlugin> bindingGraphPlugins;
+  private BindingGraphPlugins bindingGraphPlugins;
+  private ModuleDescriptor.Factory moduleDescriptorFactory;
+  private ComponentDescriptor.Factory componentDescriptorFactory;
+  private BindingGraph.Factory bindingGraphFactory;
+  private KeyFactory keyFactory;
+  private ProcessorProfiler profiler;
+  private SourceFileWriter sourceFileWriter;
+  private CompilerOptions compilerOptions;
 
   @Override
   public SourceVersion getSupportedSourceVersion() {
@@ -58,8 +76,9 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
   public Set<String> getSupportedOptions() {
     ImmutableSet.Builder<String> options = ImmutableSet.builder();
     options.addAll(CompilerOptions.SUPPORTED_OPTIONS);
-    for (BindingGraphPlugin plugin : bindingGraphPlugins) {
-      options.addAll(plugin.getSupportedOptions());
+    options.addAll(bindingGraphPlugins.supportedOptions());
+    if (compilerOptions.gradleIncrementalProcessing()) {
+      options.add(GRADLE_ISOLATING_PROCESSOR_OPTION);
     }
     return options.build();
   }
@@ -69,7 +88,8 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
     Messager messager = processingEnv.getMessager();
     DaggerTypes types = new DaggerTypes(processingEnv);
     DaggerElements elements = new DaggerElements(processingEnv);
-    CompilerOptions compilerOptions = CompilerOptions.create(processingEnv, elements);
+    this.compilerOptions = CompilerOptions.create(processingEnv, elements);
+    this.profiler = new ProcessorProfiler(compilerOptions);
 
     Filer filer;
     if (compilerOptions.headerCompilation()) {
@@ -79,22 +99,18 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
     }
 
     this.bindingGraphPlugins =
-        ImmutableList.copyOf(
-            ServiceLoader.load(BindingGraphPlugin.class, getClass().getClassLoader()));
-    for (BindingGraphPlugin plugin : bindingGraphPlugins) {
-      plugin.setFiler(filer);
-      Set<String> supportedOptions = plugin.getSupportedOptions();
-      if (!supportedOptions.isEmpty()) {
-        plugin.setOptions(Maps.filterKeys(processingEnv.getOptions(), supportedOptions::contains));
-      }
-    }
+        new BindingGraphPlugins(
+            ServiceLoader.load(BindingGraphPlugin.class, getClass().getClassLoader()),
+            filer,
+            messager,
+            processingEnv.getOptions());
 
     MethodSignatureFormatter methodSignatureFormatter = new MethodSignatureFormatter(types);
     BindingDeclarationFormatter bindingDeclarationFormatter =
         new BindingDeclarationFormatter(methodSignatureFormatter);
     DependencyRequestFormatter dependencyRequestFormatter = new DependencyRequestFormatter(types);
 
-    KeyFactory keyFactory = new KeyFactory(types, elements);
+    this.keyFactory = new KeyFactory(types, elements);
 
     InjectValidator injectValidator = new InjectValidator(types, elements, compilerOptions);
     InjectValidator injectValidatorWhenGeneratingCode = injectValidator.whenGeneratingCode();
@@ -141,12 +157,18 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
     SubcomponentDeclaration.Factory subcomponentDeclarationFactory =
         new SubcomponentDeclaration.Factory(keyFactory);
 
-    this.factoryGenerator = new FactoryGenerator(filer, elements, types, compilerOptions);
-    this.membersInjectorGenerator = new MembersInjectorGenerator(filer, elements, types);
+    // Generated sources are formatted on the writer's pool instead of by the FormattingFiler.
+    this.sourceFileWriter =
+        new SourceFileWriter(
+            processingEnv.getFiler(),
+            compilerOptions.headerCompilation() ? Optional.empty() : Optional.of(new Formatter()));
+    this.factoryGenerator =
+        new FactoryGenerator(sourceFileWriter, elements, types, compilerOptions);
+    this.membersInjectorGenerator = new MembersInjectorGenerator(sourceFileWriter, elements, types);
     ComponentGenerator componentGenerator =
-        new ComponentGenerator(filer, elements, types, keyFactory, compilerOptions);
+        new ComponentGenerator(sourceFileWriter, elements, types, keyFactory, compilerOptions);
     ProducerFactoryGenerator producerFactoryGenerator =
-        new ProducerFactoryGenerator(filer, elements, types, compilerOptions);
+        new ProducerFactoryGenerator(sourceFileWriter, elements, types, compilerOptions);
     MonitoringModuleGenerator monitoringModuleGenerator =
         new MonitoringModuleGenerator(filer, elements);
     ProductionExecutorModuleGenerator productionExecutorModuleGenerator =
@@ -168,7 +190,7 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
             membersInjectionBindingFactory,
             compilerOptions);
 
-    ModuleDescriptor.Factory moduleDescriptorFactory =
+    this.moduleDescriptorFactory =
         new ModuleDescriptor.Factory(
             elements,
             provisionBindingFactory,
@@ -178,10 +200,11 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
             subcomponentDeclarationFactory,
             optionalBindingDeclarationFactory);
 
-    ComponentDescriptor.Factory componentDescriptorFactory = new ComponentDescriptor.Factory(
-        elements, types, dependencyRequestFactory, moduleDescriptorFactory);
+    this.componentDescriptorFactory =
+        new ComponentDescriptor.Factory(
+            elements, types, dependencyRequestFactory, moduleDescriptorFactory);
 
-    BindingGraph.Factory bindingGraphFactory =
+    this.bindingGraphFactory =
         new BindingGraph.Factory(
             elements,
             injectBindingRegistry,
@@ -223,13 +246,15 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
                 componentDescriptorFactory,
                 bindingGraphFactory,
                 componentGenerator,
-                bindingGraphPlugins);
+                bindingGraphPlugins,
+                profiler,
+                new ValidatedGraphCache(compilerOptions));
 
     SymEncValidator symEncValidator = new SymEncValidator(elements, types);
     SymEncGenerator symEncGenerator = new SymEncGenerator(filer, types, elements);
     SymEncProssingStep symEncProssingStep = new SymEncProssingStep(symEncGenerator,symEncValidator, messager, elements, types);
 
-    return ImmutableList.of(
+    ImmutableList<ProcessingStep> steps = ImmutableList.of(
         new MapKeyProcessingStep(
             messager, types, mapKeyValidator, annotationCreatorGenerator, unwrappedMapKeyGenerator),
         new ForReleasableReferencesValidator(messager),
@@ -252,17 +277,30 @@ public final class ComponentProcessor extends BasicAnnotationProcessor {
         new BindingMethodProcessingStep(messager, anyBindingMethodValidator),
             symEncProssingStep
             );
+    return steps.stream().map(profiler::profile).collect(toImmutableList());
   }
 
   @Override
   protected void postRound(RoundEnvironment roundEnv) {
+    bindingGraphFactory.clearCache();
+    componentDescriptorFactory.clearCache();
+    moduleDescriptorFactory.clearCache();
+    keyFactory.clearCache();
     if (!roundEnv.processingOver()) {
-      try {
+      try (ProcessorProfiler.Span span = profiler.roundTask(REQUIRED_BINDINGS)) {
         injectBindingRegistry.generateSourcesForRequiredBindings(
             factoryGenerator, membersInjectorGenerator);
       } catch (SourceFileGenerationException e) {
         e.printMessageTo(processingEnv.getMessager());
       }
     }
+    try (ProcessorProfiler.Span span = profiler.roundTask(WRITE_SOURCES)) {
+      sourceFileWriter.flush(processingEnv.getMessager());
+    }
+    if (roundEnv.processingOver()) {
+      sourceFileWriter.shutdown();
+      bindingGraphPlugins.shutdown();
+      profiler.writeReports(processingEnv.getMessager());
+    }
   }
 }
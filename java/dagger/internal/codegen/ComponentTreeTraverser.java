@@ -26,6 +26,7 @@ import static com.google.common.collect.Iterables.indexOf;
 import static com.google.common.collect.Iterables.skip;
 import static com.google.common.collect.Multimaps.asMap;
 import static dagger.internal.codegen.DaggerStreams.toImmutableSet;
+import static java.util.Comparator.comparingInt;
 import static java.util.Spliterator.ORDERED;
 import static java.util.Spliterator.SIZED;
 import static java.util.stream.Collectors.joining;
@@ -39,13 +40,23 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.LinkedHashMultiset;
 import dagger.internal.codegen.ComponentDescriptor.ComponentMethodDescriptor;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.Spliterators.AbstractSpliterator;
+import java.util.TreeMap;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -203,6 +214,9 @@ public class ComponentTreeTraverser {
     private final Deque<ResolvedBindings> resolvedBindingsPath = new ArrayDeque<>();
     private final LinkedHashMultiset<BindingKey> bindingKeysInPath = LinkedHashMultiset.create();
     private final Set<DependencyRequest> visitedDependencyRequests = new HashSet<>();
+    private final Optional<SharedTraversal> sharedTraversal;
+    private final Deque<TraversedNode> nodePath = new ArrayDeque<>();
+    private final Deque<Boolean> firstVisitPath = new ArrayDeque<>();
 
     /**
      * Constructs a traverser for an entry point.
@@ -212,8 +226,39 @@ public class ComponentTreeTraverser {
      * @param entryPoint the entry point to be traversed
      */
     public BindingGraphTraverser(ComponentTreePath componentPath, DependencyRequest entryPoint) {
+      this(componentPath, entryPoint, Optional.empty());
+    }
+
+    /**
+     * Constructs a traverser for an entry point that shares a {@link SharedTraversal} with the
+     * traversers for other entry points.
+     *
+     * <p>The dependencies of the bindings for a binding key are only traversed from the first
+     * dependency request for that key in the graph that resolves it, by any of the traversers that
+     * share {@code sharedTraversal}. Later requests for the key are still visited, down to its
+     * bindings, so that work that depends on the request can be done for every request. Dependency
+     * cycles are not detected while traversing; they can be found by {@link
+     * SharedTraversal#dependencyCycles(BiPredicate)} once every entry point has been traversed.
+     *
+     * @param componentPath the path from the root component to the component that includes the
+     *     entry point to be traversed
+     * @param entryPoint the entry point to be traversed
+     * @param sharedTraversal the traversal state shared by all traversers that share it
+     */
+    public BindingGraphTraverser(
+        ComponentTreePath componentPath,
+        DependencyRequest entryPoint,
+        SharedTraversal sharedTraversal) {
+      this(componentPath, entryPoint, Optional.of(sharedTraversal));
+    }
+
+    private BindingGraphTraverser(
+        ComponentTreePath componentPath,
+        DependencyRequest entryPoint,
+        Optional<SharedTraversal> sharedTraversal) {
       this.componentTreePath = componentPath;
       this.entryPoint = entryPoint;
+      this.sharedTraversal = sharedTraversal;
     }
 
     /**
@@ -227,6 +272,7 @@ public class ComponentTreeTraverser {
       checkState(resolvedBindingsPath.isEmpty());
       checkState(bindingKeysInPath.isEmpty());
       checkState(visitedDependencyRequests.isEmpty());
+      checkState(nodePath.isEmpty());
       nextDependencyRequest(entryPoint, currentGraph());
     }
 
@@ -238,12 +284,14 @@ public class ComponentTreeTraverser {
      * traversal in the standard order.
      *
      * <p>This implementation calls {@link #visitResolvedBindings(ResolvedBindings)} unless the
-     * dependency request introduces a cycle.
+     * dependency request introduces a cycle. If this traverser shares a {@link SharedTraversal}, it
+     * always calls it, and {@link #visitBinding(Binding, ComponentDescriptor)} stops the traversal
+     * at bindings that have been {@linkplain #resolvedBindingsPreviouslyVisited() visited before}.
      *
      * @param dependencyRequest the object returned by {@link #dependencyRequest()}
      */
     protected void visitDependencyRequest(DependencyRequest dependencyRequest) {
-      if (!atDependencyCycle()) {
+      if (sharedTraversal.isPresent() || !atDependencyCycle()) {
         visitResolvedBindings(resolvedBindingsPath.getLast());
       }
     }
@@ -367,7 +415,10 @@ public class ComponentTreeTraverser {
      *
      * <p>This implementation calls {@link #visitDependencyRequest(DependencyRequest)} for each
      * dependency of the binding, resolved within {@code owningComponent}, that has not already been
-     * visited while traversing the current entry point.
+     * visited while traversing the current entry point. If this traverser shares a {@link
+     * SharedTraversal}, it records that the binding has been visited within {@code
+     * owningComponent}, and only visits the dependencies if the {@linkplain
+     * #resolvedBindingsPreviouslyVisited() resolved bindings have not been visited before}.
      *
      * @param binding a value of {@code resolvedBindings().allBindings()}
      * @param owningComponent the key of {@code resolvedBindings().allBindings()} for {@code
@@ -375,6 +426,12 @@ public class ComponentTreeTraverser {
      */
     protected void visitBinding(Binding binding, ComponentDescriptor owningComponent) {
       BindingGraph owningGraph = componentTreePath.graphForComponent(owningComponent);
+      if (sharedTraversal.isPresent()) {
+        sharedTraversal.get().bindings(owningGraph).add(binding);
+        if (resolvedBindingsPreviouslyVisited()) {
+          return;
+        }
+      }
       for (DependencyRequest dependency : binding.dependencies()) {
         nextDependencyRequest(dependency, owningGraph);
       }
@@ -382,12 +439,21 @@ public class ComponentTreeTraverser {
 
     private void nextDependencyRequest(
         DependencyRequest dependencyRequest, BindingGraph bindingGraph) {
-      if (!visitedDependencyRequests.add(dependencyRequest)) {
+      if (!sharedTraversal.isPresent() && !visitedDependencyRequests.add(dependencyRequest)) {
         return;
       }
 
       ResolvedBindings resolvedBindings =
           bindingGraph.resolvedBindings(dependencyRequest.kind(), dependencyRequest.key());
+      if (sharedTraversal.isPresent()) {
+        TraversedNode node =
+            sharedTraversal.get().node(bindingGraph, dependencyRequest.bindingKey());
+        firstVisitPath.addLast(
+            sharedTraversal
+                .get()
+                .reach(node, this, nodePath.peekLast(), dependencyRequest, resolvedBindings));
+        nodePath.addLast(node);
+      }
       dependencyRequestPath.addLast(dependencyRequest);
       resolvedBindingsPath.addLast(resolvedBindings);
       bindingKeysInPath.add(dependencyRequest.bindingKey());
@@ -397,9 +463,44 @@ public class ComponentTreeTraverser {
         verify(dependencyRequestPath.removeLast().equals(dependencyRequest));
         verify(resolvedBindingsPath.removeLast().equals(resolvedBindings));
         verify(bindingKeysInPath.remove(dependencyRequest.bindingKey()));
+        if (sharedTraversal.isPresent()) {
+          nodePath.removeLast();
+          firstVisitPath.removeLast();
+        }
       }
     }
 
+    /**
+     * Returns {@code true} if this traverser shares a {@link SharedTraversal} and the bindings for
+     * the {@linkplain #dependencyRequest() current dependency request} have already been visited,
+     * within the graph that resolves it, from an earlier request by this or another traverser. The
+     * dependencies of those bindings are not traversed again.
+     *
+     * @throws IllegalStateException if this object is not currently traversing dependencies
+     */
+    protected final boolean resolvedBindingsPreviouslyVisited() {
+      checkState(!dependencyRequestPath.isEmpty());
+      return sharedTraversal.isPresent() && !firstVisitPath.getLast();
+    }
+
+    /**
+     * Returns {@code true} if this traverser shares a {@link SharedTraversal} and any of the
+     * traversers that share it has already visited {@code binding} within {@code owningComponent}.
+     *
+     * <p>Subclasses that override {@link #visitContributionBinding(ContributionBinding,
+     * ComponentDescriptor)} or {@link #visitMembersInjectionBinding(MembersInjectionBinding,
+     * ComponentDescriptor)} can use this to do per-binding work only once. Work that depends on
+     * the request should still be done every time.
+     */
+    protected final boolean bindingPreviouslyVisited(
+        Binding binding, ComponentDescriptor owningComponent) {
+      return sharedTraversal.isPresent()
+          && sharedTraversal
+              .get()
+              .bindings(componentTreePath.graphForComponent(owningComponent))
+              .contains(binding);
+    }
+
     /**
      * Returns the path from the root component to the component that includes the {@linkplain
      * #entryPointElement()} entry point.
@@ -519,6 +620,263 @@ public class ComponentTreeTraverser {
     }
   }
 
+  /**
+   * The traversal state shared by the {@link BindingGraphTraverser}s for all the entry points in a
+   * component tree, so that the tree is traversed in time linear in its size, however many entry
+   * points depend on each binding.
+   *
+   * <p>The bindings resolved for a binding key within a binding graph form a node, and the
+   * dependency requests of those bindings are edges to other nodes. The edges from a node are
+   * traversed only from the first request that reaches the node. Every request records its edge,
+   * though, so that {@link #dependencyCycles(BiPredicate)} can find the cycles among all of them
+   * once the traversal is over.
+   */
+  public static final class SharedTraversal {
+    private final Map<BindingGraph, Set<Binding>> bindings = new IdentityHashMap<>();
+    private final Map<BindingGraph, Map<BindingKey, TraversedNode>> nodes = new IdentityHashMap<>();
+
+    /** The nodes that have been reached, in the order in which they were first reached. */
+    private final List<TraversedNode> reachedNodes = new ArrayList<>();
+
+    private Set<Binding> bindings(BindingGraph graph) {
+      return bindings.computeIfAbsent(graph, g -> new HashSet<>());
+    }
+
+    private TraversedNode node(BindingGraph graph, BindingKey bindingKey) {
+      return nodes
+          .computeIfAbsent(graph, g -> new HashMap<>())
+          .computeIfAbsent(bindingKey, k -> new TraversedNode());
+    }
+
+    /**
+     * Records that {@code traverser} has reached {@code node} through {@code dependencyRequest}, a
+     * dependency of the bindings of {@code dependent}, or an entry point if {@code dependent} is
+     * {@code null}.
+     *
+     * @return {@code true} if the node had not been reached before
+     */
+    private boolean reach(
+        TraversedNode node,
+        BindingGraphTraverser traverser,
+        TraversedNode dependent,
+        DependencyRequest dependencyRequest,
+        ResolvedBindings resolvedBindings) {
+      if (dependent != null) {
+        dependent.edges.add(new TraversedEdge(dependent, dependencyRequest, node));
+      }
+      if (node.index >= 0) {
+        return false;
+      }
+      node.index = reachedNodes.size();
+      node.firstTraverser = traverser;
+      node.firstDependent = dependent;
+      node.firstDependencyRequest = dependencyRequest;
+      node.resolvedBindings = resolvedBindings;
+      reachedNodes.add(node);
+      return true;
+    }
+
+    /**
+     * Returns the dependency cycles among the dependency requests that have been traversed, in the
+     * order in which they were first reached.
+     *
+     * <p>A cycle is only returned if none of the requests in it breaks the cycle. One cycle is
+     * returned for each strongly connected component of the graph of the requests that don't, so
+     * cycles that share a request are reported together. The dependency traces for them are only
+     * built for the components that have a cycle.
+     *
+     * @param breaksCycle returns {@code true} for a dependency request and the bindings resolved
+     *     for it if the request breaks any cycle it is in
+     */
+    public ImmutableList<DependencyCycle> dependencyCycles(
+        BiPredicate<? super DependencyRequest, ? super ResolvedBindings> breaksCycle) {
+      CycleFinder cycleFinder = new CycleFinder(breaksCycle);
+      for (TraversedNode node : reachedNodes) {
+        cycleFinder.visit(node);
+      }
+      return ImmutableList.copyOf(cycleFinder.cycles.values());
+    }
+
+    /**
+     * Finds the strongly connected components of the graph of the edges that don't break cycles,
+     * using Tarjan's algorithm.
+     */
+    private static final class CycleFinder {
+      final BiPredicate<? super DependencyRequest, ? super ResolvedBindings> breaksCycle;
+      final Map<TraversedNode, Integer> indexes = new HashMap<>();
+      final Map<TraversedNode, Integer> lowLinks = new HashMap<>();
+      final Deque<TraversedNode> stack = new ArrayDeque<>();
+      final Set<TraversedNode> onStack = new HashSet<>();
+
+      /** The cycles found, indexed by the order in which their first node was reached. */
+      final SortedMap<Integer, DependencyCycle> cycles = new TreeMap<>();
+
+      CycleFinder(BiPredicate<? super DependencyRequest, ? super ResolvedBindings> breaksCycle) {
+        this.breaksCycle = breaksCycle;
+      }
+
+      void visit(TraversedNode node) {
+        if (indexes.containsKey(node)) {
+          return;
+        }
+        int index = indexes.size();
+        indexes.put(node, index);
+        lowLinks.put(node, index);
+        stack.push(node);
+        onStack.add(node);
+        for (TraversedEdge edge : node.edges) {
+          if (breaksCycle(edge)) {
+            continue;
+          }
+          if (!indexes.containsKey(edge.target)) {
+            visit(edge.target);
+            lowLinks.put(node, Math.min(lowLinks.get(node), lowLinks.get(edge.target)));
+          } else if (onStack.contains(edge.target)) {
+            lowLinks.put(node, Math.min(lowLinks.get(node), indexes.get(edge.target)));
+          }
+        }
+        if (lowLinks.get(node) == index) {
+          Set<TraversedNode> component = new HashSet<>();
+          TraversedNode member;
+          do {
+            member = stack.pop();
+            onStack.remove(member);
+            component.add(member);
+          } while (member != node);
+          if (component.size() > 1
+              || node.edges.stream().anyMatch(edge -> edge.target == node && !breaksCycle(edge))) {
+            TraversedNode first = component.stream().min(comparingInt(n -> n.index)).get();
+            cycles.put(first.index, dependencyCycle(first, component));
+          }
+        }
+      }
+
+      private boolean breaksCycle(TraversedEdge edge) {
+        return breaksCycle.test(edge.dependencyRequest, edge.target.resolvedBindings);
+      }
+
+      /**
+       * Returns the shortest cycle within a strongly connected {@code component} that starts and
+       * ends at {@code first}, the node in it that was reached first.
+       */
+      private DependencyCycle dependencyCycle(TraversedNode first, Set<TraversedNode> component) {
+        Map<TraversedNode, TraversedEdge> edgesTo = new HashMap<>();
+        Queue<TraversedNode> queue = new ArrayDeque<>();
+        queue.add(first);
+        TraversedEdge closingEdge = null;
+        while (closingEdge == null) {
+          for (TraversedEdge edge : queue.remove().edges) {
+            if (!component.contains(edge.target) || breaksCycle(edge)) {
+              continue;
+            }
+            if (edge.target == first) {
+              closingEdge = edge;
+              break;
+            }
+            if (!edgesTo.containsKey(edge.target)) {
+              edgesTo.put(edge.target, edge);
+              queue.add(edge.target);
+            }
+          }
+        }
+        Deque<TraversedEdge> cycleEdges = new ArrayDeque<>();
+        for (TraversedEdge edge = closingEdge; ; edge = edgesTo.get(edge.dependent)) {
+          cycleEdges.addFirst(edge);
+          if (edge.dependent == first) {
+            break;
+          }
+        }
+
+        // The first node's dependency path is made of nodes that were reached before it.
+        Deque<DependencyRequest> dependencyRequests = new ArrayDeque<>();
+        Deque<ResolvedBindings> resolvedBindings = new ArrayDeque<>();
+        for (TraversedNode node = first; node != null; node = node.firstDependent) {
+          dependencyRequests.addFirst(node.firstDependencyRequest);
+          resolvedBindings.addFirst(node.resolvedBindings);
+        }
+        List<DependencyRequest> cycleDependencyRequests = new ArrayList<>();
+        List<ResolvedBindings> cycleResolvedBindings = new ArrayList<>();
+        cycleDependencyRequests.add(first.firstDependencyRequest);
+        cycleResolvedBindings.add(first.resolvedBindings);
+        for (TraversedEdge edge : cycleEdges) {
+          dependencyRequests.addLast(edge.dependencyRequest);
+          resolvedBindings.addLast(edge.target.resolvedBindings);
+          cycleDependencyRequests.add(edge.dependencyRequest);
+          cycleResolvedBindings.add(edge.target.resolvedBindings);
+        }
+        return new DependencyCycle(
+            first.firstTraverser,
+            new DependencyTrace(dependencyRequests, resolvedBindings),
+            new DependencyTrace(cycleDependencyRequests, cycleResolvedBindings));
+      }
+    }
+  }
+
+  /** The bindings resolved for a binding key in a binding graph, in a {@link SharedTraversal}. */
+  private static final class TraversedNode {
+    /** The order in which this node was first reached, or -1 if it has not been reached. */
+    int index = -1;
+
+    BindingGraphTraverser firstTraverser;
+    /** The node whose bindings depend on the request that first reached this one, if any. */
+    TraversedNode firstDependent;
+    DependencyRequest firstDependencyRequest;
+    ResolvedBindings resolvedBindings;
+    final List<TraversedEdge> edges = new ArrayList<>();
+  }
+
+  /** A dependency request from the bindings of one node to another in a {@link SharedTraversal}. */
+  private static final class TraversedEdge {
+    final TraversedNode dependent;
+    final DependencyRequest dependencyRequest;
+    final TraversedNode target;
+
+    TraversedEdge(
+        TraversedNode dependent, DependencyRequest dependencyRequest, TraversedNode target) {
+      this.dependent = dependent;
+      this.dependencyRequest = dependencyRequest;
+      this.target = target;
+    }
+  }
+
+  /** A dependency cycle found by {@link SharedTraversal#dependencyCycles(BiPredicate)}. */
+  public static final class DependencyCycle {
+    private final BindingGraphTraverser traverser;
+    private final DependencyTrace dependencyTrace;
+    private final DependencyTrace cycleDependencyTrace;
+
+    private DependencyCycle(
+        BindingGraphTraverser traverser,
+        DependencyTrace dependencyTrace,
+        DependencyTrace cycleDependencyTrace) {
+      this.traverser = traverser;
+      this.dependencyTrace = dependencyTrace;
+      this.cycleDependencyTrace = cycleDependencyTrace;
+    }
+
+    /** Returns the traverser for the entry point from which the cycle was first reached. */
+    public BindingGraphTraverser traverser() {
+      return traverser;
+    }
+
+    /**
+     * Returns the dependency requests and resolved bindings starting with the {@linkplain
+     * #traverser() traverser}'s entry point, through the cycle, and ending with the request that
+     * closes it.
+     */
+    public DependencyTrace dependencyTrace() {
+      return dependencyTrace;
+    }
+
+    /**
+     * Returns the dependency requests and resolved bindings in the cycle, as {@link
+     * BindingGraphTraverser#cycleDependencyTrace()} does.
+     */
+    public DependencyTrace cycleDependencyTrace() {
+      return cycleDependencyTrace;
+    }
+  }
+
   /** A traverser that does nothing. */
   private static final class NoOpBindingGraphTraverser extends BindingGraphTraverser {
     private NoOpBindingGraphTraverser(
@@ -169,6 +169,30 @@ final class ErrorMessages {
 
   static final String PRODUCES_METHOD_SCOPE = "@Produces methods may not have scope annotations.";
 
+  static final String PRODUCES_METHOD_NEGATIVE_TIMEOUT =
+      "@Produces methods may not have a negative timeoutMillis, either directly or from their "
+          + "@ProducerModule.";
+
+  static final String PRODUCES_METHOD_NEGATIVE_HEDGE_DELAY =
+      "@Produces methods may not have a negative hedgeDelayMillis.";
+
+  static final String PRODUCES_METHOD_HEDGED_DIRECT_EXECUTION =
+      "@Produces methods that run with Execution.DIRECT may not have a hedgeDelayMillis.";
+
+  static final String PRODUCES_METHOD_HEDGED_CACHED =
+      "@Produces methods with a cacheTtlMillis or coalesce = true may not have a "
+          + "hedgeDelayMillis.";
+
+  static final String PRODUCES_METHOD_NEGATIVE_CACHE_TTL =
+      "@Produces methods may not have a negative cacheTtlMillis.";
+
+  static final String PRODUCES_METHOD_CACHE_MAXIMUM_SIZE =
+      "@Produces methods with a cacheTtlMillis must have a positive cacheMaximumSize.";
+
+  static final String PRODUCES_METHOD_CACHED_FRAMEWORK_PARAMETER =
+      "@Produces methods with a cacheTtlMillis or coalesce = true may only have parameters that "
+          + "are values, not Producer, Produced, Provider or Lazy.";
+
   static final String BINDING_METHOD_THROWS =
       "@%s methods may only throw unchecked exceptions or exceptions subclassing Exception";
 
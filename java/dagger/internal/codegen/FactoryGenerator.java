@@ -60,7 +60,6 @@ import dagger.internal.codegen.InjectionMethods.ProvisionMethod;
 import dagger.model.Key;
 import java.util.List;
 import java.util.Optional;
-import javax.annotation.processing.Filer;
 import javax.inject.Inject;
 import javax.lang.model.element.Element;
 import javax.lang.model.util.Elements;
@@ -78,11 +77,11 @@ final class FactoryGenerator extends SourceFileGenerator<ProvisionBinding> {
   private final CompilerOptions compilerOptions;
 
   FactoryGenerator(
-      Filer filer,
+      SourceFileWriter sourceFileWriter,
       Elements elements,
       Types types,
       CompilerOptions compilerOptions) {
-    super(filer, elements);
+    super(sourceFileWriter, elements);
     this.types = types;
     this.compilerOptions = compilerOptions;
   }
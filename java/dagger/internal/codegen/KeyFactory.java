@@ -30,6 +30,7 @@ import static dagger.internal.codegen.MapKeys.mapKeyType;
 import static dagger.internal.codegen.Optionals.firstPresent;
 import static dagger.internal.codegen.RequestKinds.extractKeyType;
 import static dagger.internal.codegen.RequestKinds.getRequestKind;
+import static dagger.internal.codegen.Util.reentrantComputeIfAbsent;
 import static javax.lang.model.element.ElementKind.METHOD;
 
 import com.google.auto.common.MoreTypes;
@@ -51,6 +52,7 @@ import dagger.producers.monitoring.ProductionComponentMonitor;
 import dagger.releasablereferences.ForReleasableReferences;
 import dagger.releasablereferences.ReleasableReferenceManager;
 import dagger.releasablereferences.TypedReleasableReferenceManager;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -67,16 +69,40 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
-/** A factory for {@link Key}s. */
+/**
+ * A factory for {@link Key}s.
+ *
+ * <p>Keys are interned: within a processing round, every key that this factory returns is the same
+ * instance as every other equal key that it returns. {@link Key}'s hash code is memoized and its
+ * {@code equals} method returns early for identical instances, so hashing and comparing interned
+ * keys doesn't walk their types again.
+ */
 final class KeyFactory {
   private final Types types;
   private final Elements elements;
+  private final Map<Key, Key> internedKeys = new HashMap<>();
+  private final Map<Key, Key> delegateKeys = new HashMap<>();
 
   KeyFactory(Types types, Elements elements) {
     this.types = checkNotNull(types);
     this.elements = checkNotNull(elements);
   }
 
+  /** Returns the canonical instance of {@code key}. */
+  private Key intern(Key key) {
+    Key internedKey = internedKeys.putIfAbsent(key, key);
+    return internedKey == null ? key : internedKey;
+  }
+
+  /**
+   * Forgets the interned keys. Called at the end of each processing round, since types from one
+   * round shouldn't be retained in later rounds.
+   */
+  void clearCache() {
+    internedKeys.clear();
+    delegateKeys.clear();
+  }
+
   private TypeElement getClassElement(Class<?> cls) {
     return elements.getTypeElement(cls.getCanonicalName());
   }
@@ -125,11 +151,11 @@ final class KeyFactory {
     checkArgument(subcomponentBuilderMethod.getKind().equals(METHOD));
     ExecutableType resolvedMethod =
         asExecutable(types.asMemberOf(declaredContainer, subcomponentBuilderMethod));
-    return Key.builder(resolvedMethod.getReturnType()).build();
+    return intern(Key.builder(resolvedMethod.getReturnType()).build());
   }
 
   Key forSubcomponentBuilder(TypeMirror builderType) {
-    return Key.builder(builderType).build();
+    return intern(Key.builder(builderType).build());
   }
 
   Key forProvidesMethod(ExecutableElement method, TypeElement contributingModule) {
@@ -183,10 +209,11 @@ final class KeyFactory {
     Key key = forMethod(method, keyType);
     return contributionType.equals(ContributionType.UNIQUE)
         ? key
-        : key.toBuilder()
-            .multibindingContributionIdentifier(
-                new MultibindingContributionIdentifier(method, contributingModule))
-            .build();
+        : intern(
+            key.toBuilder()
+                .multibindingContributionIdentifier(
+                    new MultibindingContributionIdentifier(method, contributingModule))
+                .build());
   }
 
   /**
@@ -253,36 +280,38 @@ final class KeyFactory {
   }
 
   Key forInjectConstructorWithResolvedType(TypeMirror type) {
-    return Key.builder(type).build();
+    return intern(Key.builder(type).build());
   }
 
   // TODO(ronshapiro): Remove these conveniences which are simple wrappers around Key.Builder
   Key forType(TypeMirror type) {
-    return Key.builder(type).build();
+    return intern(Key.builder(type).build());
   }
 
   Key forMembersInjectedType(TypeMirror type) {
-    return Key.builder(type).build();
+    return intern(Key.builder(type).build());
   }
 
   Key forQualifiedType(Optional<AnnotationMirror> qualifier, TypeMirror type) {
-    return Key.builder(boxPrimitives(type)).qualifier(qualifier).build();
+    return intern(Key.builder(boxPrimitives(type)).qualifier(qualifier).build());
   }
 
   Key forProductionExecutor() {
-    return Key.builder(getClassElement(Executor.class).asType())
-        .qualifier(SimpleAnnotationMirror.of(getClassElement(Production.class)))
-        .build();
+    return intern(
+        Key.builder(getClassElement(Executor.class).asType())
+            .qualifier(SimpleAnnotationMirror.of(getClassElement(Production.class)))
+            .build());
   }
 
   Key forProductionImplementationExecutor() {
-    return Key.builder(getClassElement(Executor.class).asType())
-        .qualifier(SimpleAnnotationMirror.of(getClassElement(ProductionImplementation.class)))
-        .build();
+    return intern(
+        Key.builder(getClassElement(Executor.class).asType())
+            .qualifier(SimpleAnnotationMirror.of(getClassElement(ProductionImplementation.class)))
+            .build());
   }
 
   Key forProductionComponentMonitor() {
-    return Key.builder(getClassElement(ProductionComponentMonitor.class).asType()).build();
+    return intern(Key.builder(getClassElement(ProductionComponentMonitor.class).asType()).build());
   }
 
   /**
@@ -330,6 +359,11 @@ final class KeyFactory {
    * returns {@code possibleMapKey}.
    */
   Key convertToDelegateKey(Key possibleMapKey) {
+    return reentrantComputeIfAbsent(
+        delegateKeys, possibleMapKey, this::convertToDelegateKeyUncached);
+  }
+
+  private Key convertToDelegateKeyUncached(Key possibleMapKey) {
     if (!MapType.isMap(possibleMapKey)) {
       return possibleMapKey;
     }
@@ -344,7 +378,8 @@ final class KeyFactory {
     } else {
       return possibleMapKey;
     }
-    return possibleMapKey.toBuilder().type(mapOf(mapType.keyType(), wrappedValueType)).build();
+    return intern(
+        possibleMapKey.toBuilder().type(mapOf(mapType.keyType(), wrappedValueType)).build());
   }
 
   /**
@@ -383,7 +418,11 @@ final class KeyFactory {
             types.getDeclaredType(
                 wrappingElement, mapType.unwrappedValueType(currentWrappingClass));
         return Optional.of(
-            possibleMapKey.toBuilder().type(mapOf(mapType.keyType(), wrappedValueType)).build());
+            intern(
+                possibleMapKey
+                    .toBuilder()
+                    .type(mapOf(mapType.keyType(), wrappedValueType))
+                    .build()));
       }
     }
     return Optional.empty();
@@ -408,7 +447,11 @@ final class KeyFactory {
         }
         DeclaredType wrappedValueType = types.getDeclaredType(wrappingElement, mapType.valueType());
         return Optional.of(
-            possibleMapKey.toBuilder().type(mapOf(mapType.keyType(), wrappedValueType)).build());
+            intern(
+                possibleMapKey
+                    .toBuilder()
+                    .type(mapOf(mapType.keyType(), wrappedValueType))
+                    .build()));
       }
     }
     return Optional.empty();
@@ -423,7 +466,8 @@ final class KeyFactory {
       SetType setType = SetType.from(key);
       if (!setType.isRawType() && setType.elementsAreTypeOf(wrappingClass)) {
         return Optional.of(
-            key.toBuilder().type(setOf(setType.unwrappedElementType(wrappingClass))).build());
+            intern(
+                key.toBuilder().type(setOf(setType.unwrappedElementType(wrappingClass))).build()));
       }
     }
     return Optional.empty();
@@ -441,9 +485,10 @@ final class KeyFactory {
 
     TypeMirror optionalValueType = OptionalType.from(key).valueType();
     return Optional.of(
-        key.toBuilder()
-            .type(extractKeyType(getRequestKind(optionalValueType), optionalValueType))
-            .build());
+        intern(
+            key.toBuilder()
+                .type(extractKeyType(getRequestKind(optionalValueType), optionalValueType))
+                .build()));
   }
 
   /** Returns a key for a {@code @ForReleasableReferences(scope) ReleasableReferenceManager}. */
@@ -458,14 +503,16 @@ final class KeyFactory {
    * TypedReleasableReferenceManager<metadataType>}
    */
   Key forTypedReleasableReferenceManager(Scope scope, DeclaredType metadataType) {
-    return Key.builder(typedReleasableReferenceManagerOf(metadataType))
-        .qualifier(forReleasableReferencesAnnotationMirror(scope))
-        .build();
+    return intern(
+        Key.builder(typedReleasableReferenceManagerOf(metadataType))
+            .qualifier(forReleasableReferencesAnnotationMirror(scope))
+            .build());
   }
 
   /** Returns a key for a {@code Set<ReleasableReferenceManager>}. */
   Key forSetOfReleasableReferenceManagers() {
-    return Key.builder(setOf(getClassElement(ReleasableReferenceManager.class).asType())).build();
+    return intern(
+        Key.builder(setOf(getClassElement(ReleasableReferenceManager.class).asType())).build());
   }
 
   /** Returns a key for a {@code Set<TypedReleasableReferenceManager<metadataType>}. */
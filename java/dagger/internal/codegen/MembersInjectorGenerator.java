@@ -53,7 +53,6 @@ import dagger.internal.codegen.MembersInjectionBinding.InjectionSite;
 import dagger.model.Key;
 import java.util.Map.Entry;
 import java.util.Optional;
-import javax.annotation.processing.Filer;
 import javax.lang.model.element.Element;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
@@ -67,8 +66,8 @@ import javax.lang.model.util.Types;
 final class MembersInjectorGenerator extends SourceFileGenerator<MembersInjectionBinding> {
   private final Types types;
 
-  MembersInjectorGenerator(Filer filer, Elements elements, Types types) {
-    super(filer, elements);
+  MembersInjectorGenerator(SourceFileWriter sourceFileWriter, Elements elements, Types types) {
+    super(sourceFileWriter, elements);
     this.types = types;
   }
 
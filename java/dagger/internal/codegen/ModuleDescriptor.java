@@ -27,6 +27,7 @@ import static dagger.internal.codegen.ConfigurationAnnotations.getModuleIncludes
 import static dagger.internal.codegen.DaggerElements.getAnnotationMirror;
 import static dagger.internal.codegen.DaggerElements.isAnnotationPresent;
 import static dagger.internal.codegen.SourceFiles.classFileName;
+import static dagger.internal.codegen.Util.reentrantComputeIfAbsent;
 import static javax.lang.model.type.TypeKind.DECLARED;
 import static javax.lang.model.type.TypeKind.NONE;
 import static javax.lang.model.util.ElementFilter.methodsIn;
@@ -47,7 +48,9 @@ import dagger.producers.ProducerModule;
 import dagger.producers.Produces;
 import java.lang.annotation.Annotation;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import javax.lang.model.element.AnnotationMirror;
@@ -143,6 +146,7 @@ abstract class ModuleDescriptor {
     private final DelegateDeclaration.Factory bindingDelegateDeclarationFactory;
     private final SubcomponentDeclaration.Factory subcomponentDeclarationFactory;
     private final OptionalBindingDeclaration.Factory optionalBindingDeclarationFactory;
+    private final Map<TypeElement, ModuleDescriptor> cache = new HashMap<>();
 
     Factory(
         DaggerElements elements,
@@ -161,7 +165,23 @@ abstract class ModuleDescriptor {
       this.optionalBindingDeclarationFactory = optionalBindingDeclarationFactory;
     }
 
+    /**
+     * Returns the descriptor for a module. Descriptors are cached until {@link #clearCache()} is
+     * called, so a module that is included by many components is only read once per round.
+     */
     ModuleDescriptor create(TypeElement moduleElement) {
+      return reentrantComputeIfAbsent(cache, moduleElement, this::createUncached);
+    }
+
+    /**
+     * Clears the cached descriptors. This must be called at the end of every processing round,
+     * because the elements from one round must not be used in later rounds.
+     */
+    void clearCache() {
+      cache.clear();
+    }
+
+    private ModuleDescriptor createUncached(TypeElement moduleElement) {
       ImmutableSet.Builder<ContributionBinding> bindings = ImmutableSet.builder();
       ImmutableSet.Builder<DelegateDeclaration> delegates = ImmutableSet.builder();
       ImmutableSet.Builder<MultibindingDeclaration> multibindingDeclarations =
@@ -0,0 +1,406 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static javax.tools.Diagnostic.Kind.WARNING;
+
+import com.google.auto.common.BasicAnnotationProcessor.ProcessingStep;
+import com.google.common.base.Ascii;
+import com.google.common.collect.SetMultimap;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Records the wall time, CPU time and allocated bytes of the processor's {@linkplain
+ * ProcessingStep steps}, of each {@link RoundTask} done after a round, and of each {@link Phase}
+ * of processing each component, when {@code -Adagger.profile=<path>} is passed.
+ *
+ * <p>When processing is over, a JSON report that sums the measurements by step, by round task, by
+ * phase and by component is written to the path, and a trace that can be opened in {@code
+ * chrome://tracing} is written beside it with the extension {@code .trace.json}.
+ *
+ * <p>Measurements are taken on the processor thread only.
+ */
+final class ProcessorProfiler {
+  /** The phases of processing a component. */
+  enum Phase {
+    /** Creating the {@link ComponentDescriptor} and validating the component hierarchy. */
+    DESCRIPTOR,
+    /** Creating the {@link BindingGraph}. */
+    RESOLUTION,
+    /**
+     * Fingerprinting the {@link BindingGraph} and looking it up in the {@link ValidatedGraphCache},
+     * if the cache is enabled.
+     */
+    FINGERPRINT,
+    /** Validating the {@link BindingGraph}, unless the {@link ValidatedGraphCache} had it. */
+    VALIDATION,
+    /** Running the {@link BindingGraphPlugin}s. */
+    PLUGINS,
+    /**
+     * Building the component implementation. Writing it out is measured by {@link
+     * RoundTask#WRITE_SOURCES}.
+     */
+    GENERATION,
+    ;
+
+    String label() {
+      return Ascii.toLowerCase(name());
+    }
+  }
+
+  /** The work done after each round, outside of any step. */
+  enum RoundTask {
+    /** Generating the factories and members injectors that components required. */
+    REQUIRED_BINDINGS,
+    /**
+     * Writing the round's sources to the filer, including waiting for those still being rendered.
+     */
+    WRITE_SOURCES,
+    ;
+
+    String label() {
+      return Ascii.toLowerCase(name());
+    }
+  }
+
+  private static final String STEP = "step";
+  private static final String ROUND_TASK = "round_task";
+  private static final String COMPONENT = "component";
+  private static final String PHASE = "phase";
+
+  private static final Span NO_OP_SPAN = () -> {};
+
+  private final Optional<Path> reportPath;
+  private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+  private final long startNanos = System.nanoTime();
+  private final List<Event> events = new ArrayList<>();
+
+  ProcessorProfiler(CompilerOptions compilerOptions) {
+    this.reportPath = compilerOptions.profilePath().map(Paths::get);
+  }
+
+  boolean isEnabled() {
+    return reportPath.isPresent();
+  }
+
+  /** An interval being measured. Closing it records the measurement. */
+  interface Span extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /** Starts measuring {@code phase} of processing {@code component}. */
+  Span phase(Phase phase, TypeElement component) {
+    return start(PHASE, phase.label(), Optional.of(component.getQualifiedName().toString()));
+  }
+
+  /** Starts measuring {@code task}. */
+  Span roundTask(RoundTask task) {
+    return start(ROUND_TASK, task.label(), Optional.empty());
+  }
+
+  /** Starts measuring all phases of processing {@code component}. */
+  Span component(TypeElement component) {
+    String componentName = component.getQualifiedName().toString();
+    return start(COMPONENT, componentName, Optional.of(componentName));
+  }
+
+  /**
+   * Returns a step that measures each call to {@code step}'s {@link ProcessingStep#process}, or
+   * {@code step} itself if profiling is disabled.
+   */
+  ProcessingStep profile(ProcessingStep step) {
+    if (!isEnabled()) {
+      return step;
+    }
+    String stepName = step.getClass().getSimpleName();
+    return new ProcessingStep() {
+      @Override
+      public Set<? extends Class<? extends Annotation>> annotations() {
+        return step.annotations();
+      }
+
+      @Override
+      public Set<Element> process(
+          SetMultimap<Class<? extends Annotation>, Element> elementsByAnnotation) {
+        try (Span span = start(STEP, stepName, Optional.empty())) {
+          return step.process(elementsByAnnotation);
+        }
+      }
+
+      @Override
+      public String toString() {
+        return step.toString();
+      }
+    };
+  }
+
+  private Span start(String category, String name, Optional<String> component) {
+    if (!isEnabled()) {
+      return NO_OP_SPAN;
+    }
+    long threadId = Thread.currentThread().getId();
+    long wallStart = System.nanoTime();
+    long cpuStart = currentThreadCpuTime();
+    long allocatedStart = allocatedBytes(threadId);
+    return () ->
+        events.add(
+            new Event(
+                category,
+                name,
+                component,
+                threadId,
+                wallStart - startNanos,
+                System.nanoTime() - wallStart,
+                currentThreadCpuTime() - cpuStart,
+                allocatedBytes(threadId) - allocatedStart));
+  }
+
+  private long currentThreadCpuTime() {
+    return threadMXBean.isCurrentThreadCpuTimeSupported()
+        ? threadMXBean.getCurrentThreadCpuTime()
+        : 0;
+  }
+
+  private long allocatedBytes(long threadId) {
+    if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean hotSpotThreadMXBean =
+          (com.sun.management.ThreadMXBean) threadMXBean;
+      if (hotSpotThreadMXBean.isThreadAllocatedMemorySupported()
+          && hotSpotThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+        return hotSpotThreadMXBean.getThreadAllocatedBytes(threadId);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Writes the report and the trace, if profiling is enabled. Failures to write are reported as
+   * warnings.
+   */
+  void writeReports(Messager messager) {
+    if (!isEnabled()) {
+      return;
+    }
+    Path report = reportPath.get();
+    String reportFileName = report.getFileName().toString();
+    Path trace =
+        report.resolveSibling(
+            (reportFileName.endsWith(".json")
+                    ? reportFileName.substring(0, reportFileName.length() - ".json".length())
+                    : reportFileName)
+                + ".trace.json");
+    try {
+      if (report.getParent() != null) {
+        Files.createDirectories(report.getParent());
+      }
+      try (Writer writer = Files.newBufferedWriter(report, UTF_8)) {
+        writeReport(writer);
+      }
+      try (Writer writer = Files.newBufferedWriter(trace, UTF_8)) {
+        writeTrace(writer);
+      }
+    } catch (IOException e) {
+      messager.printMessage(WARNING, "Could not write the Dagger profile to " + report + ": " + e);
+    }
+  }
+
+  private void writeReport(Writer writer) throws IOException {
+    Map<String, Totals> steps = new LinkedHashMap<>();
+    Map<String, Totals> roundTasks = new LinkedHashMap<>();
+    Map<String, Totals> phases = new LinkedHashMap<>();
+    Map<String, Totals> components = new LinkedHashMap<>();
+    Map<String, Map<String, Totals>> componentPhases = new LinkedHashMap<>();
+    for (Event event : events) {
+      switch (event.category) {
+        case STEP:
+          totals(steps, event.name).add(event);
+          break;
+        case ROUND_TASK:
+          totals(roundTasks, event.name).add(event);
+          break;
+        case COMPONENT:
+          totals(components, event.name).add(event);
+          break;
+        case PHASE:
+          totals(phases, event.name).add(event);
+          totals(
+                  componentPhases.computeIfAbsent(
+                      event.component.get(), component -> new LinkedHashMap<>()),
+                  event.name)
+              .add(event);
+          break;
+        default:
+          throw new AssertionError(event.category);
+      }
+    }
+
+    writer.write("{\n");
+    writer.write("  \"steps\": ");
+    writeTotals(writer, steps, "  ");
+    writer.write(",\n  \"roundTasks\": ");
+    writeTotals(writer, roundTasks, "  ");
+    writer.write(",\n  \"phases\": ");
+    writeTotals(writer, phases, "  ");
+    writer.write(",\n  \"components\": {");
+    for (Iterator<Map.Entry<String, Totals>> iterator = components.entrySet().iterator();
+        iterator.hasNext(); ) {
+      Map.Entry<String, Totals> component = iterator.next();
+      writer.write("\n    " + quote(component.getKey()) + ": {");
+      component.getValue().writeFields(writer);
+      writer.write(", \"phases\": ");
+      writeTotals(
+          writer,
+          componentPhases.getOrDefault(component.getKey(), new LinkedHashMap<>()),
+          "      ");
+      writer.write("}");
+      writer.write(iterator.hasNext() ? "," : "\n  ");
+    }
+    writer.write("}\n");
+    writer.write("}\n");
+  }
+
+  private static Totals totals(Map<String, Totals> totals, String name) {
+    return totals.computeIfAbsent(name, unused -> new Totals());
+  }
+
+  private static void writeTotals(Writer writer, Map<String, Totals> totals, String indent)
+      throws IOException {
+    writer.write("{");
+    for (Iterator<Map.Entry<String, Totals>> iterator = totals.entrySet().iterator();
+        iterator.hasNext(); ) {
+      Map.Entry<String, Totals> entry = iterator.next();
+      writer.write("\n" + indent + "  " + quote(entry.getKey()) + ": {");
+      entry.getValue().writeFields(writer);
+      writer.write("}");
+      writer.write(iterator.hasNext() ? "," : "\n" + indent);
+    }
+    writer.write("}");
+  }
+
+  private void writeTrace(Writer writer) throws IOException {
+    writer.write("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [");
+    for (Iterator<Event> iterator = events.iterator(); iterator.hasNext(); ) {
+      Event event = iterator.next();
+      writer.write("\n  {");
+      writer.write("\"name\": " + quote(event.name));
+      writer.write(", \"cat\": " + quote(event.category));
+      writer.write(", \"ph\": \"X\"");
+      writer.write(", \"ts\": " + NANOSECONDS.toMicros(event.startNanos));
+      writer.write(", \"dur\": " + NANOSECONDS.toMicros(event.wallNanos));
+      writer.write(", \"pid\": 1");
+      writer.write(", \"tid\": " + event.threadId);
+      writer.write(", \"args\": {");
+      if (event.component.isPresent()) {
+        writer.write("\"component\": " + quote(event.component.get()) + ", ");
+      }
+      writer.write("\"cpuMicros\": " + NANOSECONDS.toMicros(event.cpuNanos));
+      writer.write(", \"allocatedBytes\": " + event.allocatedBytes);
+      writer.write("}}");
+      writer.write(iterator.hasNext() ? "," : "\n");
+    }
+    writer.write("]}\n");
+  }
+
+  private static String quote(String string) {
+    StringBuilder quoted = new StringBuilder(string.length() + 2).append('"');
+    for (char c : string.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        quoted.append('\\').append(c);
+      } else if (c < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) c));
+      } else {
+        quoted.append(c);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  /** A single measurement. */
+  private static final class Event {
+    final String category;
+    final String name;
+    final Optional<String> component;
+    final long threadId;
+    final long startNanos;
+    final long wallNanos;
+    final long cpuNanos;
+    final long allocatedBytes;
+
+    Event(
+        String category,
+        String name,
+        Optional<String> component,
+        long threadId,
+        long startNanos,
+        long wallNanos,
+        long cpuNanos,
+        long allocatedBytes) {
+      this.category = category;
+      this.name = name;
+      this.component = component;
+      this.threadId = threadId;
+      this.startNanos = startNanos;
+      this.wallNanos = wallNanos;
+      this.cpuNanos = cpuNanos;
+      this.allocatedBytes = allocatedBytes;
+    }
+  }
+
+  /** The sums of some measurements. */
+  private static final class Totals {
+    int count;
+    long wallNanos;
+    long cpuNanos;
+    long allocatedBytes;
+
+    void add(Event event) {
+      count++;
+      wallNanos += event.wallNanos;
+      cpuNanos += event.cpuNanos;
+      allocatedBytes += event.allocatedBytes;
+    }
+
+    void writeFields(Writer writer) throws IOException {
+      writer.write(
+          String.format(
+              Locale.ROOT,
+              "\"count\": %d, \"wallMillis\": %.3f, \"cpuMillis\": %.3f, \"allocatedBytes\": %d",
+              count, wallNanos / 1e6, cpuNanos / 1e6, allocatedBytes));
+    }
+  }
+}
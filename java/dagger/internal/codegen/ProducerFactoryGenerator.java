@@ -22,7 +22,9 @@ import static com.squareup.javapoet.MethodSpec.constructorBuilder;
 import static com.squareup.javapoet.MethodSpec.methodBuilder;
 import static com.squareup.javapoet.TypeSpec.classBuilder;
 import static dagger.internal.codegen.AnnotationSpecs.Suppression.UNCHECKED;
+import static dagger.internal.codegen.CodeBlocks.joiningCodeBlocks;
 import static dagger.internal.codegen.CodeBlocks.makeParametersCodeBlock;
+import static dagger.internal.codegen.DaggerStreams.toImmutableList;
 import static dagger.internal.codegen.GwtCompatibility.gwtIncompatibleAnnotation;
 import static dagger.internal.codegen.MapKeys.mapKeyFactoryMethod;
 import static dagger.internal.codegen.SourceFiles.frameworkTypeUsageStatement;
@@ -32,18 +34,23 @@ import static dagger.internal.codegen.TypeNames.ASYNC_FUNCTION;
 import static dagger.internal.codegen.TypeNames.EXECUTOR;
 import static dagger.internal.codegen.TypeNames.FUTURES;
 import static dagger.internal.codegen.TypeNames.PRODUCERS;
+import static dagger.internal.codegen.TypeNames.PRODUCER_CACHE;
 import static dagger.internal.codegen.TypeNames.PRODUCER_TOKEN;
 import static dagger.internal.codegen.TypeNames.RUNNABLE;
+import static dagger.internal.codegen.TypeNames.SETTABLE_FUTURE;
 import static dagger.internal.codegen.TypeNames.VOID_CLASS;
 import static dagger.internal.codegen.TypeNames.abstractProducerOf;
 import static dagger.internal.codegen.TypeNames.listOf;
 import static dagger.internal.codegen.TypeNames.listenableFutureOf;
 import static dagger.internal.codegen.TypeNames.producedOf;
+import static dagger.internal.codegen.TypeNames.producerCacheOf;
+import static dagger.internal.codegen.TypeNames.settableFutureOf;
 import static java.util.stream.Collectors.joining;
 import static javax.lang.model.element.Modifier.FINAL;
 import static javax.lang.model.element.Modifier.PRIVATE;
 import static javax.lang.model.element.Modifier.PROTECTED;
 import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.lang.model.element.Modifier.STATIC;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.FluentIterable;
@@ -60,9 +67,10 @@ import com.squareup.javapoet.TypeSpec;
 import dagger.model.Key;
 import dagger.model.RequestKind;
 import dagger.producers.Producer;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import javax.annotation.processing.Filer;
 import javax.lang.model.element.Element;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
@@ -79,8 +87,11 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
   private final CompilerOptions compilerOptions;
 
   ProducerFactoryGenerator(
-      Filer filer, Elements elements, Types types, CompilerOptions compilerOptions) {
-    super(filer, elements);
+      SourceFileWriter sourceFileWriter,
+      Elements elements,
+      Types types,
+      CompilerOptions compilerOptions) {
+    super(sourceFileWriter, elements);
     this.types = types;
     this.compilerOptions = compilerOptions;
   }
@@ -136,6 +147,28 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
     }
     ImmutableMap<Key, FieldSpec> fields = fieldsBuilder.build();
 
+    // The cache is static so that it is shared by the producers of every component.
+    Optional<FieldSpec> cacheField =
+        binding.cacheTtlMillis().isPresent() || binding.coalescesCalls()
+            ? Optional.of(
+                FieldSpec.builder(
+                        producerCacheOf(providedTypeName),
+                        uniqueFieldNames.getUniqueName("cache"),
+                        PRIVATE,
+                        STATIC,
+                        FINAL)
+                    .initializer(
+                        binding.cacheTtlMillis().isPresent()
+                            ? CodeBlock.of(
+                                "$T.create($LL, $LL)",
+                                PRODUCER_CACHE,
+                                binding.cacheTtlMillis().get(),
+                                binding.cacheMaximumSize().get())
+                            : CodeBlock.of("$T.coalescing()", PRODUCER_CACHE))
+                    .build())
+            : Optional.empty();
+    cacheField.ifPresent(factoryBuilder::addField);
+
     constructorBuilder.addStatement(
         "super($N, $L)",
         fields.get(binding.monitorRequest().get().key()),
@@ -158,7 +191,8 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
     ImmutableList<DependencyRequest> asyncDependencies = asyncDependencies(binding);
     for (DependencyRequest dependency : asyncDependencies) {
       TypeName futureType = listenableFutureOf(asyncDependencyType(dependency));
-      CodeBlock futureAccess = CodeBlock.of("$N.get()", fields.get(dependency.key()));
+      CodeBlock futureAccess =
+          CodeBlock.of("$T.dependencyFuture($N)", PRODUCERS, fields.get(dependency.key()));
       computeMethodBuilder.addStatement(
           "$T $L = $L",
           futureType,
@@ -169,10 +203,54 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
     }
     FutureTransform futureTransform = FutureTransform.create(fields, binding, asyncDependencies);
 
-    computeMethodBuilder.addStatement(
-        "return $T.transformAsync($L, this, this)",
-        FUTURES,
-        futureTransform.futureCodeBlock());
+    // When every input is already done, skip the futures that wait for them. Methods that run
+    // directly are then called right away; the others still hop to the executor.
+    boolean runsDirectly = !binding.executorRequest().isPresent();
+    if (runsDirectly && asyncDependencies.isEmpty()) {
+      computeMethodBuilder
+          .addStatement("monitor.ready()")
+          .addStatement(
+              "return $L",
+              withTimeout(
+                  binding,
+                  CodeBlock.of(
+                      "$T.transformDone($L, this)",
+                      PRODUCERS,
+                      futureTransform.doneFutureCodeBlock())));
+    } else {
+      if (runsDirectly || asyncDependencies.size() > 1) {
+        computeMethodBuilder.beginControlFlow(
+            "if ($L)",
+            asyncDependencies
+                .stream()
+                .map(dependency -> CodeBlock.of("$L.isDone()", dependencyFutureName(dependency)))
+                .collect(joiningCodeBlocks(" && ")));
+        if (runsDirectly) {
+          computeMethodBuilder
+              .addStatement("monitor.ready()")
+              .addStatement(
+                  "return $L",
+                  withTimeout(
+                      binding,
+                      CodeBlock.of(
+                          "$T.transformDone($L, this)",
+                          PRODUCERS,
+                          futureTransform.doneFutureCodeBlock())));
+        } else {
+          computeMethodBuilder.addStatement(
+              "return $L",
+              withTimeout(
+                  binding,
+                  transformAsync(binding, futureTransform.doneFutureCodeBlock())));
+        }
+        computeMethodBuilder.endControlFlow();
+      }
+      computeMethodBuilder.addStatement(
+          "return $L",
+          withTimeout(
+              binding,
+              transformAsync(binding, futureTransform.futureCodeBlock())));
+    }
 
     factoryBuilder
         .addSuperinterface(
@@ -194,7 +272,9 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
                     generatedTypeName,
                     binding,
                     providedTypeName,
-                    futureTransform.parameterCodeBlocks()));
+                    futureTransform.parameterCodeBlocks(),
+                    cacheField,
+                    futureTransform.applyArgName()));
     if (futureTransform.hasUncheckedCast()) {
       applyMethodBuilder.addAnnotation(AnnotationSpecs.suppressWarnings(UNCHECKED));
     }
@@ -206,8 +286,13 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
             .addAnnotation(Deprecated.class)
             .addAnnotation(Override.class)
             .addParameter(RUNNABLE, "runnable")
-            .addStatement("monitor.ready()")
-            .addStatement("executorProvider.get().execute(runnable)");
+            .addStatement("monitor.ready()");
+    if (binding.executorRequest().isPresent()) {
+      executeMethodBuilder.addStatement("executorProvider.get().execute(runnable)");
+    } else {
+      // The method runs directly, on the thread that completed its inputs.
+      executeMethodBuilder.addStatement("runnable.run()");
+    }
 
     factoryBuilder.addMethod(constructorBuilder.build());
     factoryBuilder.addMethod(computeMethodBuilder.build());
@@ -237,6 +322,27 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
     constructorBuilder.addStatement("this.$1N = $1N", field);
   }
 
+  /**
+   * Returns a future that calls the producer method with the value of {@code input} on the
+   * executor, hedged if the binding has a hedge delay.
+   */
+  private static CodeBlock transformAsync(ProductionBinding binding, CodeBlock input) {
+    return binding.hedgeDelayMillis().isPresent()
+        ? CodeBlock.of(
+            "$T.hedgedTransformAsync($L, this, this, $LL)",
+            PRODUCERS,
+            input,
+            binding.hedgeDelayMillis().get())
+        : CodeBlock.of("$T.transformAsync($L, this, this)", FUTURES, input);
+  }
+
+  /** Wraps {@code future} so that it fails after the binding's timeout, if it has one. */
+  private static CodeBlock withTimeout(ProductionBinding binding, CodeBlock future) {
+    return binding.timeoutMillis().isPresent()
+        ? CodeBlock.of("$T.withTimeout($L, $LL)", PRODUCERS, future, binding.timeoutMillis().get())
+        : future;
+  }
+
   /** Returns a list of dependencies that are generated asynchronously. */
   private static ImmutableList<DependencyRequest> asyncDependencies(Binding binding) {
     final ImmutableMap<DependencyRequest, FrameworkDependency> frameworkDependencies =
@@ -284,6 +390,14 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
     /** The code block representing the future that should be transformed. */
     abstract CodeBlock futureCodeBlock();
 
+    /**
+     * The code block representing the future that should be transformed, for use when every input
+     * future is already done.
+     */
+    CodeBlock doneFutureCodeBlock() {
+      return futureCodeBlock();
+    }
+
     /** The type of the argument to the apply method. */
     abstract TypeName applyArgType();
 
@@ -403,10 +517,37 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
 
     @Override
     CodeBlock futureCodeBlock() {
+      CodeBlock allAsList =
+          CodeBlock.of(
+              "$T.<$T>allAsList($L)",
+              FUTURES,
+              OBJECT,
+              asyncDependencies
+                  .stream()
+                  .map(ProducerFactoryGenerator::dependencyFutureName)
+                  .collect(joining(", ")));
+      // Produced inputs never fail, so only the others can fail the list. When one does, the
+      // others are no longer needed.
+      ImmutableList<String> failingInputs =
+          asyncDependencies
+              .stream()
+              .filter(dependency -> !dependency.kind().equals(RequestKind.PRODUCED))
+              .map(ProducerFactoryGenerator::dependencyFutureName)
+              .collect(toImmutableList());
+      return failingInputs.size() > 1
+          ? CodeBlock.of(
+              "$T.cancelInputsOnFailure($L, $L)",
+              PRODUCERS,
+              allAsList,
+              String.join(", ", failingInputs))
+          : allAsList;
+    }
+
+    @Override
+    CodeBlock doneFutureCodeBlock() {
       return CodeBlock.of(
-          "$T.<$T>allAsList($L)",
-          FUTURES,
-          OBJECT,
+          "$T.doneAsList($L)",
+          PRODUCERS,
           asyncDependencies
               .stream()
               .map(ProducerFactoryGenerator::dependencyFutureName)
@@ -482,12 +623,18 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
    * @param binding The binding to generate the invocation code block for.
    * @param providedTypeName The type name that should be provided by this producer.
    * @param parameterCodeBlocks The code blocks for all the parameters to the producer method.
+   * @param cacheField The field of the method's cache, if its results are cached or its calls are
+   *     coalesced.
+   * @param applyArgName The name of the apply method's parameter, which local variables must not
+   *     shadow.
    */
   private CodeBlock getInvocationCodeBlock(
       ClassName generatedTypeName,
       ProductionBinding binding,
       TypeName providedTypeName,
-      ImmutableList<CodeBlock> parameterCodeBlocks) {
+      ImmutableList<CodeBlock> parameterCodeBlocks,
+      Optional<FieldSpec> cacheField,
+      String applyArgName) {
     CodeBlock moduleCodeBlock =
         CodeBlock.of(
             "$L.$L($L)",
@@ -518,6 +665,53 @@ final class ProducerFactoryGenerator extends SourceFileGenerator<ProductionBindi
       default:
         throw new AssertionError();
     }
+    if (cacheField.isPresent()) {
+      UniqueNameSet localNames = new UniqueNameSet();
+      localNames.claim(applyArgName);
+      String cacheKey = localNames.getUniqueName("cacheKey");
+      String pendingFuture = localNames.getUniqueName("pendingFuture");
+      String cachedFuture = localNames.getUniqueName("cachedFuture");
+      String thrown = localNames.getUniqueName("thrown");
+      // The pending future is added to the cache before the method is called, so that concurrent
+      // requests with the same arguments wait for it instead of calling the method again. It must
+      // be completed even if the method throws.
+      return CodeBlock.builder()
+          .addStatement(
+              "$T<$T> $L = $T.<$T>asList($L)",
+              List.class,
+              OBJECT,
+              cacheKey,
+              Arrays.class,
+              OBJECT,
+              makeParametersCodeBlock(parameterCodeBlocks))
+          .addStatement(
+              "$T $L = $T.create()",
+              settableFutureOf(providedTypeName),
+              pendingFuture,
+              SETTABLE_FUTURE)
+          .addStatement(
+              "$T $L = $N.putIfAbsent($L, $L)",
+              listenableFutureOf(providedTypeName),
+              cachedFuture,
+              cacheField.get(),
+              cacheKey,
+              pendingFuture)
+          .beginControlFlow("if ($L != null)", cachedFuture)
+          .addStatement("monitor.cacheHit()")
+          .addStatement("return $L", cachedFuture)
+          .endControlFlow()
+          .addStatement("monitor.methodStarting()")
+          .beginControlFlow("try")
+          .addStatement("$L.setFuture($L)", pendingFuture, returnCodeBlock)
+          .addStatement("return $T.nonCancellationPropagating($L)", FUTURES, pendingFuture)
+          .nextControlFlow("catch ($T $L)", Throwable.class, thrown)
+          .addStatement("$L.setException($L)", pendingFuture, thrown)
+          .addStatement("throw $L", thrown)
+          .nextControlFlow("finally")
+          .addStatement("monitor.methodFinished()")
+          .endControlFlow()
+          .build();
+    }
     return CodeBlock.of(
         Joiner.on('\n')
             .join(
@@ -20,21 +20,31 @@ import static com.google.common.collect.Iterables.getOnlyElement;
 import static dagger.internal.codegen.BindingMethodValidator.Abstractness.MUST_BE_CONCRETE;
 import static dagger.internal.codegen.BindingMethodValidator.AllowsMultibindings.ALLOWS_MULTIBINDINGS;
 import static dagger.internal.codegen.BindingMethodValidator.ExceptionSuperclass.EXCEPTION;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_CACHED_FRAMEWORK_PARAMETER;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_CACHE_MAXIMUM_SIZE;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_HEDGED_CACHED;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_HEDGED_DIRECT_EXECUTION;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_NEGATIVE_CACHE_TTL;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_NEGATIVE_HEDGE_DELAY;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_NEGATIVE_TIMEOUT;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_NULLABLE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_RAW_FUTURE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_RETURN_TYPE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SCOPE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SET_VALUES_RETURN_SET;
+import static dagger.internal.codegen.RequestKinds.getRequestKind;
 import static dagger.internal.codegen.Scopes.scopesOf;
 
 import com.google.auto.common.MoreTypes;
 import com.google.common.util.concurrent.ListenableFuture;
+import dagger.model.RequestKind;
 import dagger.multibindings.ElementsIntoSet;
 import dagger.producers.ProducerModule;
 import dagger.producers.Produces;
 import java.util.Optional;
 import java.util.Set;
 import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
@@ -64,6 +74,9 @@ final class ProducesMethodValidator extends BindingMethodValidator {
     super.checkMethod(builder);
     checkNullable(builder);
     checkScope(builder);
+    checkTimeout(builder);
+    checkHedging(builder);
+    checkCaching(builder);
   }
 
   /** Adds a warning if a {@link Produces @Produces} method is declared nullable. */
@@ -81,6 +94,57 @@ final class ProducesMethodValidator extends BindingMethodValidator {
     }
   }
 
+  /** Adds an error if a {@link Produces @Produces} method has a negative timeout. */
+  private void checkTimeout(ValidationReport.Builder<ExecutableElement> builder) {
+    if (ProductionBinding.Factory.timeoutMillis(builder.getSubject()) < 0) {
+      builder.addError(PRODUCES_METHOD_NEGATIVE_TIMEOUT);
+    }
+  }
+
+  /**
+   * Adds an error if a {@link Produces @Produces} method has a negative hedge delay, or is hedged
+   * but runs directly or is cached or coalesced. The second call of a hedged method that ran
+   * directly would run on the timer thread, and the second call of a cached or coalesced method
+   * would join the first one instead of calling the method again.
+   */
+  private void checkHedging(ValidationReport.Builder<ExecutableElement> builder) {
+    ExecutableElement method = builder.getSubject();
+    long hedgeDelayMillis = ProductionBinding.Factory.hedgeDelayMillis(method);
+    if (hedgeDelayMillis < 0) {
+      builder.addError(PRODUCES_METHOD_NEGATIVE_HEDGE_DELAY);
+    } else if (hedgeDelayMillis > 0) {
+      if (ProductionBinding.Factory.execution(method).equals(Produces.Execution.DIRECT)) {
+        builder.addError(PRODUCES_METHOD_HEDGED_DIRECT_EXECUTION);
+      }
+      if (ProductionBinding.Factory.cacheTtlMillis(method) > 0
+          || ProductionBinding.Factory.coalesce(method)) {
+        builder.addError(PRODUCES_METHOD_HEDGED_CACHED);
+      }
+    }
+  }
+
+  /**
+   * Adds an error if a {@link Produces @Produces} method has a negative cache TTL, or is cached but
+   * has a non-positive maximum cache size, or is cached or coalesced but has a parameter whose
+   * value can't be part of a cache key.
+   */
+  private void checkCaching(ValidationReport.Builder<ExecutableElement> builder) {
+    ExecutableElement method = builder.getSubject();
+    long cacheTtlMillis = ProductionBinding.Factory.cacheTtlMillis(method);
+    if (cacheTtlMillis < 0) {
+      builder.addError(PRODUCES_METHOD_NEGATIVE_CACHE_TTL);
+    } else if (cacheTtlMillis > 0 && ProductionBinding.Factory.cacheMaximumSize(method) <= 0) {
+      builder.addError(PRODUCES_METHOD_CACHE_MAXIMUM_SIZE);
+    }
+    if (cacheTtlMillis > 0 || ProductionBinding.Factory.coalesce(method)) {
+      for (VariableElement parameter : method.getParameters()) {
+        if (!getRequestKind(parameter.asType()).equals(RequestKind.INSTANCE)) {
+          builder.addError(PRODUCES_METHOD_CACHED_FRAMEWORK_PARAMETER, parameter);
+        }
+      }
+    }
+  }
+
   @Override
   protected String badReturnTypeMessage() {
     return formatErrorMessage(PRODUCES_METHOD_RETURN_TYPE);
@@ -16,8 +16,10 @@
 
 package dagger.internal.codegen;
 
+import static com.google.auto.common.AnnotationMirrors.getAnnotationValue;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static dagger.internal.codegen.DaggerElements.getAnnotationMirror;
 import static dagger.internal.codegen.DaggerStreams.toImmutableSet;
 import static dagger.internal.codegen.MapKeys.getMapKey;
 import static dagger.internal.codegen.MoreAnnotationMirrors.wrapOptionalInEquivalence;
@@ -33,12 +35,20 @@ import com.google.errorprone.annotations.CheckReturnValue;
 import dagger.model.Key;
 import dagger.model.RequestKind;
 import dagger.producers.Producer;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import java.lang.annotation.Annotation;
 import java.util.Optional;
 import java.util.stream.Stream;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.AnnotationValueVisitor;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ExecutableType;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.SimpleAnnotationValueVisitor8;
 import javax.lang.model.util.Types;
 
 /**
@@ -91,11 +101,38 @@ abstract class ProductionBinding extends ContributionBinding {
 
   /**
    * If this production requires an executor, this will be the corresponding request.  All
-   * production bindings from {@code @Produces} methods will have an executor request, but
-   * synthetic production bindings may not.
+   * production bindings from {@code @Produces} methods will have an executor request, unless they
+   * run {@linkplain Produces.Execution#DIRECT directly}, but synthetic production bindings may not.
    */
   abstract Optional<DependencyRequest> executorRequest();
 
+  /**
+   * The number of milliseconds after which the production fails if it hasn't finished, if it has a
+   * timeout. Only production bindings from {@code @Produces} methods may have one.
+   */
+  abstract Optional<Long> timeoutMillis();
+
+  /**
+   * The number of milliseconds after which the producer method is called a second time if the
+   * first call hasn't finished, if it is hedged.
+   */
+  abstract Optional<Long> hedgeDelayMillis();
+
+  /**
+   * The number of milliseconds for which the results of the producer method are cached across
+   * components, if they are cached.
+   */
+  abstract Optional<Long> cacheTtlMillis();
+
+  /** The maximum number of results in the producer method's cache, if its results are cached. */
+  abstract Optional<Long> cacheMaximumSize();
+
+  /**
+   * True if concurrent calls of the producer method with equal arguments, from any component, are
+   * coalesced into one.
+   */
+  abstract boolean coalescesCalls();
+
   /** If this production requires a monitor, this will be the corresponding request.  All
    * production bindings from {@code @Produces} methods will have a monitor request, but synthetic
    * production bindings may not.
@@ -105,7 +142,8 @@ abstract class ProductionBinding extends ContributionBinding {
   private static Builder builder() {
     return new AutoValue_ProductionBinding.Builder()
         .explicitDependencies(ImmutableList.<DependencyRequest>of())
-        .thrownTypes(ImmutableList.<TypeMirror>of());
+        .thrownTypes(ImmutableList.<TypeMirror>of())
+        .coalescesCalls(false);
   }
 
   @AutoValue.Builder
@@ -123,6 +161,16 @@ abstract class ProductionBinding extends ContributionBinding {
 
     abstract Builder monitorRequest(DependencyRequest monitorRequest);
 
+    abstract Builder timeoutMillis(Long timeoutMillis);
+
+    abstract Builder hedgeDelayMillis(Long hedgeDelayMillis);
+
+    abstract Builder cacheTtlMillis(Long cacheTtlMillis);
+
+    abstract Builder cacheMaximumSize(Long cacheMaximumSize);
+
+    abstract Builder coalescesCalls(boolean coalescesCalls);
+
     @CheckReturnValue
     abstract ProductionBinding build();
   }
@@ -150,8 +198,6 @@ abstract class ProductionBinding extends ContributionBinding {
           dependencyRequestFactory.forRequiredResolvedVariables(
               producesMethod.getParameters(),
               resolvedMethod.getParameterTypes());
-      DependencyRequest executorRequest =
-          dependencyRequestFactory.forProductionImplementationExecutor();
       DependencyRequest monitorRequest = dependencyRequestFactory.forProductionComponentMonitor();
       final ProductionKind productionKind;
       if (MoreTypes.isTypeOf(ListenableFuture.class, producesMethod.getReturnType())) {
@@ -164,21 +210,122 @@ abstract class ProductionBinding extends ContributionBinding {
         productionKind = ProductionKind.IMMEDIATE;
       }
       // TODO(beder): Add nullability checking with Java 8.
-      return ProductionBinding.builder()
-          .contributionType(contributionType)
-          .bindingElement(producesMethod)
-          .contributingModule(contributedBy)
-          .key(key)
-          .explicitDependencies(dependencies)
-          .wrappedMapKey(wrapOptionalInEquivalence(getMapKey(producesMethod)))
-          .bindingKind(Kind.PRODUCTION)
-          .productionKind(productionKind)
-          .thrownTypes(producesMethod.getThrownTypes())
-          .executorRequest(executorRequest)
-          .monitorRequest(monitorRequest)
-          .build();
+      ProductionBinding.Builder builder =
+          ProductionBinding.builder()
+              .contributionType(contributionType)
+              .bindingElement(producesMethod)
+              .contributingModule(contributedBy)
+              .key(key)
+              .explicitDependencies(dependencies)
+              .wrappedMapKey(wrapOptionalInEquivalence(getMapKey(producesMethod)))
+              .bindingKind(Kind.PRODUCTION)
+              .productionKind(productionKind)
+              .thrownTypes(producesMethod.getThrownTypes())
+              .monitorRequest(monitorRequest);
+      if (!execution(producesMethod).equals(Produces.Execution.DIRECT)) {
+        builder.executorRequest(dependencyRequestFactory.forProductionImplementationExecutor());
+      }
+      long timeoutMillis = timeoutMillis(producesMethod);
+      if (timeoutMillis > 0) {
+        builder.timeoutMillis(timeoutMillis);
+      }
+      long hedgeDelayMillis = hedgeDelayMillis(producesMethod);
+      if (hedgeDelayMillis > 0) {
+        builder.hedgeDelayMillis(hedgeDelayMillis);
+      }
+      long cacheTtlMillis = cacheTtlMillis(producesMethod);
+      if (cacheTtlMillis > 0) {
+        builder
+            .cacheTtlMillis(cacheTtlMillis)
+            .cacheMaximumSize(cacheMaximumSize(producesMethod));
+      }
+      builder.coalescesCalls(coalesce(producesMethod));
+      return builder.build();
+    }
+
+    /**
+     * Returns how {@code producesMethod} is run: its own {@link Produces#execution()}, or else the
+     * {@link ProducerModule#execution()} of the module that declares it.
+     */
+    static Produces.Execution execution(ExecutableElement producesMethod) {
+      Produces.Execution execution = execution(producesMethod, Produces.class);
+      return execution.equals(Produces.Execution.DEFAULT)
+          ? execution(producesMethod.getEnclosingElement(), ProducerModule.class)
+          : execution;
+    }
+
+    private static Produces.Execution execution(
+        Element element, Class<? extends Annotation> annotationType) {
+      return annotationValue(element, annotationType, "execution")
+          .map(value -> value.accept(AS_EXECUTION, null))
+          .orElse(Produces.Execution.DEFAULT);
+    }
+
+    /**
+     * Returns the timeout of {@code producesMethod}: its own {@link Produces#timeoutMillis()}, or
+     * else the {@link ProducerModule#timeoutMillis()} of the module that declares it. Zero means
+     * there is no timeout; negative values are reported by {@link ProducesMethodValidator}.
+     */
+    static long timeoutMillis(ExecutableElement producesMethod) {
+      long timeoutMillis = timeoutMillis(producesMethod, Produces.class);
+      return timeoutMillis == 0
+          ? timeoutMillis(producesMethod.getEnclosingElement(), ProducerModule.class)
+          : timeoutMillis;
+    }
+
+    private static long timeoutMillis(Element element, Class<? extends Annotation> annotationType) {
+      return longValue(element, annotationType, "timeoutMillis");
+    }
+
+    /**
+     * Returns the {@link Produces#hedgeDelayMillis()} of {@code producesMethod}. Zero means that it
+     * isn't hedged; negative values are reported by {@link ProducesMethodValidator}.
+     */
+    static long hedgeDelayMillis(ExecutableElement producesMethod) {
+      return longValue(producesMethod, Produces.class, "hedgeDelayMillis");
     }
 
+    /**
+     * Returns the {@link Produces#cacheTtlMillis()} of {@code producesMethod}. Zero means that its
+     * results aren't cached; negative values are reported by {@link ProducesMethodValidator}.
+     */
+    static long cacheTtlMillis(ExecutableElement producesMethod) {
+      return longValue(producesMethod, Produces.class, "cacheTtlMillis");
+    }
+
+    /** Returns the {@link Produces#cacheMaximumSize()} of {@code producesMethod}. */
+    static long cacheMaximumSize(ExecutableElement producesMethod) {
+      return longValue(producesMethod, Produces.class, "cacheMaximumSize");
+    }
+
+    /** Returns the {@link Produces#coalesce()} of {@code producesMethod}. */
+    static boolean coalesce(ExecutableElement producesMethod) {
+      return annotationValue(producesMethod, Produces.class, "coalesce")
+          .map(value -> (Boolean) value.getValue())
+          .orElse(false);
+    }
+
+    private static long longValue(
+        Element element, Class<? extends Annotation> annotationType, String attribute) {
+      return annotationValue(element, annotationType, attribute)
+          .map(value -> (Long) value.getValue())
+          .orElse(0L);
+    }
+
+    private static Optional<AnnotationValue> annotationValue(
+        Element element, Class<? extends Annotation> annotationType, String attribute) {
+      return getAnnotationMirror(element, annotationType)
+          .map(annotation -> getAnnotationValue(annotation, attribute));
+    }
+
+    private static final AnnotationValueVisitor<Produces.Execution, Void> AS_EXECUTION =
+        new SimpleAnnotationValueVisitor8<Produces.Execution, Void>(Produces.Execution.DEFAULT) {
+          @Override
+          public Produces.Execution visitEnumConstant(VariableElement constant, Void p) {
+            return Produces.Execution.valueOf(constant.getSimpleName().toString());
+          }
+        };
+
     /**
      * A synthetic binding that depends explicitly on a set of individual provision or production
      * multibinding contribution methods.
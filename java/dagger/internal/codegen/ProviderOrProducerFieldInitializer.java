@@ -37,6 +37,7 @@ import static dagger.internal.codegen.SourceFiles.setFactoryClassName;
 import static dagger.internal.codegen.TypeNames.DOUBLE_CHECK;
 import static dagger.internal.codegen.TypeNames.INSTANCE_FACTORY;
 import static dagger.internal.codegen.TypeNames.MEMBERS_INJECTORS;
+import static dagger.internal.codegen.TypeNames.PRODUCERS;
 import static dagger.internal.codegen.TypeNames.REFERENCE_RELEASING_PROVIDER;
 import static dagger.internal.codegen.TypeNames.SINGLE_CHECK;
 import static dagger.internal.codegen.TypeNames.TYPED_RELEASABLE_REFERENCE_MANAGER_DECORATOR;
@@ -301,7 +302,9 @@ final class ProviderOrProducerFieldInitializer extends FrameworkFieldInitializer
                     ComponentRequirement.forModule(binding.contributingModule().get().asType()),
                     generatedComponentModel.name()));
           }
-          arguments.addAll(getBindingDependencyExpressions(binding));
+          for (FrameworkDependency dependency : binding.frameworkDependencies()) {
+            arguments.add(productionDependencyExpression((ProductionBinding) binding, dependency));
+          }
 
           setFieldTypeReplacement(generatedClassNameForBinding(binding));
           return CodeBlock.of(
@@ -354,6 +357,26 @@ final class ProviderOrProducerFieldInitializer extends FrameworkFieldInitializer
     }
   }
 
+  /**
+   * Returns the expression for a dependency of a production binding. If {@linkplain
+   * CompilerOptions#criticalPathScheduling() critical path scheduling} is enabled, the executor is
+   * given the binding's priority.
+   */
+  private CodeBlock productionDependencyExpression(
+      ProductionBinding binding, FrameworkDependency dependency) {
+    CodeBlock expression = getDependencyExpression(dependency);
+    if (compilerOptions.criticalPathScheduling()
+        && binding.executorRequest().isPresent()
+        && binding.executorRequest().get().key().equals(dependency.key())) {
+      return CodeBlock.of(
+          "$T.executorWithPriority($L, $L)",
+          PRODUCERS,
+          expression,
+          graph.producerCriticalPathLengths().getOrDefault(binding.key(), 1));
+    }
+    return expression;
+  }
+
   private ComponentRequirement dependencyForBinding(ContributionBinding binding) {
     return graph
         .componentDescriptor()
@@ -41,10 +41,23 @@ abstract class SourceFileGenerator<T> {
   private static final String GENERATED_COMMENTS = "https://google.github.io/dagger";
 
   private final Filer filer;
+  private final Optional<SourceFileWriter> sourceFileWriter;
   private final Elements elements;
 
+  /** Creates a generator that writes each file to {@code filer} as it is generated. */
   SourceFileGenerator(Filer filer, Elements elements) {
     this.filer = checkNotNull(filer);
+    this.sourceFileWriter = Optional.empty();
+    this.elements = checkNotNull(elements);
+  }
+
+  /**
+   * Creates a generator that submits each file to {@code sourceFileWriter}, which renders it
+   * concurrently and writes it when {@linkplain SourceFileWriter#flush flushed}.
+   */
+  SourceFileGenerator(SourceFileWriter sourceFileWriter, Elements elements) {
+    this.filer = sourceFileWriter.filer();
+    this.sourceFileWriter = Optional.of(sourceFileWriter);
     this.elements = checkNotNull(elements);
   }
 
@@ -60,7 +73,11 @@ abstract class SourceFileGenerator<T> {
     }
   }
 
-  /** Generates a source file to be compiled for {@code T}. */
+  /**
+   * Generates a source file to be compiled for {@code T}. If this generator was created with a
+   * {@link SourceFileWriter}, the file is written, and any failure to write it is reported, when
+   * the writer is flushed.
+   */
   void generate(T input) throws SourceFileGenerationException {
     ClassName generatedTypeName = nameGeneratedType(input);
     Optional<TypeSpec.Builder> type = write(generatedTypeName, input);
@@ -68,7 +85,13 @@ abstract class SourceFileGenerator<T> {
       return;
     }
     try {
-      buildJavaFile(generatedTypeName, type.get()).writeTo(filer);
+      originatingElement(input).ifPresent(type.get()::addOriginatingElement);
+      JavaFile javaFile = buildJavaFile(generatedTypeName, type.get());
+      if (sourceFileWriter.isPresent()) {
+        sourceFileWriter.get().write(javaFile, getElementForErrorReporting(input));
+      } else {
+        javaFile.writeTo(filer);
+      }
     } catch (Exception e) {
       // if the code above threw a SFGE, use that
       Throwables.propagateIfPossible(e, SourceFileGenerationException.class);
@@ -109,6 +132,16 @@ abstract class SourceFileGenerator<T> {
    */
   abstract Optional<? extends Element> getElementForErrorReporting(T input);
 
+  /**
+   * Returns the element that the generated type is derived from. It is recorded as the originating
+   * element of the generated file, which lets incremental builds regenerate the file only when the
+   * element changes. Defaults to the {@linkplain #getElementForErrorReporting element used to
+   * report errors}.
+   */
+  Optional<? extends Element> originatingElement(T input) {
+    return getElementForErrorReporting(input);
+  }
+
   /**
    * Returns a {@link TypeSpec.Builder type} to be generated for {@code T}, or {@link
    * Optional#empty()} if no file should be generated.
@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.googlejavaformat.java.Formatter;
+import com.google.googlejavaformat.java.FormatterException;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.JavaFile;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+
+/**
+ * Renders {@link JavaFile}s to source text on a bounded pool, and writes them to the {@link Filer}
+ * on the processor thread when {@link #flush(Messager) flushed}. If the writer has a {@link
+ * Formatter}, rendering includes formatting the text, so the filer should not format it again.
+ *
+ * <p>Rendering a {@link JavaFile} only reads JavaPoet's immutable specs, and formatting only reads
+ * the rendered text, so both can happen concurrently. javac's {@link Filer} is not thread-safe, so
+ * the files are created one at a time, in the order in which they were {@linkplain #write
+ * submitted}, which keeps the output deterministic.
+ */
+final class SourceFileWriter {
+  private final Filer filer;
+  private final Optional<Formatter> formatter;
+  private final int threadCount = Runtime.getRuntime().availableProcessors();
+  private final List<PendingSourceFile> pendingSourceFiles = new ArrayList<>();
+  private ExecutorService executor;
+
+  /** Creates a writer that writes files as JavaPoet renders them. */
+  SourceFileWriter(Filer filer) {
+    this(filer, Optional.empty());
+  }
+
+  /** Creates a writer that formats files with {@code formatter}, if present, after rendering. */
+  SourceFileWriter(Filer filer, Optional<Formatter> formatter) {
+    this.filer = checkNotNull(filer);
+    this.formatter = checkNotNull(formatter);
+  }
+
+  Filer filer() {
+    return filer;
+  }
+
+  /**
+   * Starts rendering {@code javaFile}. It is written by the next call to {@link #flush(Messager)}.
+   */
+  void write(JavaFile javaFile, Optional<? extends Element> elementForErrorReporting) {
+    pendingSourceFiles.add(
+        new PendingSourceFile(
+            javaFile, elementForErrorReporting, executor().submit(() -> render(javaFile))));
+  }
+
+  private String render(JavaFile javaFile) {
+    String source = javaFile.toString();
+    if (!formatter.isPresent()) {
+      return source;
+    }
+    try {
+      return formatter.get().formatSource(source);
+    } catch (FormatterException e) {
+      // Like google-java-format's FormattingFiler, write the unformatted source, so that the code
+      // with the problem can be read.
+      return source;
+    }
+  }
+
+  /**
+   * Writes every file that has been submitted since the last flush, in the order they were
+   * submitted. Failures to render or write a file are reported to {@code messager}.
+   */
+  void flush(Messager messager) {
+    List<PendingSourceFile> sourceFiles = new ArrayList<>(pendingSourceFiles);
+    pendingSourceFiles.clear();
+    for (PendingSourceFile sourceFile : sourceFiles) {
+      try {
+        sourceFile.writeTo(filer);
+      } catch (SourceFileGenerationException e) {
+        e.printMessageTo(messager);
+      }
+    }
+  }
+
+  /** Stops the threads used to render source files. */
+  void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+      executor = null;
+    }
+  }
+
+  private ExecutorService executor() {
+    if (executor == null) {
+      // With a single processor, render on the processor thread. Failures are still reported
+      // when the file is flushed.
+      executor =
+          threadCount > 1
+              ? Executors.newFixedThreadPool(
+                  threadCount,
+                  new ThreadFactoryBuilder()
+                      .setDaemon(true)
+                      .setNameFormat("dagger-source-file-writer-%d")
+                      .build())
+              : newDirectExecutorService();
+    }
+    return executor;
+  }
+
+  /** A file that has been submitted but not yet written. */
+  private static final class PendingSourceFile {
+    final JavaFile javaFile;
+    final Optional<? extends Element> elementForErrorReporting;
+    final Future<String> source;
+
+    PendingSourceFile(
+        JavaFile javaFile,
+        Optional<? extends Element> elementForErrorReporting,
+        Future<String> source) {
+      this.javaFile = javaFile;
+      this.elementForErrorReporting = elementForErrorReporting;
+      this.source = source;
+    }
+
+    /**
+     * Writes the file the same way as {@link JavaFile#writeTo(Filer)}, deleting it if it could not
+     * be written.
+     */
+    void writeTo(Filer filer) throws SourceFileGenerationException {
+      ClassName generatedTypeName = ClassName.get(javaFile.packageName, javaFile.typeSpec.name);
+      try {
+        String sourceText = getUninterruptibly(source);
+        JavaFileObject sourceFile =
+            filer.createSourceFile(
+                generatedTypeName.reflectionName(),
+                javaFile.typeSpec.originatingElements.toArray(new Element[0]));
+        try (Writer writer = sourceFile.openWriter()) {
+          writer.write(sourceText);
+        } catch (Exception e) {
+          try {
+            sourceFile.delete();
+          } catch (Exception ignored) {
+            // Report the original failure.
+          }
+          throw e;
+        }
+      } catch (ExecutionException e) {
+        throw new SourceFileGenerationException(
+            Optional.of(generatedTypeName), e.getCause(), elementForErrorReporting);
+      } catch (Exception e) {
+        throw new SourceFileGenerationException(Optional.empty(), e, elementForErrorReporting);
+      }
+    }
+  }
+}
@@ -18,6 +18,12 @@ import static java.util.Arrays.stream;
 public class SymEncGenerator extends SourceFileGenerator<SymEncPara> {
     public static final String PREFIX = "SecureDagger_";
 
+    private static final ClassName ENCRYPTOR_MONITOR = ClassName.get("dagger", "EncryptorMonitor");
+    private static final ClassName ENCRYPTOR_MONITOR_OPERATION = ENCRYPTOR_MONITOR.nestedClass("Operation");
+    private static final ClassName ENCRYPTOR_MONITORS = ClassName.get("dagger.internal", "EncryptorMonitors");
+    private static final TypeName BYTE_ARRAY = ArrayTypeName.of(TypeName.BYTE);
+    private static final CodeBlock NANO_TIME = CodeBlock.of("$T.nanoTime()", ClassName.get("java.lang", "System"));
+
     private DaggerTypes types;
 
     public SymEncGenerator(Filer filer, DaggerTypes types, Elements elements) {
@@ -37,6 +43,11 @@ public class SymEncGenerator extends SourceFileGenerator<SymEncPara> {
         return Optional.empty();
     }
 
+    @Override
+    Optional<? extends Element> originatingElement(SymEncPara input) {
+        return Optional.of(input.typeElement());
+    }
+
     @Override
     Optional<TypeSpec.Builder> write(ClassName generatedTypeName, SymEncPara input) {
         TypeSpec.Builder builder = classBuilder(generatedTypeName).addModifiers(Modifier.PUBLIC);
@@ -52,6 +63,8 @@ public class SymEncGenerator extends SourceFileGenerator<SymEncPara> {
         addField(builder, "javax.crypto.spec", "IvParameterSpec", "ivParameterSpec", Modifier.PRIVATE);
         addField(builder, "java.lang", "String", "algorithms", Modifier.PRIVATE);
         addField(builder, "javax.crypto", "Cipher", "cipher", Modifier.PRIVATE);
+        //null unless monitors are installed, so that unmonitored encryptors never read the clock
+        builder.addField(FieldSpec.builder(ENCRYPTOR_MONITOR, "monitor", Modifier.PRIVATE, Modifier.VOLATILE).build());
         builder.addField(FieldSpec.builder(nameGeneratedType(input), "instance", Modifier.PRIVATE, Modifier.STATIC, Modifier.VOLATILE).build());
         builder.addField(FieldSpec.builder(ClassName.get("java.lang", "Object"), "syn").addModifiers(Modifier.PRIVATE,Modifier.STATIC).initializer(makeNewBlock(CodeBlock.of("$L", ClassName.get("java.lang", "Object")), Optional.empty())).build());
         if(hasMethodPara(input)){
@@ -210,6 +223,16 @@ public class SymEncGenerator extends SourceFileGenerator<SymEncPara> {
                formatCatchParaCodeBlock(exception), CodeBlock.of("e")).add(catchStatement).endControlFlow().build();
     }
 
+    /**
+     * make a try block whose checked exceptions are handled by catchStatement, followed by a catch of RuntimeException
+     * that is handled by runtimeCatchStatement
+     */
+    private CodeBlock makeTryCatchBlock(CodeBlock tryStatement, CodeBlock catchStatement, CodeBlock runtimeCatchStatement, TypeName... exception){
+        return CodeBlock.builder().beginControlFlow("try").add(tryStatement).nextControlFlow("catch($L $L)",
+                formatCatchParaCodeBlock(exception), CodeBlock.of("e")).add(catchStatement)
+                .nextControlFlow("catch($T $L)", ClassName.get("java.lang", "RuntimeException"), CodeBlock.of("e")).add(runtimeCatchStatement).endControlFlow().build();
+    }
+
     private CodeBlock formatCatchParaCodeBlock(TypeName... parameters){
         List<CodeBlock> list = stream(parameters).map(parameter -> CodeBlock.of("$T", parameter)).collect(Collectors.toList());
         return list.stream().collect(CodeBlocks.joiningCodeBlocks("|"));
@@ -218,45 +241,77 @@ public class SymEncGenerator extends SourceFileGenerator<SymEncPara> {
     private void writeMethods(TypeSpec.Builder builder, SymEncPara input){
         addEncMethod(builder, input);
         addDecMethod(builder,input);
+        addInstallMonitorsMethod(builder);
         addGetMethods(builder, input);
     }
 
 
     private void addEncMethod(TypeSpec.Builder builder, SymEncPara input){
-        MethodSpec.Builder encMethodBuilder = MethodSpec.methodBuilder("encrypt").addModifiers(Modifier.PUBLIC).returns(ClassName.get("java.lang","String"));
-        encMethodBuilder.addParameter(ClassName.get("java.lang","String"), "input");
-        CodeBlock.Builder tryBuilder = CodeBlock.builder();
-        LinkedList<String> cipherInitPara = new LinkedList<>();
-        cipherInitPara.add("Cipher.ENCRYPT_MODE");
-        cipherInitPara.add("secretKey");
-        cipherInitPara.add("ivParameterSpec");
-        addStatement(tryBuilder, makeInvokeCodeBlock(CodeBlock.of("$L", "cipher"), "init", Optional.of(makeParametersCodeBlock(cipherInitPara))));
-        tryBuilder.addStatement("return $L", makeInvokeCodeBlock(makeInvokeCodeBlock(CodeBlock.of("$T", ClassName.get("java.util", "Base64")), "getEncoder", Optional.empty()), "encodeToString",
-                Optional.of(makeInvokeCodeBlock(CodeBlock.of("$L", "cipher"), "doFinal", Optional.of(makeInvokeCodeBlock(CodeBlock.of("$L", "input"), "getBytes", Optional.empty()))))));
-        encMethodBuilder.addCode(makeTryCatchBlock(tryBuilder.build(), getDefaultCatchBlock(), ClassName.get("java.security", "InvalidAlgorithmParameterException"),
-                ClassName.get("java.security", "InvalidKeyException"), ClassName.get("javax.crypto", "BadPaddingException"),
-                ClassName.get("javax.crypto", "IllegalBlockSizeException")));
-        encMethodBuilder.addCode("return null;");
-        builder.addMethod(encMethodBuilder.build());
+        addCipherMethod(builder, "encrypt", "ENCRYPT_MODE", "ENCRYPT",
+                makeInvokeCodeBlock(CodeBlock.of("$L", "input"), "getBytes", Optional.empty()),
+                makeInvokeCodeBlock(makeInvokeCodeBlock(CodeBlock.of("$T", ClassName.get("java.util", "Base64")), "getEncoder", Optional.empty()), "encodeToString",
+                        Optional.of(CodeBlock.of("outputBytes"))));
     }
 
     private void addDecMethod(TypeSpec.Builder builder, SymEncPara input){
-        MethodSpec.Builder decMethodBuilder = MethodSpec.methodBuilder("decrypt").addModifiers(Modifier.PUBLIC).returns(ClassName.get("java.lang","String"));
-        decMethodBuilder.addParameter(ClassName.get("java.lang", "String"), "input");
+        addCipherMethod(builder, "decrypt", "DECRYPT_MODE", "DECRYPT",
+                makeInvokeCodeBlock(makeInvokeCodeBlock(CodeBlock.of("$T", ClassName.get("java.util", "Base64")), "getDecoder", Optional.empty()), "decode",
+                        Optional.of(makeInvokeCodeBlock(CodeBlock.of("$L", "input"), "getBytes", Optional.empty()))),
+                makeNewBlock(CodeBlock.of("$T", ClassName.get("java.lang", "String")), Optional.of(CodeBlock.of("outputBytes"))));
+    }
+
+    /**
+     * make the encrypt or decrypt method, the bytes passed through the cipher and the latency are reported to the
+     * installed monitor; when no monitor is installed the clock is never read
+     */
+    private void addCipherMethod(TypeSpec.Builder builder, String methodName, String cipherMode, String operation, CodeBlock inputBytes, CodeBlock result){
+        MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder(methodName).addModifiers(Modifier.PUBLIC).returns(ClassName.get("java.lang", "String"));
+        methodBuilder.addParameter(ClassName.get("java.lang", "String"), "input");
+        CodeBlock operationBlock = CodeBlock.of("$T.$L", ENCRYPTOR_MONITOR_OPERATION, operation);
+        addStatement(methodBuilder, makeAssignBlock(ENCRYPTOR_MONITOR, "monitor", CodeBlock.of("this.monitor")));
+        addStatement(methodBuilder, makeAssignBlock(TypeName.LONG, "startNanos", CodeBlock.of("monitor == null ? 0L : $L", NANO_TIME)));
+
         CodeBlock.Builder tryBuilder = CodeBlock.builder();
         LinkedList<String> cipherInitPara = new LinkedList<>();
-        cipherInitPara.add("Cipher.DECRYPT_MODE");
+        cipherInitPara.add("Cipher." + cipherMode);
         cipherInitPara.add("secretKey");
         cipherInitPara.add("ivParameterSpec");
-        addStatement(tryBuilder, makeInvokeCodeBlock(CodeBlock.of("cipher"), "init", Optional.of(makeParametersCodeBlock(cipherInitPara))));
-        tryBuilder.addStatement("return $L", makeNewBlock(CodeBlock.of("$T", ClassName.get("java.lang","String")), Optional.of(makeInvokeCodeBlock(CodeBlock.of("$L", "cipher"), "doFinal",
-                Optional.of(makeInvokeCodeBlock(makeInvokeCodeBlock(CodeBlock.of("$T", ClassName.get("java.util", "Base64")), "getDecoder", Optional.empty()), "decode",
-                        Optional.of(makeInvokeCodeBlock(CodeBlock.of("$L", "input"),"getBytes", Optional.empty()))))))));
-        decMethodBuilder.addCode(makeTryCatchBlock(tryBuilder.build(), getDefaultCatchBlock(), ClassName.get("java.security", "InvalidAlgorithmParameterException"),
+        addStatement(tryBuilder, makeInvokeCodeBlock(CodeBlock.of("$L", "cipher"), "init", Optional.of(makeParametersCodeBlock(cipherInitPara))));
+        addStatement(tryBuilder, makeAssignBlock(BYTE_ARRAY, "inputBytes", inputBytes));
+        addStatement(tryBuilder, makeAssignBlock(BYTE_ARRAY, "outputBytes", makeInvokeCodeBlock(CodeBlock.of("$L", "cipher"), "doFinal", Optional.of(CodeBlock.of("inputBytes")))));
+        tryBuilder.add(makeIfBlock(CodeBlock.of("monitor != null"), CodeBlock.builder().addStatement("monitor.recordSuccess($L, inputBytes.length, outputBytes.length, $L - startNanos)", operationBlock, NANO_TIME).build(), Optional.empty()));
+        tryBuilder.addStatement("return $L", result);
+
+        CodeBlock recordFailure = makeIfBlock(CodeBlock.of("monitor != null"), CodeBlock.builder().addStatement("monitor.recordFailure($L, e, $L - startNanos)", operationBlock, NANO_TIME).build(), Optional.empty());
+        CodeBlock.Builder catchBuilder = CodeBlock.builder();
+        catchBuilder.add(recordFailure);
+        catchBuilder.add(getDefaultCatchBlock());
+
+        //runtime exceptions, such as Base64's IllegalArgumentException on malformed input, are reported and rethrown
+        CodeBlock.Builder runtimeCatchBuilder = CodeBlock.builder();
+        runtimeCatchBuilder.add(recordFailure);
+        runtimeCatchBuilder.addStatement("throw e");
+
+        methodBuilder.addCode(makeTryCatchBlock(tryBuilder.build(), catchBuilder.build(), runtimeCatchBuilder.build(), ClassName.get("java.security", "InvalidAlgorithmParameterException"),
                 ClassName.get("java.security", "InvalidKeyException"), ClassName.get("javax.crypto", "BadPaddingException"),
                 ClassName.get("javax.crypto", "IllegalBlockSizeException")));
-        decMethodBuilder.addCode("return null;");
-        builder.addMethod(decMethodBuilder.build());
+        methodBuilder.addCode("return null;");
+        builder.addMethod(methodBuilder.build());
+    }
+
+    private void addStatement(MethodSpec.Builder builder, CodeBlock codeBlock){
+        builder.addStatement("$L", codeBlock);
+    }
+
+    /**
+     * make the method that installs the monitors created by a set of {@link dagger.EncryptorMonitor.Factory}, the set is
+     * usually a multibinding
+     */
+    private void addInstallMonitorsMethod(TypeSpec.Builder builder){
+        MethodSpec.Builder installMonitors = MethodSpec.methodBuilder("installMonitors").addModifiers(Modifier.PUBLIC);
+        installMonitors.addParameter(ParameterizedTypeName.get(ClassName.get("java.util", "Set"), ENCRYPTOR_MONITOR.nestedClass("Factory")), "factories");
+        addStatement(installMonitors, makeAssignThisBlock("monitor", CodeBlock.of("$T.createMonitorForEncryptor(this, factories)", ENCRYPTOR_MONITORS)));
+        builder.addMethod(installMonitors.build());
     }
 
     private void addGetMethods(TypeSpec.Builder builder, SymEncPara input){
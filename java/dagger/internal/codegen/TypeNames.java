@@ -19,6 +19,7 @@ package dagger.internal.codegen;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
@@ -42,6 +43,7 @@ import dagger.producers.internal.AbstractProducer;
 import dagger.producers.internal.MapOfProducedProducer;
 import dagger.producers.internal.MapOfProducerProducer;
 import dagger.producers.internal.MapProducer;
+import dagger.producers.internal.ProducerCache;
 import dagger.producers.internal.Producers;
 import dagger.producers.internal.SetOfProducedProducer;
 import dagger.producers.internal.SetProducer;
@@ -76,6 +78,7 @@ final class TypeNames {
   static final ClassName MEMBERS_INJECTOR = ClassName.get(MembersInjector.class);
   static final ClassName MEMBERS_INJECTORS = ClassName.get(MembersInjectors.class);
   static final ClassName OPTIONAL = ClassName.get(Optional.class);
+  static final ClassName PRODUCER_CACHE = ClassName.get(ProducerCache.class);
   static final ClassName PRODUCER_TOKEN = ClassName.get(ProducerToken.class);
   static final ClassName PRODUCED = ClassName.get(Produced.class);
   static final ClassName PRODUCER = ClassName.get(Producer.class);
@@ -91,6 +94,7 @@ final class TypeNames {
       ClassName.get(ReferenceReleasingProviderManager.class);
   static final ClassName SET = ClassName.get(Set.class);
   static final ClassName SET_FACTORY = ClassName.get(SetFactory.class);
+  static final ClassName SETTABLE_FUTURE = ClassName.get(SettableFuture.class);
   static final ClassName SET_OF_PRODUCED_PRODUCER = ClassName.get(SetOfProducedProducer.class);
   static final ClassName SET_PRODUCER = ClassName.get(SetProducer.class);
   static final ClassName SINGLE_CHECK = ClassName.get(SingleCheck.class);
@@ -135,6 +139,10 @@ final class TypeNames {
     return ParameterizedTypeName.get(PRODUCED, typeName);
   }
 
+  static ParameterizedTypeName producerCacheOf(TypeName typeName) {
+    return ParameterizedTypeName.get(PRODUCER_CACHE, typeName);
+  }
+
   static ParameterizedTypeName producerOf(TypeName typeName) {
     return ParameterizedTypeName.get(PRODUCER, typeName);
   }
@@ -147,6 +155,10 @@ final class TypeNames {
     return ParameterizedTypeName.get(SET, elementType);
   }
 
+  static ParameterizedTypeName settableFutureOf(TypeName typeName) {
+    return ParameterizedTypeName.get(SETTABLE_FUTURE, typeName);
+  }
+
   /**
    * Returns the {@link TypeName} for the raw type of the given type name. If the argument isn't a
    * parameterized type, it returns the argument unchanged.
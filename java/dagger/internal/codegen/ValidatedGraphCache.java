@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
+import static javax.tools.Diagnostic.Kind.WARNING;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * An opt-in cache of the fingerprints of the binding graphs that were validated without any
+ * diagnostics, kept in the directory given by {@code -Adagger.graphCacheDirectory=<path>} so that
+ * it survives from one build to the next.
+ *
+ * <p>A graph's fingerprint covers its resolved bindings, the compiler options, and the declarations
+ * of every type that participates in the graph: the components, their builders, modules and
+ * dependencies, the types that declare each binding, and the types named by each key. If a build
+ * resolves a graph with the same fingerprint as one that was validated before, validating it again
+ * would report nothing, so validation is skipped. Any difference falls back to a full validation.
+ *
+ * <p>Graphs are still resolved in every build: a {@link BindingGraph} refers to the elements of the
+ * current compilation, so it cannot be read back from disk. A hit therefore only saves the
+ * difference between validating a graph and fingerprinting it, which is why the fingerprint uses a
+ * fast non-cryptographic hash. The {@code fingerprint} and {@code validation} phases of {@code
+ * -Adagger.profile} and {@code LargeGraphBenchmark --graphCache=false,true} measure that
+ * difference.
+ */
+final class ValidatedGraphCache {
+  /** Changes whenever the contents of a fingerprint change. */
+  private static final int FINGERPRINT_VERSION = 2;
+
+  private final Optional<Path> directory;
+  private final String compilerOptions;
+
+  ValidatedGraphCache(CompilerOptions compilerOptions) {
+    this.directory = compilerOptions.graphCacheDirectory().map(Paths::get);
+    this.compilerOptions = compilerOptions.toString();
+  }
+
+  /** Returns true if {@code -Adagger.graphCacheDirectory} was passed. */
+  boolean isEnabled() {
+    return directory.isPresent();
+  }
+
+  /**
+   * Returns the fingerprint of {@code graph}.
+   *
+   * @throws IllegalStateException if the cache is disabled
+   */
+  String fingerprint(BindingGraph graph) {
+    checkState(isEnabled(), "The graph cache is disabled");
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    put(hasher, FINGERPRINT_VERSION);
+    put(hasher, compilerOptions);
+    Set<TypeElement> participatingTypes = new LinkedHashSet<>();
+    putGraph(hasher, graph, participatingTypes);
+    for (TypeElement type : participatingTypes) {
+      putDeclaration(hasher, type);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns true if a graph for the same component with the same {@code fingerprint} was validated
+   * without any diagnostics.
+   */
+  boolean wasValidated(BindingGraph graph, String fingerprint) {
+    try {
+      return new String(Files.readAllBytes(cacheFile(graph)), UTF_8).equals(fingerprint);
+    } catch (IOException e) {
+      // A missing or unreadable entry just means the graph is validated again.
+      return false;
+    }
+  }
+
+  /**
+   * Records that {@code graph} was validated, if its validation {@code report} has no diagnostics.
+   * Failures to write the cache are reported as warnings.
+   */
+  void recordValidation(
+      BindingGraph graph,
+      String fingerprint,
+      ValidationReport<TypeElement> report,
+      Messager messager) {
+    if (!hasNoItems(report)) {
+      return;
+    }
+    Path cacheFile = cacheFile(graph);
+    try {
+      Files.createDirectories(directory.get());
+      Files.write(cacheFile, fingerprint.getBytes(UTF_8));
+    } catch (IOException e) {
+      messager.printMessage(
+          WARNING, "Could not write the Dagger graph cache to " + cacheFile + ": " + e);
+    }
+  }
+
+  private Path cacheFile(BindingGraph graph) {
+    return directory.get().resolve(graph.componentType().getQualifiedName() + ".fingerprint");
+  }
+
+  private static boolean hasNoItems(ValidationReport<?> report) {
+    return report.items().isEmpty()
+        && report.subreports().stream().allMatch(ValidatedGraphCache::hasNoItems);
+  }
+
+  private void putGraph(Hasher hasher, BindingGraph graph, Set<TypeElement> participatingTypes) {
+    ComponentDescriptor component = graph.componentDescriptor();
+    put(hasher, "component", component.componentDefinitionType());
+    participatingTypes.add(component.componentDefinitionType());
+    component
+        .builderSpec()
+        .ifPresent(builderSpec -> participatingTypes.add(builderSpec.builderDefinitionType()));
+    for (ModuleDescriptor module : component.transitiveModules()) {
+      participatingTypes.add(module.moduleElement());
+    }
+    for (ComponentRequirement dependency : component.dependencies()) {
+      participatingTypes.add(dependency.typeElement());
+    }
+
+    for (ResolvedBindings resolvedBindings :
+        sorted(graph.resolvedBindings(), resolved -> resolved.key().toString())) {
+      put(
+          hasher,
+          "key",
+          resolvedBindings.key(),
+          resolvedBindings.owningComponent().componentDefinitionType());
+      addTypes(resolvedBindings.key().type(), participatingTypes);
+      for (Binding binding : sorted(resolvedBindings.bindings(), ValidatedGraphCache::describe)) {
+        put(hasher, describe(binding));
+        binding.bindingTypeElement().ifPresent(participatingTypes::add);
+        binding.contributingModule().ifPresent(participatingTypes::add);
+        for (DependencyRequest dependency : binding.dependencies()) {
+          put(hasher, "dependency", dependency.kind(), dependency.key(), dependency.isNullable());
+        }
+      }
+      for (BindingDeclaration declaration : resolvedBindings.multibindingDeclarations()) {
+        declaration.bindingTypeElement().ifPresent(participatingTypes::add);
+      }
+      for (BindingDeclaration declaration : resolvedBindings.subcomponentDeclarations()) {
+        declaration.bindingTypeElement().ifPresent(participatingTypes::add);
+      }
+      for (BindingDeclaration declaration : resolvedBindings.optionalBindingDeclarations()) {
+        declaration.bindingTypeElement().ifPresent(participatingTypes::add);
+      }
+    }
+
+    for (BindingGraph subgraph :
+        sorted(graph.subgraphs(), subgraph -> subgraph.componentType().toString())) {
+      putGraph(hasher, subgraph, participatingTypes);
+    }
+  }
+
+  private static String describe(Binding binding) {
+    StringBuilder description =
+        new StringBuilder().append(binding.bindingType()).append(' ').append(binding.key());
+    if (binding instanceof ContributionBinding) {
+      ContributionBinding contributionBinding = (ContributionBinding) binding;
+      description
+          .append(' ')
+          .append(contributionBinding.bindingKind())
+          .append(' ')
+          .append(contributionBinding.contributionType());
+    }
+    binding.bindingElement().ifPresent(element -> description.append(' ').append(element));
+    binding.bindingTypeElement().ifPresent(type -> description.append(" in ").append(type));
+    binding.contributingModule().ifPresent(module -> description.append(" from ").append(module));
+    binding.scope().ifPresent(scope -> description.append(' ').append(scope));
+    return description.toString();
+  }
+
+  /** Adds the type elements named by {@code type} and its type arguments. */
+  private static void addTypes(TypeMirror type, Set<TypeElement> types) {
+    if (type.getKind().equals(TypeKind.DECLARED)) {
+      DeclaredType declaredType = (DeclaredType) type;
+      types.add((TypeElement) declaredType.asElement());
+      for (TypeMirror typeArgument : declaredType.getTypeArguments()) {
+        addTypes(typeArgument, types);
+      }
+    } else if (type.getKind().equals(TypeKind.ARRAY)) {
+      addTypes(((ArrayType) type).getComponentType(), types);
+    }
+  }
+
+  /**
+   * Puts everything about {@code type}'s declaration that validation can read: its modifiers,
+   * annotations, supertypes, and the signatures, annotations and constant values of its members.
+   */
+  private static void putDeclaration(Hasher hasher, TypeElement type) {
+    put(
+        hasher,
+        "type",
+        type.getQualifiedName(),
+        type.getKind(),
+        type.getModifiers(),
+        type.getAnnotationMirrors(),
+        type.getTypeParameters(),
+        type.getSuperclass(),
+        type.getInterfaces());
+    for (Element member : type.getEnclosedElements()) {
+      put(
+          hasher,
+          "member",
+          member.getKind(),
+          member.getSimpleName(),
+          member.getModifiers(),
+          member.getAnnotationMirrors(),
+          member.asType());
+      if (member instanceof ExecutableElement) {
+        ExecutableElement method = (ExecutableElement) member;
+        for (VariableElement parameter : method.getParameters()) {
+          put(hasher, "parameter", parameter.getSimpleName(), parameter.getAnnotationMirrors());
+        }
+        put(hasher, "throws", method.getThrownTypes(), method.getDefaultValue());
+      } else if (member instanceof VariableElement) {
+        put(hasher, "constant", ((VariableElement) member).getConstantValue());
+      }
+    }
+    // Injected members and @Inject constructors' visibility can depend on the superclasses.
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind().equals(TypeKind.DECLARED)) {
+      TypeElement superclassElement = (TypeElement) ((DeclaredType) superclass).asElement();
+      if (!superclassElement.getQualifiedName().contentEquals("java.lang.Object")) {
+        putDeclaration(hasher, superclassElement);
+      }
+    }
+  }
+
+  private static void put(Hasher hasher, Object... values) {
+    for (Object value : values) {
+      hasher.putString(String.valueOf(value), UTF_8).putByte((byte) 0);
+    }
+    hasher.putByte((byte) '\n');
+  }
+
+  private static <T> Iterable<T> sorted(Set<T> values, Function<? super T, String> sortKey) {
+    return () -> values.stream().sorted(comparing(sortKey)).iterator();
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers;
+
+import dagger.internal.Beta;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link Production @Production} executor that can run some producers ahead of others.
+ * Components that are generated with {@code -Adagger.criticalPathScheduling=ENABLED} pass each
+ * producer's priority to it, which is the number of producer methods on the longest chain of
+ * producers that depend on it. Other components, and executors that don't implement this
+ * interface, run every producer with the same priority.
+ *
+ * <p>{@code dagger.producers.executors.PriorityExecutorModule} binds an implementation.
+ */
+@Beta
+public interface PrioritizedExecutor extends Executor {
+  /**
+   * Runs {@code runnable} at some point, before any waiting runnable that has a lower {@code
+   * priority}. {@link #execute(Runnable)} runs it with priority {@code 0}.
+   */
+  void execute(Runnable runnable, int priority);
+}
@@ -50,4 +50,18 @@ public @interface ProducerModule {
    * @since 2.7
    */
   Class<?>[] subcomponents() default {};
+
+  /**
+   * How the {@link Produces} methods of this module that don't specify their own {@link
+   * Produces#execution()} are run once their inputs are available. The default, {@link
+   * Produces.Execution#DEFAULT}, submits them to the component's {@link Production @Production}
+   * executor.
+   */
+  Produces.Execution execution() default Produces.Execution.DEFAULT;
+
+  /**
+   * The {@link Produces#timeoutMillis()} of the {@link Produces} methods of this module that don't
+   * specify their own. The default, {@code 0}, means that they have no timeout.
+   */
+  long timeoutMillis() default 0;
 }
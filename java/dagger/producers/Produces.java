@@ -31,10 +31,112 @@ import java.lang.annotation.Target;
  * future provides; otherwise, the return type is bound to the returned value. The production
  * component will pass dependencies to the method as parameters.
  *
+ * <p>By default, the method is submitted to the component's {@link Production @Production}
+ * executor once its inputs are available. See {@link #execution()} for running it directly instead.
+ *
  * @author Jesse Beder
  */
 @Documented
 @Target(METHOD)
 @Retention(RUNTIME)
 @Beta
-public @interface Produces {}
+public @interface Produces {
+  /**
+   * How the method is run once its inputs are available. The default, {@link Execution#DEFAULT},
+   * uses the {@link ProducerModule#execution()} of the module that declares the method.
+   */
+  Execution execution() default Execution.DEFAULT;
+
+  /**
+   * The number of milliseconds after which the producer fails with a {@link
+   * java.util.concurrent.TimeoutException} if it hasn't finished. The time is measured from when
+   * the producer is first requested, so it includes the time spent waiting for its inputs and for
+   * the executor. On timeout, the future returned by the method is cancelled.
+   *
+   * <p>Dependents that request a {@link Produced Produced&lt;T&gt;} can use the failure to fall
+   * back to another value, and {@link dagger.producers.monitoring.ProducerMonitor#failed} is
+   * called with the exception.
+   *
+   * <p>The default, {@code 0}, uses the {@link ProducerModule#timeoutMillis()} of the module that
+   * declares the method.
+   */
+  long timeoutMillis() default 0;
+
+  /**
+   * The number of milliseconds to wait for the method's future before calling the method again, or
+   * {@code 0}, the default, to call it only once. The delay is measured from when the method's
+   * inputs are available.
+   *
+   * <p>If the first call's future hasn't completed after the delay, the method is called a second
+   * time with the same arguments, and the producer completes like whichever of the two futures
+   * completes first. The other one is then cancelled. This trades extra load for a lower tail
+   * latency, so it should only be used for idempotent methods, such as reads from a replicated
+   * backend.
+   *
+   * <p>For the second call, the {@link dagger.producers.monitoring.ProducerMonitor}'s {@code
+   * ready()}, {@code methodStarting()} and {@code methodFinished()} methods are called again.
+   * Methods that are {@linkplain Execution#DIRECT run directly}, and methods that have a {@link
+   * #cacheTtlMillis()} or are {@linkplain #coalesce() coalesced}, may not be hedged.
+   */
+  long hedgeDelayMillis() default 0;
+
+  /**
+   * The number of milliseconds for which the method's result is cached, or {@code 0}, the default,
+   * to not cache it.
+   *
+   * <p>The cache is shared by every component that installs the method's module, and is keyed by
+   * the method's arguments, so a cached method must be a pure function of its arguments: it may not
+   * depend on {@link Producer}, {@link Produced}, {@link javax.inject.Provider} or {@link
+   * dagger.Lazy} parameters, nor on the state of its module instance. When a component requests a
+   * cached method with the same arguments as an earlier request, from any component, the method
+   * isn't called again; the producer completes with the earlier result instead, or with the earlier
+   * future if it is still in progress. Failed results are not cached.
+   *
+   * <p>On a cache hit, {@link dagger.producers.monitoring.ProducerMonitor#cacheHit()} is called
+   * instead of {@code methodStarting()} and {@code methodFinished()}.
+   */
+  long cacheTtlMillis() default 0;
+
+  /**
+   * The maximum number of results kept in the method's cache, if it has a {@link
+   * #cacheTtlMillis()}. Beyond that, the least recently used ones are evicted.
+   */
+  long cacheMaximumSize() default 1000;
+
+  /**
+   * True if concurrent calls of the method with equal arguments, from any component, should be
+   * coalesced into one. When the method is requested with the same arguments as a call that is
+   * still in progress, it isn't called again; the producer completes with the result of that call
+   * instead. Unlike with {@link #cacheTtlMillis()}, results are forgotten as soon as they are
+   * available.
+   *
+   * <p>This protects a backend from bursts of identical requests, such as when many components
+   * miss an external cache at the same time. Coalesced methods have the same restrictions as
+   * cached ones, and {@link dagger.producers.monitoring.ProducerMonitor#cacheHit()} is called for
+   * each request that joins a call in progress. A method that has a {@link #cacheTtlMillis()} is
+   * always coalesced.
+   */
+  boolean coalesce() default false;
+
+  /** How a producer method is run once its inputs are available. */
+  enum Execution {
+    /**
+     * For a {@code @Produces} method, the {@link ProducerModule#execution()} of its module. For a
+     * module, {@link #PRODUCTION_EXECUTOR}.
+     */
+    DEFAULT,
+
+    /** Submits the method to the component's {@link Production @Production} executor. */
+    PRODUCTION_EXECUTOR,
+
+    /**
+     * Runs the method on the thread that completes the last of its inputs, or on the thread that
+     * requests it if its inputs are already complete, without submitting it to an executor.
+     *
+     * <p>This saves the cost of a hand-off to the executor, so it suits methods that only
+     * repackage their inputs. Methods that block or do a lot of work should not use it, since
+     * they would hold up the thread that completed their inputs.
+     */
+    DIRECT,
+  }
+}
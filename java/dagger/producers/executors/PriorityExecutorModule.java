@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.executors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import dagger.Module;
+import dagger.Provides;
+import dagger.internal.Beta;
+import dagger.producers.Production;
+import java.util.concurrent.Executor;
+
+/**
+ * Binds a {@link Production @Production} executor that runs the producers on the critical path of
+ * a component first.
+ *
+ * <p>When a component is generated with {@code -Adagger.criticalPathScheduling=ENABLED}, each of
+ * its producers has a priority: the number of producer methods on the longest chain of producers
+ * that depend on it, including itself. When more producer methods are ready than there are
+ * threads, this executor runs the ones with the highest priority first, so that the methods that
+ * the most work is waiting for don't queue behind leaves that nothing else is waiting for yet.
+ * Methods of the same priority run in the order they became ready. Without that option, every
+ * producer has the same priority.
+ *
+ * <p>Every component created with the same module instance shares its pool of threads.
+ */
+@Beta
+@Module
+public final class PriorityExecutorModule {
+  private final PriorityThreadPoolExecutor executor;
+
+  /** Creates a module whose executor has one thread per available processor. */
+  public PriorityExecutorModule() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /** Creates a module whose executor has {@code threadCount} threads. */
+  public PriorityExecutorModule(int threadCount) {
+    checkArgument(threadCount > 0, "threadCount must be positive: %s", threadCount);
+    this.executor = new PriorityThreadPoolExecutor(threadCount);
+  }
+
+  @Provides
+  @Production
+  Executor executor() {
+    return executor;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.executors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import dagger.producers.PrioritizedExecutor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed pool of daemon threads that takes waiting tasks in order of priority, highest first, and
+ * in the order they were submitted among tasks of the same priority.
+ */
+final class PriorityThreadPoolExecutor implements PrioritizedExecutor {
+  private final ThreadPoolExecutor threads;
+  private final AtomicLong submittedTasks = new AtomicLong();
+
+  PriorityThreadPoolExecutor(int threadCount) {
+    this.threads =
+        new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            60,
+            SECONDS,
+            new PriorityBlockingQueue<Runnable>(),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("dagger-producer-%d")
+                .build());
+    // Idle components shouldn't keep threads around.
+    threads.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public void execute(Runnable runnable) {
+    execute(runnable, 0);
+  }
+
+  @Override
+  public void execute(Runnable runnable, int priority) {
+    threads.execute(new Task(checkNotNull(runnable), priority, submittedTasks.getAndIncrement()));
+  }
+
+  private static final class Task implements Runnable, Comparable<Task> {
+    private final Runnable runnable;
+    private final int priority;
+    private final long sequenceNumber;
+
+    Task(Runnable runnable, int priority, long sequenceNumber) {
+      this.runnable = runnable;
+      this.priority = priority;
+      this.sequenceNumber = sequenceNumber;
+    }
+
+    @Override
+    public void run() {
+      runnable.run();
+    }
+
+    @Override
+    public int compareTo(Task other) {
+      if (priority != other.priority) {
+        return priority > other.priority ? -1 : 1;
+      }
+      return sequenceNumber < other.sequenceNumber ? -1 : 1;
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.executors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import dagger.producers.monitoring.ProducerMonitor;
+import dagger.producers.monitoring.ProducerToken;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An executor that runs each task on a new virtual thread, or on a cached pool of daemon threads if
+ * the JVM doesn't support virtual threads. At most {@code maxConcurrency} tasks run at once; the
+ * others wait in a queue, in the order they were submitted.
+ *
+ * <p>Nothing here blocks or holds a lock, so this executor never pins a virtual thread to its
+ * carrier thread.
+ */
+final class ThreadPerTaskExecutor implements Executor {
+  private static final String THREAD_NAME_PREFIX = "dagger-producer-";
+
+  private final Executor threads = newThreadExecutor();
+  private final int maxConcurrency;
+  private final Queue<Runnable> waitingTasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger runningTasks = new AtomicInteger();
+
+  /** The name that the current thread had before it started a task, if it is one of ours. */
+  private final ThreadLocal<String> originalThreadName = new ThreadLocal<>();
+
+  ThreadPerTaskExecutor(int maxConcurrency) {
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    checkNotNull(task);
+    if (maxConcurrency == Integer.MAX_VALUE) {
+      threads.execute(new Task(task));
+    } else {
+      waitingTasks.add(task);
+      startWaitingTasks();
+    }
+  }
+
+  /** Starts waiting tasks until there are none, or {@code maxConcurrency} tasks are running. */
+  private void startWaitingTasks() {
+    while (!waitingTasks.isEmpty() && tryReserve()) {
+      Runnable task = waitingTasks.poll();
+      if (task == null) {
+        // Another thread took the last task between the check and the poll.
+        runningTasks.decrementAndGet();
+      } else {
+        threads.execute(new Task(task));
+      }
+    }
+  }
+
+  private boolean tryReserve() {
+    while (true) {
+      int running = runningTasks.get();
+      if (running >= maxConcurrency) {
+        return false;
+      }
+      if (runningTasks.compareAndSet(running, running + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Returns a factory for monitors that name the executor's threads after the producer method
+   * that's running on them.
+   */
+  ProductionComponentMonitor.Factory threadNamingMonitorFactory() {
+    return new ProductionComponentMonitor.Factory() {
+      @Override
+      public ProductionComponentMonitor create(Object component) {
+        return new ProductionComponentMonitor() {
+          @Override
+          public ProducerMonitor producerMonitorFor(ProducerToken token) {
+            return new ThreadNamingProducerMonitor(token);
+          }
+        };
+      }
+    };
+  }
+
+  private final class ThreadNamingProducerMonitor extends ProducerMonitor {
+    private final ProducerToken token;
+
+    ThreadNamingProducerMonitor(ProducerToken token) {
+      this.token = token;
+    }
+
+    @Override
+    public void methodStarting() {
+      if (originalThreadName.get() != null) {
+        Thread.currentThread().setName(THREAD_NAME_PREFIX + token);
+      }
+    }
+
+    @Override
+    public void methodFinished() {
+      String name = originalThreadName.get();
+      if (name != null) {
+        Thread.currentThread().setName(name);
+      }
+    }
+  }
+
+  /** Runs a task, and then, if the number of tasks is limited, starts the next one. */
+  private final class Task implements Runnable {
+    private final Runnable delegate;
+
+    Task(Runnable delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void run() {
+      Thread thread = Thread.currentThread();
+      String name = thread.getName();
+      originalThreadName.set(name);
+      try {
+        delegate.run();
+      } finally {
+        thread.setName(name);
+        originalThreadName.remove();
+        if (maxConcurrency != Integer.MAX_VALUE) {
+          runningTasks.decrementAndGet();
+          startWaitingTasks();
+        }
+      }
+    }
+  }
+
+  private static Executor newThreadExecutor() {
+    try {
+      // Thread.ofVirtual().name(THREAD_NAME_PREFIX, 0).factory(), which needs Java 21.
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder =
+          builderClass
+              .getMethod("name", String.class, long.class)
+              .invoke(builder, THREAD_NAME_PREFIX, 0L);
+      final ThreadFactory threadFactory =
+          (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return new Executor() {
+        @Override
+        public void execute(Runnable task) {
+          threadFactory.newThread(task).start();
+        }
+      };
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat(THREAD_NAME_PREFIX + "%d")
+              .build());
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.executors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import dagger.Module;
+import dagger.Provides;
+import dagger.internal.Beta;
+import dagger.multibindings.IntoSet;
+import dagger.producers.Production;
+import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.concurrent.Executor;
+
+/**
+ * Binds a {@link Production @Production} executor that runs each producer method on its own
+ * virtual thread, so that producers that block, for example on I/O, do not tie up a fixed pool of
+ * threads.
+ *
+ * <p>On JVMs that don't support virtual threads, the methods run on a cached pool of daemon
+ * threads instead. Use a concurrency limit on those JVMs if many producers block at once.
+ *
+ * <p>While a producer method runs, its thread is named after the method's {@linkplain
+ * dagger.producers.monitoring.ProducerToken token}, which makes thread dumps readable. This is done
+ * by a {@link ProductionComponentMonitor} that the module also binds.
+ *
+ * <p>Every component created with the same module instance shares its executor, and so its
+ * concurrency limit.
+ */
+@Beta
+@Module
+public final class VirtualThreadExecutorModule {
+  private final ThreadPerTaskExecutor executor;
+
+  /** Creates a module whose executor runs any number of producer methods at once. */
+  public VirtualThreadExecutorModule() {
+    this.executor = new ThreadPerTaskExecutor(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Creates a module whose executor runs at most {@code maxConcurrency} producer methods at once.
+   * The others wait, without holding a thread, and start in the order they became ready.
+   */
+  public VirtualThreadExecutorModule(int maxConcurrency) {
+    checkArgument(maxConcurrency > 0, "maxConcurrency must be positive: %s", maxConcurrency);
+    this.executor = new ThreadPerTaskExecutor(maxConcurrency);
+  }
+
+  @Provides
+  @Production
+  Executor executor() {
+    return executor;
+  }
+
+  @Provides
+  @IntoSet
+  ProductionComponentMonitor.Factory threadNamingMonitorFactory() {
+    return executor.threadNamingMonitorFactory();
+  }
+}
@@ -17,26 +17,58 @@
 package dagger.producers.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import dagger.producers.Producer;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
 import dagger.producers.monitoring.internal.Monitors;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import javax.inject.Provider;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
 /**
  * An abstract {@link Producer} implementation that memoizes the result of its compute method.
  *
+ * <p>Other producers that depend on this one should request it with {@link
+ * Producers#dependencyFuture}, so that this producer is cancelled once none of them is waiting for
+ * it anymore, unless it has also been requested through {@link #get}.
+ *
  * @author Jesse Beder
  * @since 2.0
  */
 public abstract class AbstractProducer<T> implements Producer<T> {
+  @SuppressWarnings("rawtypes") // field updaters can't be parameterized
+  private static final AtomicReferenceFieldUpdater<AbstractProducer, ListenableFuture> INSTANCE =
+      AtomicReferenceFieldUpdater.newUpdater(
+          AbstractProducer.class, ListenableFuture.class, "instance");
+
+  @SuppressWarnings("rawtypes") // field updaters can't be parameterized
+  private static final AtomicIntegerFieldUpdater<AbstractProducer> DEPENDENTS_STATE =
+      AtomicIntegerFieldUpdater.newUpdater(AbstractProducer.class, "dependentsState");
+
+  /** The value of {@link #dependentsState} once this producer has been cancelled by dependents. */
+  private static final int CANCELLED_BY_DEPENDENTS = -1;
+
+  /**
+   * The value of {@link #dependentsState} once this producer has been requested through {@link
+   * #get}, after which dependents never cancel it.
+   */
+  private static final int REQUESTED_DIRECTLY = -2;
+
   private final Provider<ProductionComponentMonitor> monitorProvider;
   @NullableDecl private final ProducerToken token;
   private volatile ListenableFuture<T> instance = null;
+  /**
+   * The number of dependents that are waiting for this producer, or {@link
+   * #CANCELLED_BY_DEPENDENTS} or {@link #REQUESTED_DIRECTLY}. Both of those are final.
+   */
+  private volatile int dependentsState = 0;
   protected volatile ProducerMonitor monitor = null;
 
   protected AbstractProducer() {
@@ -52,27 +84,103 @@ public abstract class AbstractProducer<T> implements Producer<T> {
   /**
    * Computes this producer's future, which is then cached in {@link #get}. The {@link #monitor}
    * will be non-null from the point of this call forward.
+   *
+   * <p>This is called at most once at a time, but not under a lock: other threads that request
+   * this producer meanwhile get a future that completes with the computed one.
    */
   protected abstract ListenableFuture<T> compute();
 
   @Override
   public final ListenableFuture<T> get() {
-    // double-check idiom from EJ2: Item 71
-    ListenableFuture<T> result = instance;
-    if (result == null) {
-      synchronized (this) {
-        result = instance;
-        if (result == null) {
-          monitor = monitorProvider.get().producerMonitorFor(token);
-          monitor.requested();
-          instance = result = compute();
-          if (result == null) {
-            throw new NullPointerException("compute returned null");
+    int state;
+    do {
+      state = dependentsState;
+    } while (state >= 0 && !DEPENDENTS_STATE.compareAndSet(this, state, REQUESTED_DIRECTLY));
+    return future();
+  }
+
+  /**
+   * Returns this producer's future for a producer that depends on it. Cancelling the returned
+   * future doesn't cancel this producer's future, but once the futures returned to all dependents
+   * that are still waiting are cancelled, this producer's future is cancelled too, unless it has
+   * also been requested through {@link #get}.
+   */
+  final ListenableFuture<T> dependentFuture() {
+    final ListenableFuture<T> future = future();
+    if (future.isDone()) {
+      return future;
+    }
+    int state;
+    do {
+      state = dependentsState;
+      if (state == CANCELLED_BY_DEPENDENTS) {
+        return future;
+      }
+      if (state == REQUESTED_DIRECTLY) {
+        return Futures.nonCancellationPropagating(future);
+      }
+    } while (!DEPENDENTS_STATE.compareAndSet(this, state, state + 1));
+    final ListenableFuture<T> dependentFuture = Futures.nonCancellationPropagating(future);
+    dependentFuture.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (dependentFuture.isCancelled() && dependentCancelled()) {
+              future.cancel(false);
+            }
           }
-          monitor.addCallbackTo(result);
-        }
+        },
+        directExecutor());
+    return dependentFuture;
+  }
+
+  /**
+   * Records that a waiting dependent was cancelled, and returns {@code true} if it was the last
+   * one and this producer was not requested directly, in which case this producer should be
+   * cancelled.
+   */
+  private boolean dependentCancelled() {
+    int state;
+    int newState;
+    do {
+      state = dependentsState;
+      if (state < 0) {
+        return false;
+      }
+      newState = state == 1 ? CANCELLED_BY_DEPENDENTS : state - 1;
+    } while (!DEPENDENTS_STATE.compareAndSet(this, state, newState));
+    return newState == CANCELLED_BY_DEPENDENTS;
+  }
+
+  private ListenableFuture<T> future() {
+    // Publish a placeholder first, so that concurrent requests return it instead of waiting for
+    // compute() or for the monitor, neither of which runs under a lock.
+    SettableFuture<T> placeholder = null;
+    do {
+      ListenableFuture<T> result = instance;
+      if (result != null) {
+        return result;
+      }
+      if (placeholder == null) {
+        placeholder = SettableFuture.create();
+      }
+    } while (!INSTANCE.compareAndSet(this, null, placeholder));
+    ListenableFuture<T> computed;
+    try {
+      monitor = monitorProvider.get().producerMonitorFor(token);
+      monitor.requested();
+      computed = compute();
+      if (computed == null) {
+        throw new NullPointerException("compute returned null");
       }
+    } catch (RuntimeException | Error e) {
+      // Fail the requests that got the placeholder, and let later requests try again.
+      placeholder.setException(e);
+      INSTANCE.compareAndSet(this, placeholder, null);
+      throw e;
     }
-    return result;
+    monitor.addCallbackTo(computed);
+    placeholder.setFuture(computed);
+    return placeholder;
   }
 }
@@ -73,7 +73,7 @@ public final class MapOfProducedProducer<K, V> extends AbstractProducer<Map<K, P
             public ListenableFuture<Map.Entry<Object, Produced<Object>>> apply(
                 final Map.Entry<Object, Producer<Object>> entry) {
               return transform(
-                  Producers.createFutureProduced(entry.getValue().get()),
+                  Producers.createFutureProduced(Producers.dependencyFuture(entry.getValue())),
                   new Function<Produced<Object>, Map.Entry<Object, Produced<Object>>>() {
                     @Override
                     public Map.Entry<Object, Produced<Object>> apply(Produced<Object> value) {
@@ -81,16 +81,19 @@ public final class MapProducer<K, V> extends AbstractProducer<Map<K, V>> {
     final List<ListenableFuture<Map.Entry<K, V>>> listOfEntries = new ArrayList<>();
     for (final Entry<K, Producer<V>> entry : mapOfProducers.entrySet()) {
       listOfEntries.add(
-          Futures.transform(entry.getValue().get(), new Function<V, Entry<K, V>>() {
-            @Override
-            public Entry<K, V> apply(V computedValue) {
-              return Maps.immutableEntry(entry.getKey(), computedValue);
-            }
-          }, directExecutor()));
+          Futures.transform(
+              Producers.dependencyFuture(entry.getValue()),
+              new Function<V, Entry<K, V>>() {
+                @Override
+                public Entry<K, V> apply(V computedValue) {
+                  return Maps.immutableEntry(entry.getKey(), computedValue);
+                }
+              },
+              directExecutor()));
     }
 
     return Futures.transform(
-        Futures.allAsList(listOfEntries),
+        Producers.cancelInputsOnFailure(Futures.allAsList(listOfEntries), listOfEntries),
         new Function<List<Map.Entry<K, V>>, Map<K, V>>() {
           @Override
           public Map<K, V> apply(List<Map.Entry<K, V>> entries) {
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import org.checkerframework.checker.nullness.compatqual.NullableDecl;
+
+/**
+ * The futures of a {@linkplain dagger.producers.Produces#cacheTtlMillis() cached} or {@linkplain
+ * dagger.producers.Produces#coalesce() coalesced} producer method, keyed by its arguments.
+ * Generated producers keep one in a static field, so that it is shared by every component.
+ *
+ * <p>A future is added before the method is called, so a request with the same arguments as one
+ * that is still in progress waits for the same future instead of calling the method again. Futures
+ * that fail or are cancelled are removed once they complete, and so are all futures of a
+ * coalescing cache.
+ */
+public final class ProducerCache<T> {
+  private final ConcurrentMap<List<Object>, ListenableFuture<T>> futures;
+  private final boolean keepsSuccessfulFutures;
+
+  private ProducerCache(
+      ConcurrentMap<List<Object>, ListenableFuture<T>> futures, boolean keepsSuccessfulFutures) {
+    this.futures = futures;
+    this.keepsSuccessfulFutures = keepsSuccessfulFutures;
+  }
+
+  /**
+   * Creates a cache whose futures expire {@code ttlMillis} after they are added, and that keeps at
+   * most {@code maximumSize} of them.
+   */
+  public static <T> ProducerCache<T> create(long ttlMillis, long maximumSize) {
+    return new ProducerCache<T>(
+        CacheBuilder.newBuilder()
+            .expireAfterWrite(ttlMillis, MILLISECONDS)
+            .maximumSize(maximumSize)
+            .<List<Object>, ListenableFuture<T>>build()
+            .asMap(),
+        true);
+  }
+
+  /** Creates a cache that only keeps futures until they complete. */
+  public static <T> ProducerCache<T> coalescing() {
+    return new ProducerCache<T>(new ConcurrentHashMap<List<Object>, ListenableFuture<T>>(), false);
+  }
+
+  /**
+   * Returns the future for {@code arguments}, or adds {@code pending} as the future for them and
+   * returns null if there is none. In that case the caller must complete {@code pending}.
+   *
+   * <p>Cancelling the returned future doesn't cancel the one in the cache.
+   */
+  @NullableDecl
+  public ListenableFuture<T> putIfAbsent(
+      final List<Object> arguments, final ListenableFuture<T> pending) {
+    checkNotNull(pending);
+    ListenableFuture<T> existing = futures.putIfAbsent(arguments, pending);
+    if (existing != null) {
+      return Futures.nonCancellationPropagating(existing);
+    }
+    pending.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (!keepsSuccessfulFutures || !succeeded(pending)) {
+              futures.remove(arguments, pending);
+            }
+          }
+        },
+        directExecutor());
+    return null;
+  }
+
+  private static boolean succeeded(ListenableFuture<?> future) {
+    if (future.isCancelled()) {
+      return false;
+    }
+    try {
+      Futures.getDone(future);
+      return true;
+    } catch (ExecutionException e) {
+      return false;
+    }
+  }
+}
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.util.concurrent.Futures.catchingAsync;
 import static com.google.common.util.concurrent.Futures.transform;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMap;
@@ -27,11 +28,24 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import dagger.producers.PrioritizedExecutor;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
 import javax.inject.Provider;
 
 /**
@@ -41,6 +55,61 @@ import javax.inject.Provider;
  * @since 2.0
  */
 public final class Producers {
+  /**
+   * Returns the future of {@code producer} for use as an input of another producer.
+   *
+   * <p>If {@code producer} is an {@link AbstractProducer}, cancelling the returned future only
+   * cancels {@code producer}'s own future once no other dependent is waiting for it. See {@link
+   * AbstractProducer#dependentFuture()}.
+   */
+  public static <T> ListenableFuture<T> dependencyFuture(Producer<T> producer) {
+    return producer instanceof AbstractProducer
+        ? ((AbstractProducer<T>) producer).dependentFuture()
+        : producer.get();
+  }
+
+  /**
+   * Returns {@code aggregate}, a future that combines {@code inputs}, after arranging for the
+   * inputs that aren't done yet to be cancelled if it fails. {@link Futures#allAsList} already
+   * cancels its inputs when it is cancelled, but not when one of them fails.
+   *
+   * <p>The inputs should be {@linkplain #dependencyFuture dependency futures}, so that cancelling
+   * them only cancels the producers that no other dependent is waiting for.
+   */
+  public static <T> ListenableFuture<T> cancelInputsOnFailure(
+      ListenableFuture<T> aggregate, ListenableFuture<?>... inputs) {
+    return cancelInputsOnFailure(aggregate, Arrays.asList(inputs));
+  }
+
+  /**
+   * Returns {@code aggregate}, a future that combines {@code inputs}, after arranging for the
+   * inputs that aren't done yet to be cancelled if it fails.
+   *
+   * @see #cancelInputsOnFailure(ListenableFuture, ListenableFuture...)
+   */
+  public static <T> ListenableFuture<T> cancelInputsOnFailure(
+      final ListenableFuture<T> aggregate,
+      final Iterable<? extends ListenableFuture<?>> inputs) {
+    aggregate.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (aggregate.isCancelled()) {
+              return;
+            }
+            try {
+              Futures.getDone(aggregate);
+            } catch (ExecutionException e) {
+              for (ListenableFuture<?> input : inputs) {
+                input.cancel(false);
+              }
+            }
+          }
+        },
+        directExecutor());
+    return aggregate;
+  }
+
   /**
    * Returns a future of {@link Produced} that represents the completion (either success or failure)
    * of the given future. If the input future succeeds, then the resulting future also succeeds with
@@ -119,6 +188,211 @@ public final class Producers {
         directExecutor());
   }
 
+  /**
+   * Returns a future of the values of {@code futures}, in order, all of which must be done. If any
+   * of them failed or was cancelled, so is the returned future.
+   *
+   * <p>This is {@link Futures#allAsList} for inputs that are already done, without the listeners
+   * that it adds to each input.
+   */
+  public static ListenableFuture<List<Object>> doneAsList(ListenableFuture<?>... futures) {
+    Object[] values = new Object[futures.length];
+    for (int i = 0; i < futures.length; i++) {
+      try {
+        values[i] = Futures.getDone(futures[i]);
+      } catch (ExecutionException e) {
+        return Futures.immediateFailedFuture(e.getCause());
+      } catch (CancellationException e) {
+        return Futures.immediateCancelledFuture();
+      }
+    }
+    return Futures.immediateFuture(Collections.unmodifiableList(Arrays.asList(values)));
+  }
+
+  /**
+   * Applies {@code function} to the value of {@code input}, which must be done, on the calling
+   * thread. If {@code input} failed or was cancelled, or {@code function} throws, so does the
+   * returned future.
+   *
+   * <p>This is {@link Futures#transformAsync} with a direct executor for an input that is already
+   * done, without the intermediate future that waits for the input.
+   */
+  @SuppressWarnings("unchecked") // safe covariant cast
+  public static <I, O> ListenableFuture<O> transformDone(
+      ListenableFuture<I> input, AsyncFunction<? super I, ? extends O> function) {
+    I value;
+    try {
+      value = Futures.getDone(input);
+    } catch (ExecutionException e) {
+      return Futures.immediateFailedFuture(e.getCause());
+    } catch (CancellationException e) {
+      return Futures.immediateCancelledFuture();
+    }
+    ListenableFuture<? extends O> output;
+    try {
+      output = function.apply(value);
+    } catch (Throwable t) {
+      return Futures.immediateFailedFuture(t);
+    }
+    if (output == null) {
+      return Futures.immediateFailedFuture(
+          new NullPointerException("AsyncFunction.apply returned null instead of a Future"));
+    }
+    return (ListenableFuture<O>) output;
+  }
+
+  /**
+   * Returns a future that completes like {@code future}, or fails with a {@link TimeoutException}
+   * if {@code future} hasn't completed after {@code timeoutMillis}. On timeout, {@code future} is
+   * cancelled.
+   */
+  public static <T> ListenableFuture<T> withTimeout(
+      ListenableFuture<T> future, long timeoutMillis) {
+    if (future.isDone()) {
+      return future;
+    }
+    return Futures.withTimeout(future, timeoutMillis, MILLISECONDS, Timers.INSTANCE);
+  }
+
+  /**
+   * Returns {@link Futures#transformAsync(ListenableFuture, AsyncFunction, Executor)
+   * transformAsync(input, function, executor)}, hedged: if that attempt hasn't completed {@code
+   * hedgeDelayMillis} after {@code input} completed, a second attempt applies {@code function} to
+   * the same value. The returned future completes like whichever attempt completes first, and the
+   * other attempt is then cancelled. Cancelling the returned future cancels both attempts.
+   */
+  public static <I, O> ListenableFuture<O> hedgedTransformAsync(
+      final ListenableFuture<I> input,
+      final AsyncFunction<? super I, ? extends O> function,
+      final Executor executor,
+      final long hedgeDelayMillis) {
+    final SettableFuture<O> result = SettableFuture.create();
+    race(result, Futures.transformAsync(input, function, executor));
+    input.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (result.isDone()) {
+              // The first attempt already finished, or input failed.
+              return;
+            }
+            ScheduledFuture<?> hedge =
+                Timers.INSTANCE.schedule(
+                    new Runnable() {
+                      @Override
+                      public void run() {
+                        if (!result.isDone()) {
+                          race(result, Futures.transformAsync(input, function, executor));
+                        }
+                      }
+                    },
+                    hedgeDelayMillis,
+                    MILLISECONDS);
+            cancelWhenDone(result, hedge);
+          }
+        },
+        directExecutor());
+    return result;
+  }
+
+  /** Completes {@code result} like {@code attempt}, unless another attempt completes first. */
+  private static <T> void race(
+      final SettableFuture<T> result, final ListenableFuture<? extends T> attempt) {
+    attempt.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            result.setFuture(attempt);
+          }
+        },
+        directExecutor());
+    cancelWhenDone(result, attempt);
+  }
+
+  private static void cancelWhenDone(ListenableFuture<?> result, final Future<?> future) {
+    result.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            future.cancel(false);
+          }
+        },
+        directExecutor());
+  }
+
+  /** The scheduler shared by all producer timeouts and hedges, created when it is first used. */
+  private static final class Timers {
+    static final ScheduledExecutorService INSTANCE = create();
+
+    private static ScheduledExecutorService create() {
+      ScheduledThreadPoolExecutor scheduler =
+          new ScheduledThreadPoolExecutor(
+              1,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("dagger-producer-timers-%d")
+                  .build());
+      // Most producers finish before their timers fire, so don't keep the cancelled ones around.
+      scheduler.setRemoveOnCancelPolicy(true);
+      return scheduler;
+    }
+  }
+
+  /**
+   * Returns a provider of the executor of {@code executorProvider} that runs tasks with {@code
+   * priority}, if that executor is a {@link PrioritizedExecutor}. Otherwise, the returned provider
+   * provides the executor itself.
+   */
+  public static Provider<Executor> executorWithPriority(
+      Provider<Executor> executorProvider, int priority) {
+    return new ExecutorWithPriorityProvider(checkNotNull(executorProvider), priority);
+  }
+
+  /**
+   * Provides an {@link ExecutorWithPriority} for each {@link PrioritizedExecutor}. Production
+   * components usually provide the same executor each time, so the last one is reused.
+   */
+  private static final class ExecutorWithPriorityProvider implements Provider<Executor> {
+    private final Provider<Executor> executorProvider;
+    private final int priority;
+    private volatile ExecutorWithPriority last;
+
+    ExecutorWithPriorityProvider(Provider<Executor> executorProvider, int priority) {
+      this.executorProvider = executorProvider;
+      this.priority = priority;
+    }
+
+    @Override
+    public Executor get() {
+      Executor executor = executorProvider.get();
+      if (!(executor instanceof PrioritizedExecutor)) {
+        return executor;
+      }
+      ExecutorWithPriority result = last;
+      if (result == null || result.executor != executor) {
+        result = new ExecutorWithPriority((PrioritizedExecutor) executor, priority);
+        last = result;
+      }
+      return result;
+    }
+  }
+
+  /** Runs every task on a {@link PrioritizedExecutor} with the same priority. */
+  private static final class ExecutorWithPriority implements Executor {
+    private final PrioritizedExecutor executor;
+    private final int priority;
+
+    ExecutorWithPriority(PrioritizedExecutor executor, int priority) {
+      this.executor = executor;
+      this.priority = priority;
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+      executor.execute(runnable, priority);
+    }
+  }
+
   /**
    * Returns a producer that immediately executes the binding logic for the given provider every
    * time it is called.
@@ -126,10 +126,12 @@ public final class SetOfProducedProducer<T> extends AbstractProducer<Set<Produce
       // be materialized into futureProducedCollections.
       futureProducedCollections.add(
           Producers.createFutureProduced(
-              Producers.createFutureSingletonSet(checkNotNull(producer.get()))));
+              Producers.createFutureSingletonSet(
+                  checkNotNull(Producers.dependencyFuture(producer)))));
     }
     for (Producer<Collection<T>> producer : collectionProducers) {
-      futureProducedCollections.add(Producers.createFutureProduced(checkNotNull(producer.get())));
+      futureProducedCollections.add(
+          Producers.createFutureProduced(checkNotNull(Producers.dependencyFuture(producer))));
     }
 
     return Futures.transform(
@@ -119,7 +119,8 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
    * fail with a NullPointerException.
    *
    * <p>Canceling this future will attempt to cancel all of the component futures, and if any of the
-   * delegate futures fails or is canceled, this one is, too.
+   * delegate futures fails or is canceled, this one is, too. If one fails, the others are
+   * cancelled.
    *
    * @throws NullPointerException if any of the delegate producers return null
    */
@@ -128,19 +129,20 @@ public final class SetProducer<T> extends AbstractProducer<Set<T>> {
     List<ListenableFuture<T>> individualFutures =
         new ArrayList<ListenableFuture<T>>(individualProducers.size());
     for (Producer<T> producer : individualProducers) {
-      individualFutures.add(checkNotNull(producer.get()));
+      individualFutures.add(checkNotNull(Producers.dependencyFuture(producer)));
     }
 
     // Presize the list of collections produced by the amount of collectionProducers, with one more
     // for the consolidate individualFutures from Futures.allAsList.
     List<ListenableFuture<? extends Collection<T>>> futureCollections =
         new ArrayList<ListenableFuture<? extends Collection<T>>>(collectionProducers.size() + 1);
-    futureCollections.add(Futures.allAsList(individualFutures));
+    futureCollections.add(
+        Producers.cancelInputsOnFailure(Futures.allAsList(individualFutures), individualFutures));
     for (Producer<Collection<T>> producer : collectionProducers) {
-      futureCollections.add(checkNotNull(producer.get()));
+      futureCollections.add(checkNotNull(Producers.dependencyFuture(producer)));
     }
     return transform(
-        Futures.allAsList(futureCollections),
+        Producers.cancelInputsOnFailure(Futures.allAsList(futureCollections), futureCollections),
         new Function<List<Collection<T>>, Set<T>>() {
           @Override
           public Set<T> apply(List<Collection<T>> sets) {
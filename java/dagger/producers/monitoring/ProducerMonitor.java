@@ -34,6 +34,8 @@ import dagger.producers.Produces;
  *   <li>{@link #methodStarting()}
  *   <li>The method is called
  *   <li>{@link #methodFinished()}
+ *   <li>Or, if the method is cached and its result is in the cache, {@link #cacheHit()} instead of
+ *       the three steps above
  *   <li>If the method returns a value, then:
  *   <ul>
  *     <li>{@link #succeeded(Object)} if the method returned normally; or
@@ -137,6 +139,20 @@ public abstract class ProducerMonitor {
    */
   public void methodFinished() {}
 
+  /**
+   * Called instead of {@link #methodStarting()} and {@link #methodFinished()} when the producer's
+   * method is {@linkplain dagger.producers.Produces#cacheTtlMillis() cached} and the result for its
+   * arguments is taken from the cache, or is {@linkplain dagger.producers.Produces#coalesce()
+   * coalesced} and joins a call with the same arguments that is in progress. This will be called
+   * from the thread that would have called the producer method.
+   *
+   * <p>When multiple monitors are installed, calls to this method will be in the reverse order from
+   * calls to {@link #requested()}.
+   *
+   * <p>This implementation is a no-op.
+   */
+  public void cacheHit() {}
+
   /**
    * Called when the producer’s future has completed successfully with a value.
    *
@@ -148,7 +164,9 @@ public abstract class ProducerMonitor {
   public void succeeded(@SuppressWarnings("unused") Object value) {}
 
   /**
-   * Called when the producer's future has failed with an exception.
+   * Called when the producer's future has failed with an exception. If the producer exceeded its
+   * {@linkplain dagger.producers.Produces#timeoutMillis() timeout}, the exception is a {@link
+   * java.util.concurrent.TimeoutException}.
    *
    * <p>When multiple monitors are installed, calls to this method will be in the reverse order from
    * calls to {@link #requested()}.
@@ -164,6 +164,15 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void cacheHit() {
+      try {
+        delegate.cacheHit();
+      } catch (RuntimeException e) {
+        logProducerMonitorMethodException(e, delegate, "cacheHit");
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       try {
@@ -305,6 +314,17 @@ public final class Monitors {
       }
     }
 
+    @Override
+    public void cacheHit() {
+      for (ProducerMonitor delegate : delegates.reverse()) {
+        try {
+          delegate.cacheHit();
+        } catch (RuntimeException e) {
+          logProducerMonitorMethodException(e, delegate, "cacheHit");
+        }
+      }
+    }
+
     @Override
     public void succeeded(Object o) {
       for (ProducerMonitor delegate : delegates.reverse()) {
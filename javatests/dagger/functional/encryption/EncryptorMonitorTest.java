@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.encryption;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import dagger.EncryptorMonitor;
+import dagger.EncryptorMonitor.Operation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.crypto.IllegalBlockSizeException;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class EncryptorMonitorTest {
+  private final RecordingMonitor monitor = new RecordingMonitor();
+  private final SecureDagger_Secrets encryptor = SecureDagger_Secrets.getInstance();
+
+  @Before
+  public void installMonitor() {
+    encryptor.installMonitors(
+        Collections.<EncryptorMonitor.Factory>singleton(
+            new EncryptorMonitor.Factory() {
+              @Override
+              public EncryptorMonitor create(Object encryptor) {
+                return monitor;
+              }
+            }));
+  }
+
+  @Test
+  public void success() {
+    String encrypted = encryptor.encrypt("monkey");
+    assertThat(encryptor.decrypt(encrypted)).isEqualTo("monkey");
+    assertThat(monitor.successes).containsExactly(Operation.ENCRYPT, Operation.DECRYPT).inOrder();
+    assertThat(monitor.failures).isEmpty();
+  }
+
+  @Test
+  public void checkedFailure_isRecorded() {
+    // Three bytes aren't a whole number of AES blocks.
+    assertThat(encryptor.decrypt("AAAA")).isNull();
+    assertThat(monitor.successes).isEmpty();
+    assertThat(monitor.failedOperations).containsExactly(Operation.DECRYPT);
+    assertThat(monitor.failures.get(0)).isInstanceOf(IllegalBlockSizeException.class);
+  }
+
+  @Test
+  public void runtimeFailure_isRecordedAndRethrown() {
+    try {
+      encryptor.decrypt("not Base64!");
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertThat(monitor.failedOperations).containsExactly(Operation.DECRYPT);
+      assertThat(monitor.failures).containsExactly(expected);
+    }
+    assertThat(monitor.successes).isEmpty();
+  }
+
+  private static final class RecordingMonitor extends EncryptorMonitor {
+    final List<Operation> successes = new ArrayList<>();
+    final List<Operation> failedOperations = new ArrayList<>();
+    final List<Throwable> failures = new ArrayList<>();
+
+    @Override
+    public void recordSuccess(
+        Operation operation, long inputBytes, long outputBytes, long latencyNanos) {
+      successes.add(operation);
+    }
+
+    @Override
+    public void recordFailure(Operation operation, Throwable exception, long latencyNanos) {
+      failedOperations.add(operation);
+      failures.add(exception);
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.cancellation;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.functional.producers.ExecutorModule;
+import dagger.producers.Produced;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import java.io.IOException;
+import javax.inject.Named;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests that a generated component cancels the producers that no dependent is waiting for anymore.
+ */
+@RunWith(JUnit4.class)
+public final class DependentCancellationTest {
+  @ProducerModule
+  static final class TestModule {
+    final SettableFuture<String> pending = SettableFuture.create();
+    final SettableFuture<String> failing = SettableFuture.create();
+
+    @Produces
+    @Named("pending")
+    ListenableFuture<String> pending() {
+      return pending;
+    }
+
+    @Produces
+    @Named("failing")
+    ListenableFuture<String> failing() {
+      return failing;
+    }
+
+    @Produces
+    @Named("combined")
+    static String combined(@Named("pending") String pending, @Named("failing") String failing) {
+      return pending + failing;
+    }
+
+    @Produces
+    @Named("withProduced")
+    static String withProduced(
+        @Named("pending") Produced<String> pending, @Named("failing") String failing) {
+      return failing;
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, TestModule.class})
+  interface TestComponent {
+    @Named("pending")
+    ListenableFuture<String> pending();
+
+    @Named("combined")
+    ListenableFuture<String> combined();
+
+    @Named("withProduced")
+    ListenableFuture<String> withProduced();
+  }
+
+  private final TestModule module = new TestModule();
+  private final TestComponent component =
+      DaggerDependentCancellationTest_TestComponent.builder()
+          .executorModule(new ExecutorModule())
+          .testModule(module)
+          .build();
+
+  @Test
+  public void cancellingEntryPoint_cancelsInputs() {
+    ListenableFuture<String> combined = component.combined();
+    assertThat(module.pending.isDone()).isFalse();
+
+    combined.cancel(true);
+    assertThat(module.pending.isCancelled()).isTrue();
+    assertThat(module.failing.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void failedInput_cancelsOtherInputs() {
+    ListenableFuture<String> combined = component.combined();
+
+    module.failing.setException(new IOException("failing"));
+    assertThat(combined.isDone()).isTrue();
+    assertThat(module.pending.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void failedInput_doesNotCancelInputsRequestedDirectly() {
+    ListenableFuture<String> pending = component.pending();
+    ListenableFuture<String> combined = component.combined();
+
+    module.failing.setException(new IOException("failing"));
+    assertThat(combined.isDone()).isTrue();
+    assertThat(pending.isCancelled()).isFalse();
+    assertThat(module.pending.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void failedInput_doesNotCancelProducedInputs() {
+    ListenableFuture<String> withProduced = component.withProduced();
+
+    module.failing.setException(new IOException("failing"));
+    assertThat(withProduced.isDone()).isTrue();
+    assertThat(module.pending.isCancelled()).isFalse();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.execution;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.functional.producers.ExecutorModule;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CachingTest {
+  private static final AtomicInteger lookups = new AtomicInteger();
+
+  @ProducerModule
+  static final class InputModule {
+    private final int input;
+
+    InputModule(int input) {
+      this.input = input;
+    }
+
+    @Produces
+    int input() {
+      return input;
+    }
+  }
+
+  @ProducerModule
+  static final class CachedModule {
+    @Produces(cacheTtlMillis = 60000)
+    static String lookup(int input) {
+      lookups.incrementAndGet();
+      return "value for " + input;
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, InputModule.class, CachedModule.class})
+  interface TestComponent {
+    ListenableFuture<String> lookup();
+  }
+
+  private static String lookup(int input) throws Exception {
+    return DaggerCachingTest_TestComponent.builder()
+        .inputModule(new InputModule(input))
+        .build()
+        .lookup()
+        .get();
+  }
+
+  @Test
+  public void resultsAreSharedAcrossComponents() throws Exception {
+    assertThat(lookup(1)).isEqualTo("value for 1");
+    assertThat(lookup(1)).isEqualTo("value for 1");
+    assertThat(lookups.get()).isEqualTo(1);
+
+    assertThat(lookup(2)).isEqualTo("value for 2");
+    assertThat(lookups.get()).isEqualTo(2);
+  }
+}
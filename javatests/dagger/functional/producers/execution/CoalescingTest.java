@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.execution;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.functional.producers.ExecutorModule;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CoalescingTest {
+  /** The futures returned by each call of the backend, in order. */
+  private static final List<SettableFuture<String>> calls = new ArrayList<>();
+
+  @ProducerModule
+  static final class CoalescedModule {
+    @Produces
+    static int input() {
+      return 42;
+    }
+
+    @Produces(coalesce = true)
+    static ListenableFuture<String> backend(int input) {
+      SettableFuture<String> call = SettableFuture.create();
+      calls.add(call);
+      return call;
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, CoalescedModule.class})
+  interface TestComponent {
+    ListenableFuture<String> backend();
+  }
+
+  @Test
+  public void concurrentCallsAreCoalesced() throws Exception {
+    ListenableFuture<String> first = DaggerCoalescingTest_TestComponent.create().backend();
+    ListenableFuture<String> second = DaggerCoalescingTest_TestComponent.create().backend();
+    assertThat(calls).hasSize(1);
+
+    calls.get(0).set("value");
+    assertThat(first.get()).isEqualTo("value");
+    assertThat(second.get()).isEqualTo("value");
+
+    // Once the call is done, the next request calls the backend again.
+    ListenableFuture<String> third = DaggerCoalescingTest_TestComponent.create().backend();
+    assertThat(calls).hasSize(2);
+    calls.get(1).set("new value");
+    assertThat(third.get()).isEqualTo("new value");
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.execution;
+
+import static com.google.common.truth.Truth.assertThat;
+import static dagger.producers.Produces.Execution.DIRECT;
+import static dagger.producers.Produces.Execution.PRODUCTION_EXECUTOR;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.functional.producers.ExecutorModule;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import java.util.concurrent.Executor;
+import javax.inject.Named;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class DirectExecutionTest {
+  @ProducerModule
+  static final class MixedModule {
+    @Produces
+    @Named("executor")
+    static String onExecutor() {
+      return "executor";
+    }
+
+    @Produces(execution = DIRECT)
+    @Named("direct")
+    static String direct(@Named("executor") String onExecutor) {
+      return onExecutor + " direct";
+    }
+  }
+
+  @ProducerModule(execution = DIRECT)
+  static final class DirectModule {
+    @Produces
+    static Integer direct(@Named("direct") String direct) {
+      return direct.length();
+    }
+
+    @Produces(execution = PRODUCTION_EXECUTOR)
+    static Long onExecutor(Integer direct) {
+      return (long) direct;
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, MixedModule.class, DirectModule.class})
+  interface TestComponent {
+    @Named("direct")
+    ListenableFuture<String> direct();
+
+    ListenableFuture<Integer> integer();
+
+    ListenableFuture<Long> longValue();
+  }
+
+  private static final class CountingExecutor implements Executor {
+    int executions;
+
+    @Override
+    public void execute(Runnable runnable) {
+      executions++;
+      runnable.run();
+    }
+  }
+
+  @Test
+  public void directProducersAreNotSubmittedToTheExecutor() throws Exception {
+    CountingExecutor executor = new CountingExecutor();
+    TestComponent component =
+        DaggerDirectExecutionTest_TestComponent.builder()
+            .executorModule(new ExecutorModule(executor))
+            .build();
+
+    assertThat(component.direct().get()).isEqualTo("executor direct");
+    assertThat(executor.executions).isEqualTo(1);
+
+    assertThat(component.integer().get()).isEqualTo(15);
+    assertThat(executor.executions).isEqualTo(1);
+
+    assertThat(component.longValue().get()).isEqualTo(15L);
+    assertThat(executor.executions).isEqualTo(2);
+  }
+}
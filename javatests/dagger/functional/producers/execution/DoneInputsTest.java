@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.execution;
+
+import static com.google.common.truth.Truth.assertThat;
+import static dagger.producers.Produces.Execution.DIRECT;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.functional.producers.ExecutorModule;
+import dagger.producers.Produced;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import javax.inject.Named;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for producers with more than one input, which skip waiting for their inputs when those are
+ * already done.
+ */
+@RunWith(JUnit4.class)
+public final class DoneInputsTest {
+  @ProducerModule
+  static final class InputsModule {
+    @Produces
+    @Named("first")
+    static String first() {
+      return "first";
+    }
+
+    @Produces
+    @Named("second")
+    static String second() {
+      return "second";
+    }
+
+    @Produces
+    @Named("failing")
+    static String failing() throws IOException {
+      throw new IOException("failing");
+    }
+  }
+
+  @ProducerModule
+  static final class CombiningModule {
+    @Produces(execution = DIRECT)
+    @Named("direct")
+    static String direct(@Named("first") String first, @Named("second") String second) {
+      return first + " " + second;
+    }
+
+    @Produces
+    @Named("onExecutor")
+    static String onExecutor(@Named("first") String first, @Named("second") String second) {
+      return first + " " + second;
+    }
+
+    @Produces(execution = DIRECT)
+    @Named("withFailure")
+    static String withFailure(@Named("first") String first, @Named("failing") String failing) {
+      throw new AssertionError("should not be called");
+    }
+
+    @Produces(execution = DIRECT)
+    @Named("withProducedFailure")
+    static String withProducedFailure(
+        @Named("first") String first, @Named("failing") Produced<String> failing) {
+      try {
+        return first + " " + failing.get();
+      } catch (ExecutionException e) {
+        return first + " " + e.getCause().getMessage();
+      }
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, InputsModule.class, CombiningModule.class})
+  interface TestComponent {
+    @Named("first")
+    ListenableFuture<String> first();
+
+    @Named("second")
+    ListenableFuture<String> second();
+
+    @Named("failing")
+    ListenableFuture<String> failing();
+
+    @Named("direct")
+    ListenableFuture<String> direct();
+
+    @Named("onExecutor")
+    ListenableFuture<String> onExecutor();
+
+    @Named("withFailure")
+    ListenableFuture<String> withFailure();
+
+    @Named("withProducedFailure")
+    ListenableFuture<String> withProducedFailure();
+  }
+
+  /** Runs tasks only when asked to. */
+  private static final class QueueingExecutor implements Executor {
+    final Queue<Runnable> tasks = new ArrayDeque<>();
+    int executions;
+
+    @Override
+    public void execute(Runnable runnable) {
+      executions++;
+      tasks.add(runnable);
+    }
+
+    void runAll() {
+      for (Runnable task = tasks.poll(); task != null; task = tasks.poll()) {
+        task.run();
+      }
+    }
+  }
+
+  private final QueueingExecutor executor = new QueueingExecutor();
+  private final TestComponent component =
+      DaggerDoneInputsTest_TestComponent.builder()
+          .executorModule(new ExecutorModule(executor))
+          .build();
+
+  @Test
+  public void direct_inputsDone_calledRightAway() throws Exception {
+    component.first();
+    component.second();
+    executor.runAll();
+    int executions = executor.executions;
+
+    ListenableFuture<String> direct = component.direct();
+    assertThat(direct.isDone()).isTrue();
+    assertThat(direct.get()).isEqualTo("first second");
+    assertThat(executor.executions).isEqualTo(executions);
+  }
+
+  @Test
+  public void direct_inputsNotDone_waitsForBoth() throws Exception {
+    ListenableFuture<String> direct = component.direct();
+    assertThat(direct.isDone()).isFalse();
+
+    executor.runAll();
+    assertThat(direct.get()).isEqualTo("first second");
+  }
+
+  @Test
+  public void onExecutor_inputsDone_stillUsesExecutor() throws Exception {
+    component.first();
+    component.second();
+    executor.runAll();
+
+    ListenableFuture<String> onExecutor = component.onExecutor();
+    assertThat(onExecutor.isDone()).isFalse();
+    executor.runAll();
+    assertThat(onExecutor.get()).isEqualTo("first second");
+  }
+
+  @Test
+  public void failedInputDone_failsRightAwayWithoutCallingMethod() throws Exception {
+    component.first();
+    component.failing();
+    executor.runAll();
+
+    ListenableFuture<String> withFailure = component.withFailure();
+    assertThat(withFailure.isDone()).isTrue();
+    assertFailedWithInputFailure(withFailure);
+  }
+
+  @Test
+  public void failedInputNotDone_failsWithoutCallingMethod() throws Exception {
+    ListenableFuture<String> withFailure = component.withFailure();
+    executor.runAll();
+    assertFailedWithInputFailure(withFailure);
+  }
+
+  @Test
+  public void failedProducedInputDone_passedToMethod() throws Exception {
+    component.first();
+    component.failing();
+    executor.runAll();
+
+    ListenableFuture<String> withProducedFailure = component.withProducedFailure();
+    assertThat(withProducedFailure.isDone()).isTrue();
+    assertThat(withProducedFailure.get()).isEqualTo("first failing");
+  }
+
+  private static void assertFailedWithInputFailure(ListenableFuture<String> future)
+      throws InterruptedException {
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(IOException.class);
+      assertThat(e.getCause()).hasMessageThat().isEqualTo("failing");
+    }
+  }
+}
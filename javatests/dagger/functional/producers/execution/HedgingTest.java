@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.execution;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.functional.producers.ExecutorModule;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class HedgingTest {
+  private static final SettableFuture<String> firstCall = SettableFuture.create();
+  private static final AtomicInteger calls = new AtomicInteger();
+
+  @ProducerModule
+  static final class HedgingModule {
+    @Produces
+    static int input() {
+      return 42;
+    }
+
+    /** The first call never finishes, as if its backend were slow. */
+    @Produces(hedgeDelayMillis = 10)
+    static ListenableFuture<String> hedged(int input) {
+      return calls.getAndIncrement() == 0
+          ? firstCall
+          : Futures.immediateFuture("second call: " + input);
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, HedgingModule.class})
+  interface TestComponent {
+    ListenableFuture<String> hedged();
+  }
+
+  @Test
+  public void slowCallIsHedged() throws Exception {
+    TestComponent component = DaggerHedgingTest_TestComponent.create();
+    assertThat(component.hedged().get(10, SECONDS)).isEqualTo("second call: 42");
+    assertThat(calls.get()).isEqualTo(2);
+    assertThat(firstCall.isCancelled()).isTrue();
+  }
+}
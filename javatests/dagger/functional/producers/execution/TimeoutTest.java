@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.execution;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import dagger.functional.producers.ExecutorModule;
+import dagger.producers.Produced;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import javax.inject.Named;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class TimeoutTest {
+  private static final SettableFuture<String> slowFuture = SettableFuture.create();
+
+  @ProducerModule(timeoutMillis = 50)
+  static final class TimeoutModule {
+    @Produces
+    @Named("slow")
+    static ListenableFuture<String> slow() {
+      return slowFuture;
+    }
+
+    @Produces(timeoutMillis = 10000)
+    @Named("fast")
+    static ListenableFuture<String> fast() {
+      return Futures.immediateFuture("fast");
+    }
+
+    @Produces
+    static String withFallback(@Named("slow") Produced<String> slow, @Named("fast") String fast) {
+      try {
+        return slow.get();
+      } catch (ExecutionException e) {
+        return fast;
+      }
+    }
+  }
+
+  @ProductionComponent(modules = {ExecutorModule.class, TimeoutModule.class})
+  interface TestComponent {
+    @Named("slow")
+    ListenableFuture<String> slow();
+
+    ListenableFuture<String> withFallback();
+  }
+
+  @Test
+  public void timeout() throws Exception {
+    TestComponent component = DaggerTimeoutTest_TestComponent.create();
+    assertThat(component.withFallback().get(10, SECONDS)).isEqualTo("fast");
+    try {
+      component.slow().get(10, SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+    }
+    assertThat(slowFuture.isCancelled()).isTrue();
+  }
+}
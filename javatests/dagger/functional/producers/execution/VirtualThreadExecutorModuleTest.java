@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.functional.producers.execution;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import dagger.producers.ProducerModule;
+import dagger.producers.Produces;
+import dagger.producers.ProductionComponent;
+import dagger.producers.executors.VirtualThreadExecutorModule;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Named;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class VirtualThreadExecutorModuleTest {
+  private static final AtomicInteger running = new AtomicInteger();
+  private static final AtomicInteger maxRunning = new AtomicInteger();
+
+  @ProducerModule
+  static final class BlockingModule {
+    @Produces
+    @Named("first")
+    static String first() throws InterruptedException {
+      return block();
+    }
+
+    @Produces
+    @Named("second")
+    static String second() throws InterruptedException {
+      return block();
+    }
+
+    @Produces
+    static List<String> both(@Named("first") String first, @Named("second") String second) {
+      return ImmutableList.of(first, second);
+    }
+
+    /** Blocks for a while, and returns the name of the thread it ran on. */
+    private static String block() throws InterruptedException {
+      int nowRunning = running.incrementAndGet();
+      while (true) {
+        int max = maxRunning.get();
+        if (nowRunning <= max || maxRunning.compareAndSet(max, nowRunning)) {
+          break;
+        }
+      }
+      Thread.sleep(50);
+      running.decrementAndGet();
+      return Thread.currentThread().getName();
+    }
+  }
+
+  @ProductionComponent(modules = {VirtualThreadExecutorModule.class, BlockingModule.class})
+  interface TestComponent {
+    ListenableFuture<List<String>> both();
+
+    @ProductionComponent.Builder
+    interface Builder {
+      Builder virtualThreadExecutorModule(VirtualThreadExecutorModule module);
+
+      TestComponent build();
+    }
+  }
+
+  @Test
+  public void threadsAreNamedAfterTheProducer() throws Exception {
+    List<String> threadNames =
+        DaggerVirtualThreadExecutorModuleTest_TestComponent.builder()
+            .virtualThreadExecutorModule(new VirtualThreadExecutorModule())
+            .build()
+            .both()
+            .get(10, SECONDS);
+    assertThat(threadNames.get(0)).startsWith("dagger-producer-");
+    assertThat(threadNames.get(0)).contains("First");
+    assertThat(threadNames.get(1)).contains("Second");
+  }
+
+  @Test
+  public void concurrencyLimit() throws Exception {
+    maxRunning.set(0);
+    List<String> threadNames =
+        DaggerVirtualThreadExecutorModuleTest_TestComponent.builder()
+            .virtualThreadExecutorModule(new VirtualThreadExecutorModule(1))
+            .build()
+            .both()
+            .get(10, SECONDS);
+    assertThat(threadNames).hasSize(2);
+    assertThat(maxRunning.get()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static javax.tools.Diagnostic.Kind.NOTE;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager.Location;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BindingGraphPluginsTest {
+  private final FakeFiler filer = new FakeFiler();
+  private final FakeMessager messager = new FakeMessager();
+  private BindingGraphPlugins plugins;
+
+  @After
+  public void shutdown() {
+    if (plugins != null) {
+      plugins.shutdown();
+    }
+  }
+
+  @Test
+  public void threadSafePlugins_replayedInPluginOrder() throws Exception {
+    CountDownLatch secondStarted = new CountDownLatch(1);
+    plugins =
+        new BindingGraphPlugins(
+            ImmutableList.of(
+                // Waits for the second plugin, so it finishes last when the two run concurrently.
+                new WritingPlugin("first", true) {
+                  @Override
+                  protected void visitGraph(BindingNetwork bindingNetwork) {
+                    try {
+                      secondStarted.await(10, SECONDS);
+                    } catch (InterruptedException e) {
+                      Thread.currentThread().interrupt();
+                    }
+                    super.visitGraph(bindingNetwork);
+                  }
+                },
+                new WritingPlugin("processorThread", false),
+                new WritingPlugin("second", true) {
+                  @Override
+                  protected void visitGraph(BindingNetwork bindingNetwork) {
+                    secondStarted.countDown();
+                    super.visitGraph(bindingNetwork);
+                  }
+                }),
+            filer,
+            messager,
+            ImmutableMap.of());
+
+    plugins.visitGraph(null);
+
+    assertThat(messager.messages)
+        .containsExactly("processorThread", "first", "second")
+        .inOrder();
+    assertThat(filer.files.keySet())
+        .containsExactly("test/processorThread.txt", "test/first.txt", "test/second.txt")
+        .inOrder();
+    assertThat(filer.files.get("test/first.txt").toString()).isEqualTo("first");
+    assertThat(filer.files.get("test/second.txt").toString()).isEqualTo("second");
+  }
+
+  @Test
+  public void threadSafePlugins_readResourcesOnProcessorThread() throws Exception {
+    List<String> contents = new ArrayList<>();
+    plugins =
+        new BindingGraphPlugins(
+            ImmutableList.of(
+                new ReadingPlugin("first.txt", contents),
+                new ReadingPlugin("second.txt", contents)),
+            filer,
+            messager,
+            ImmutableMap.of());
+
+    plugins.visitGraph(null);
+
+    assertThat(contents).containsExactly("first.txt", "second.txt");
+    assertThat(filer.readingThreads)
+        .containsExactly(Thread.currentThread(), Thread.currentThread());
+  }
+
+  /** Writes a resource and a note, both named after the plugin. */
+  private static class WritingPlugin extends BindingGraphPlugin {
+    private final String name;
+    private final boolean isThreadSafe;
+
+    WritingPlugin(String name, boolean isThreadSafe) {
+      this.name = name;
+      this.isThreadSafe = isThreadSafe;
+    }
+
+    @Override
+    protected void visitGraph(BindingNetwork bindingNetwork) {
+      try (Writer writer =
+          filer().createResource(CLASS_OUTPUT, "test", name + ".txt").openWriter()) {
+        writer.write(name);
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+      messager().printMessage(NOTE, name);
+    }
+
+    @Override
+    protected boolean isThreadSafe() {
+      return isThreadSafe;
+    }
+  }
+
+  /** Reads a resource and adds its contents to a list. */
+  private static final class ReadingPlugin extends BindingGraphPlugin {
+    private final String resource;
+    private final List<String> contents;
+
+    ReadingPlugin(String resource, List<String> contents) {
+      this.resource = resource;
+      this.contents = contents;
+    }
+
+    @Override
+    protected void visitGraph(BindingNetwork bindingNetwork) {
+      try {
+        CharSequence content =
+            filer().getResource(CLASS_OUTPUT, "test", resource).getCharContent(true);
+        synchronized (contents) {
+          contents.add(content.toString());
+        }
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    protected boolean isThreadSafe() {
+      return true;
+    }
+  }
+
+  /**
+   * A filer that keeps the resources it creates in memory, and whose resources contain their own
+   * names.
+   */
+  private static final class FakeFiler implements Filer {
+    final Map<String, StringWriter> files = new LinkedHashMap<>();
+    final List<Thread> readingThreads = new ArrayList<>();
+
+    @Override
+    public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FileObject createResource(
+        Location location,
+        CharSequence pkg,
+        CharSequence relativeName,
+        Element... originatingElements) {
+      String name = pkg + "/" + relativeName;
+      StringWriter contents = new StringWriter();
+      files.put(name, contents);
+      return new SimpleJavaFileObject(URI.create("mem:///" + name), JavaFileObject.Kind.OTHER) {
+        @Override
+        public Writer openWriter() {
+          return contents;
+        }
+      };
+    }
+
+    @Override
+    public FileObject getResource(Location location, CharSequence pkg, CharSequence relativeName) {
+      readingThreads.add(Thread.currentThread());
+      return new SimpleJavaFileObject(
+          URI.create("mem:///" + pkg + "/" + relativeName), JavaFileObject.Kind.OTHER) {
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+          return relativeName;
+        }
+      };
+    }
+  }
+
+  /** A messager that keeps the messages it's given. */
+  private static final class FakeMessager implements Messager {
+    final List<String> messages = new ArrayList<>();
+
+    @Override
+    public void printMessage(Diagnostic.Kind kind, CharSequence msg) {
+      messages.add(msg.toString());
+    }
+
+    @Override
+    public void printMessage(Diagnostic.Kind kind, CharSequence msg, Element e) {
+      messages.add(msg.toString());
+    }
+
+    @Override
+    public void printMessage(
+        Diagnostic.Kind kind, CharSequence msg, Element e, AnnotationMirror a) {
+      messages.add(msg.toString());
+    }
+
+    @Override
+    public void printMessage(
+        Diagnostic.Kind kind,
+        CharSequence msg,
+        Element e,
+        AnnotationMirror a,
+        AnnotationValue v) {
+      messages.add(msg.toString());
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+import static javax.tools.StandardLocation.CLASS_OUTPUT;
+
+import com.google.common.base.Optional;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class BindingNetworkVisualizerTest {
+  private static final JavaFileObject FOO = injectableType("Foo");
+  private static final JavaFileObject BAR = injectableType("Bar");
+  private static final JavaFileObject BAZ = injectableType("Baz");
+
+  private static final JavaFileObject CHILD =
+      JavaFileObjects.forSourceLines(
+          "test.Child",
+          "package test;",
+          "",
+          "import dagger.Subcomponent;",
+          "",
+          "@Subcomponent",
+          "interface Child {",
+          "  Baz baz();",
+          "}");
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "  Bar bar();",
+          "  Child child();",
+          "}");
+
+  @Test
+  public void noOptions_writesEveryBinding() throws Exception {
+    String dot = compileAndReadDotFile();
+    assertThat(dot).startsWith("digraph {");
+    assertThat(dot).contains("\"test.Foo\"");
+    assertThat(dot).contains("\"test.Bar\"");
+    assertThat(dot).contains("\"test.Baz\"");
+  }
+
+  @Test
+  public void components_onlyWritesBindingsInSelectedComponents() throws Exception {
+    String dot = compileAndReadDotFile("-Adagger.visualizer.components=test.Child");
+    assertThat(dot).contains("\"test.Baz\"");
+    assertThat(dot).doesNotContain("\"test.Foo\"");
+    assertThat(dot).doesNotContain("\"test.Bar\"");
+  }
+
+  @Test
+  public void components_noSelectedComponentInTree_writesNoFile() {
+    Compilation compilation =
+        daggerCompiler()
+            .withOptions("-Adagger.visualizer.components=test.Other")
+            .compile(FOO, BAR, BAZ, CHILD, COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(compilation.generatedFile(CLASS_OUTPUT, "test", "TestComponent.dot")).isAbsent();
+  }
+
+  @Test
+  public void entryPoints_onlyWritesReachableBindings() throws Exception {
+    String dot = compileAndReadDotFile("-Adagger.visualizer.entryPoints=bar");
+    assertThat(dot).contains("\"test.Bar\"");
+    assertThat(dot).doesNotContain("\"test.Foo\"");
+    assertThat(dot).doesNotContain("\"test.Baz\"");
+  }
+
+  @Test
+  public void entryPoints_namedWithComponent() throws Exception {
+    String dot = compileAndReadDotFile("-Adagger.visualizer.entryPoints=test.Child#baz");
+    assertThat(dot).contains("\"test.Baz\"");
+    assertThat(dot).doesNotContain("\"test.Foo\"");
+    assertThat(dot).doesNotContain("\"test.Bar\"");
+  }
+
+  @Test
+  public void collapseMultibindings_omitsContributionsAndTheirDependencies() throws Exception {
+    JavaFileObject onlyForContribution = injectableType("OnlyForContribution");
+    JavaFileObject module =
+        JavaFileObjects.forSourceLines(
+            "test.SetModule",
+            "package test;",
+            "",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "import dagger.multibindings.IntoSet;",
+            "",
+            "@Module",
+            "final class SetModule {",
+            "  @Provides @IntoSet static Object first(OnlyForContribution dependency) {",
+            "    return dependency;",
+            "  }",
+            "",
+            "  @Provides @IntoSet static Object second() {",
+            "    return new Object();",
+            "  }",
+            "}");
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import java.util.Set;",
+            "",
+            "@Component(modules = SetModule.class)",
+            "interface TestComponent {",
+            "  Set<Object> objects();",
+            "}");
+
+    String expanded = readDotFile(daggerCompiler().compile(onlyForContribution, module, component));
+    assertThat(expanded).contains("\"test.OnlyForContribution\"");
+    assertThat(expanded).doesNotContain("contributions)");
+
+    String collapsed =
+        readDotFile(
+            daggerCompiler()
+                .withOptions("-Adagger.visualizer.collapseMultibindings=enabled")
+                .compile(onlyForContribution, module, component));
+    assertThat(collapsed).contains("\"java.util.Set<java.lang.Object>\\n(2 contributions)\"");
+    assertThat(collapsed).doesNotContain("\"test.OnlyForContribution\"");
+  }
+
+  @Test
+  public void collapseMultibindings_invalidValue() {
+    Compilation compilation =
+        daggerCompiler()
+            .withOptions("-Adagger.visualizer.collapseMultibindings=sometimes")
+            .compile(FOO, BAR, BAZ, CHILD, COMPONENT);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "Processor option -Adagger.visualizer.collapseMultibindings may only have the values "
+                + "[ENABLED, DISABLED] (case insensitive), found: sometimes");
+  }
+
+  private static String compileAndReadDotFile(String... options) throws Exception {
+    return readDotFile(
+        daggerCompiler().withOptions((Object[]) options).compile(FOO, BAR, BAZ, CHILD, COMPONENT));
+  }
+
+  private static String readDotFile(Compilation compilation) throws Exception {
+    assertThat(compilation).succeeded();
+    Optional<JavaFileObject> dotFile =
+        compilation.generatedFile(CLASS_OUTPUT, "test", "TestComponent.dot");
+    assertThat(dotFile).isPresent();
+    return dotFile.get().getCharContent(true).toString();
+  }
+
+  private static JavaFileObject injectableType(String simpleName) {
+    return JavaFileObjects.forSourceLines(
+        "test." + simpleName,
+        "package test;",
+        "",
+        "import javax.inject.Inject;",
+        "",
+        "final class " + simpleName + " {",
+        "  @Inject " + simpleName + "() {}",
+        "}");
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class CriticalPathSchedulingTest {
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import com.google.common.util.concurrent.ListenableFuture;",
+          "import dagger.Module;",
+          "import dagger.Provides;",
+          "import dagger.producers.ProducerModule;",
+          "import dagger.producers.Produces;",
+          "import dagger.producers.Production;",
+          "import dagger.producers.ProductionComponent;",
+          "import java.util.concurrent.Executor;",
+          "",
+          "@ProductionComponent(modules = {TestComponent.ExecutorModule.class,"
+              + " TestComponent.ChainModule.class})",
+          "interface TestComponent {",
+          "  ListenableFuture<String> last();",
+          "",
+          "  @Module",
+          "  final class ExecutorModule {",
+          "    @Provides @Production static Executor executor() {",
+          "      return null;",
+          "    }",
+          "  }",
+          "",
+          "  @ProducerModule",
+          "  final class ChainModule {",
+          "    @Produces static int first() {",
+          "      return 1;",
+          "    }",
+          "",
+          "    @Produces static long second(int first) {",
+          "      return first;",
+          "    }",
+          "",
+          "    @Produces static String last(long second) {",
+          "      return String.valueOf(second);",
+          "    }",
+          "  }",
+          "}");
+
+  @Test
+  public void criticalPathScheduling_prioritizesLongestChains() throws Exception {
+    Compilation compilation =
+        daggerCompiler()
+            .withOptions("-Adagger.criticalPathScheduling=ENABLED")
+            .compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    String component = generatedComponent(compilation);
+    assertThat(component).containsMatch(priorityPattern("First", 3));
+    assertThat(component).containsMatch(priorityPattern("Second", 2));
+    assertThat(component).containsMatch(priorityPattern("Last", 1));
+  }
+
+  @Test
+  public void criticalPathScheduling_disabledByDefault() throws Exception {
+    Compilation compilation = daggerCompiler().compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(generatedComponent(compilation)).doesNotContain("executorWithPriority");
+  }
+
+  /** Matches the creation of {@code method}'s factory with an executor of {@code priority}. */
+  private static String priorityPattern(String method, int priority) {
+    return "new TestComponent_ChainModule_"
+        + method
+        + "Factory\\(\\s*Producers\\.executorWithPriority\\([^;]*?, "
+        + priority
+        + "\\)";
+  }
+
+  private static String generatedComponent(Compilation compilation) throws Exception {
+    return compilation
+        .generatedSourceFile("test.DaggerTestComponent")
+        .get()
+        .getCharContent(true)
+        .toString();
+  }
+}
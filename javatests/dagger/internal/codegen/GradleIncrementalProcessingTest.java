@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class GradleIncrementalProcessingTest {
+  private static final String ISOLATING = "org.gradle.annotation.processing.isolating";
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "",
+          "@Component",
+          "interface TestComponent {}");
+
+  @Test
+  public void enabled_declaresIsolatingProcessor() {
+    ComponentProcessor processor = new ComponentProcessor();
+    Compilation compilation =
+        javac()
+            .withProcessors(processor)
+            .withOptions("-Adagger.gradle.incremental=enabled")
+            .compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(processor.getSupportedOptions()).contains(ISOLATING);
+  }
+
+  @Test
+  public void disabledByDefault() {
+    ComponentProcessor processor = new ComponentProcessor();
+    Compilation compilation = javac().withProcessors(processor).compile(COMPONENT);
+    assertThat(compilation).succeeded();
+    assertThat(processor.getSupportedOptions()).doesNotContain(ISOLATING);
+  }
+}
@@ -289,6 +289,163 @@ public class GraphValidationTest {
         .withErrorContaining(expectedError).in(component).onLine(23);
   }
 
+  @Test
+  public void cyclicDependency_linearBindingGraphValidation_reportedOnce() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.Outer",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Inject;",
+            "",
+            "final class Outer {",
+            "  static class A {",
+            "    @Inject A(B bParam) {}",
+            "  }",
+            "",
+            "  static class B {",
+            "    @Inject B(A aParam) {}",
+            "  }",
+            "",
+            "  @Component",
+            "  interface CycleComponent {",
+            "    A getA();",
+            "    B getB();",
+            "  }",
+            "}");
+
+    Compilation compilation =
+        daggerCompiler()
+            .withOptions("-Adagger.linearBindingGraphValidation=enabled")
+            .compile(component);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorCount(1);
+    assertThat(compilation)
+        .hadErrorContaining(
+            Joiner.on('\n')
+                .join(
+                    "Found a dependency cycle:",
+                    "      test.Outer.A is injected at",
+                    "          test.Outer.B.<init>(aParam)",
+                    "      test.Outer.B is injected at",
+                    "          test.Outer.A.<init>(bParam)",
+                    "      test.Outer.A is provided at",
+                    "          test.Outer.CycleComponent.getA()"))
+        .inFile(component)
+        .onLineContaining("A getA();");
+  }
+
+  /**
+   * From {@code getA()}, the cycle through {@code Provider<C>} is valid, and the request for {@code
+   * A} in {@code C} has been visited by the time {@code B} is, so a traversal of each entry point's
+   * dependency paths only finds the invalid cycle from {@code getB()}. Linear validation finds it
+   * among all the requests, and reports it at the first entry point that reaches it.
+   */
+  @Test
+  public void cyclicDependency_linearBindingGraphValidation_cycleReachedFromEarlierEntryPoint() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.Outer",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Inject;",
+            "import javax.inject.Provider;",
+            "",
+            "final class Outer {",
+            "  static class A {",
+            "    @Inject A(Provider<C> cParam, B bParam) {}",
+            "  }",
+            "",
+            "  static class B {",
+            "    @Inject B(C cParam) {}",
+            "  }",
+            "",
+            "  static class C {",
+            "    @Inject C(A aParam) {}",
+            "  }",
+            "",
+            "  @Component",
+            "  interface CycleComponent {",
+            "    A getA();",
+            "    B getB();",
+            "  }",
+            "}");
+
+    Compilation compilation = daggerCompiler().compile(component);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorCount(1);
+    assertThat(compilation)
+        .hadErrorContaining("Found a dependency cycle:")
+        .inFile(component)
+        .onLineContaining("B getB();");
+
+    compilation =
+        daggerCompiler()
+            .withOptions("-Adagger.linearBindingGraphValidation=enabled")
+            .compile(component);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorCount(1);
+    assertThat(compilation)
+        .hadErrorContaining(
+            Joiner.on('\n')
+                .join(
+                    "Found a dependency cycle:",
+                    "      test.Outer.A is injected at",
+                    "          test.Outer.C.<init>(aParam)",
+                    "      test.Outer.C is injected at",
+                    "          test.Outer.B.<init>(cParam)",
+                    "      test.Outer.B is injected at",
+                    "          test.Outer.A.<init>(…, bParam)",
+                    "      test.Outer.A is provided at",
+                    "          test.Outer.CycleComponent.getA()"))
+        .inFile(component)
+        .onLineContaining("A getA();");
+  }
+
+  @Test
+  public void missingBinding_linearBindingGraphValidation_reportedOnce() {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.Outer",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Inject;",
+            "",
+            "final class Outer {",
+            "  static class Shared {",
+            "    @Inject Shared(String missing) {}",
+            "  }",
+            "",
+            "  static class A {",
+            "    @Inject A(Shared shared) {}",
+            "  }",
+            "",
+            "  @Component",
+            "  interface TestComponent {",
+            "    A getA();",
+            "    Shared getShared();",
+            "  }",
+            "}");
+
+    Compilation compilation = daggerCompiler().compile(component);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorCount(2);
+
+    compilation =
+        daggerCompiler()
+            .withOptions("-Adagger.linearBindingGraphValidation=enabled")
+            .compile(component);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorCount(1);
+    assertThat(compilation)
+        .hadErrorContaining("java.lang.String cannot be provided")
+        .inFile(component)
+        .onLineContaining("A getA();");
+  }
+
   @Test public void cyclicDependencyNotIncludingEntryPoint() {
     JavaFileObject component =
         JavaFileObjects.forSourceLines(
@@ -30,6 +30,7 @@ import dagger.multibindings.ElementsIntoSet;
 import dagger.multibindings.IntoSet;
 import dagger.producers.ProducerModule;
 import dagger.producers.Produces;
+import java.util.Optional;
 import java.util.Set;
 import javax.inject.Inject;
 import javax.inject.Qualifier;
@@ -139,6 +140,29 @@ public class KeyFactoryTest {
                 + "{@dagger.internal.codegen.KeyFactoryTest.InnerAnnotation}) java.lang.String");
   }
 
+  @Test public void equalKeysAreInterned() {
+    TypeElement moduleElement =
+        elements.getTypeElement(QualifiedProvidesMethodModule.class.getCanonicalName());
+    ExecutableElement providesMethod =
+        Iterables.getOnlyElement(ElementFilter.methodsIn(moduleElement.getEnclosedElements()));
+    Key provisionKey = keyFactory.forProvidesMethod(providesMethod, moduleElement);
+
+    TypeMirror type = elements.getTypeElement(String.class.getCanonicalName()).asType();
+    TypeElement injectableElement =
+        elements.getTypeElement(QualifiedFieldHolder.class.getCanonicalName());
+    Element injectionField =
+        Iterables.getOnlyElement(ElementFilter.fieldsIn(injectableElement.getEnclosedElements()));
+    AnnotationMirror qualifier = Iterables.getOnlyElement(injectionField.getAnnotationMirrors());
+    Key injectionKey = keyFactory.forQualifiedType(Optional.of(qualifier), type);
+
+    assertThat(injectionKey).isSameAs(provisionKey);
+
+    keyFactory.clearCache();
+    Key injectionKeyInNextRound = keyFactory.forQualifiedType(Optional.of(qualifier), type);
+    assertThat(injectionKeyInNextRound).isEqualTo(provisionKey);
+    assertThat(injectionKeyInNextRound).isNotSameAs(provisionKey);
+  }
+
   @Module
   static final class QualifiedProvidesMethodModule {
     @Provides
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.nio.file.Files;
+import javax.tools.JavaFileObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ProcessorProfilerTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void profileOption_writesReportAndTrace() throws Exception {
+    JavaFileObject component =
+        JavaFileObjects.forSourceLines(
+            "test.TestComponent",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import javax.inject.Inject;",
+            "",
+            "@Component",
+            "interface TestComponent {",
+            "  Foo foo();",
+            "",
+            "  final class Foo {",
+            "    @Inject Foo() {}",
+            "  }",
+            "}");
+    File report = new File(temporaryFolder.getRoot(), "profile.json");
+    Compilation compilation =
+        daggerCompiler()
+            .withOptions("-Adagger.profile=" + report.getAbsolutePath())
+            .compile(component);
+    assertThat(compilation).succeeded();
+
+    String reportContents = new String(Files.readAllBytes(report.toPath()), UTF_8);
+    assertThat(reportContents).contains("\"ComponentProcessingStep\": {\"count\": ");
+    assertThat(reportContents).contains("\"test.TestComponent\": {\"count\": 1, ");
+    assertThat(reportContents).contains("\"required_bindings\": {\"count\": ");
+    assertThat(reportContents).contains("\"write_sources\": {\"count\": ");
+    for (String phase : new String[] {"descriptor", "resolution", "validation", "generation"}) {
+      assertThat(reportContents).contains("\"" + phase + "\": {\"count\": 1, ");
+    }
+
+    File trace = new File(temporaryFolder.getRoot(), "profile.trace.json");
+    String traceContents = new String(Files.readAllBytes(trace.toPath()), UTF_8);
+    assertThat(traceContents).startsWith("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [");
+    assertThat(traceContents)
+        .contains("{\"name\": \"resolution\", \"cat\": \"phase\", \"ph\": \"X\", \"ts\": ");
+    assertThat(traceContents).contains("\"args\": {\"component\": \"test.TestComponent\", ");
+  }
+}
@@ -31,6 +31,13 @@ import static dagger.internal.codegen.ErrorMessages.BINDING_METHOD_PRIVATE;
 import static dagger.internal.codegen.ErrorMessages.BINDING_METHOD_SET_VALUES_RAW_SET;
 import static dagger.internal.codegen.ErrorMessages.BINDING_METHOD_TYPE_PARAMETER;
 import static dagger.internal.codegen.ErrorMessages.BINDING_METHOD_WITH_SAME_NAME;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_CACHED_FRAMEWORK_PARAMETER;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_CACHE_MAXIMUM_SIZE;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_HEDGED_CACHED;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_HEDGED_DIRECT_EXECUTION;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_NEGATIVE_CACHE_TTL;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_NEGATIVE_HEDGE_DELAY;
+import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_NEGATIVE_TIMEOUT;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_RAW_FUTURE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_RETURN_TYPE;
 import static dagger.internal.codegen.ErrorMessages.PRODUCES_METHOD_SCOPE;
@@ -205,6 +212,70 @@ public class ProducerModuleFactoryGeneratorTest {
         .hasError(PRODUCES_METHOD_SCOPE);
   }
 
+  @Test
+  public void producesMethodWithNegativeTimeout() {
+    assertThatProductionModuleMethod(
+            "@Produces(timeoutMillis = -1) String str() { return \"\"; }")
+        .hasError(PRODUCES_METHOD_NEGATIVE_TIMEOUT);
+  }
+
+  @Test
+  public void producesMethodWithNegativeHedgeDelay() {
+    assertThatProductionModuleMethod(
+            "@Produces(hedgeDelayMillis = -1) String str() { return \"\"; }")
+        .hasError(PRODUCES_METHOD_NEGATIVE_HEDGE_DELAY);
+  }
+
+  @Test
+  public void producesMethodHedgedWithDirectExecution() {
+    assertThatProductionModuleMethod(
+            "@Produces(hedgeDelayMillis = 10, execution = Produces.Execution.DIRECT) "
+                + "String str() { return \"\"; }")
+        .hasError(PRODUCES_METHOD_HEDGED_DIRECT_EXECUTION);
+  }
+
+  @Test
+  public void producesMethodHedgedAndCached() {
+    assertThatProductionModuleMethod(
+            "@Produces(hedgeDelayMillis = 10, cacheTtlMillis = 10) String str() { return \"\"; }")
+        .hasError(PRODUCES_METHOD_HEDGED_CACHED);
+  }
+
+  @Test
+  public void producesMethodHedgedAndCoalesced() {
+    assertThatProductionModuleMethod(
+            "@Produces(hedgeDelayMillis = 10, coalesce = true) String str() { return \"\"; }")
+        .hasError(PRODUCES_METHOD_HEDGED_CACHED);
+  }
+
+  @Test
+  public void producesMethodWithNegativeCacheTtl() {
+    assertThatProductionModuleMethod(
+            "@Produces(cacheTtlMillis = -1) String str() { return \"\"; }")
+        .hasError(PRODUCES_METHOD_NEGATIVE_CACHE_TTL);
+  }
+
+  @Test
+  public void cachedProducesMethodWithZeroMaximumSize() {
+    assertThatProductionModuleMethod(
+            "@Produces(cacheTtlMillis = 10, cacheMaximumSize = 0) String str() { return \"\"; }")
+        .hasError(PRODUCES_METHOD_CACHE_MAXIMUM_SIZE);
+  }
+
+  @Test
+  public void cachedProducesMethodWithProducerParameter() {
+    assertThatProductionModuleMethod(
+            "@Produces(cacheTtlMillis = 10) String str(Producer<Integer> i) { return \"\"; }")
+        .hasError(PRODUCES_METHOD_CACHED_FRAMEWORK_PARAMETER);
+  }
+
+  @Test
+  public void coalescedProducesMethodWithProducedParameter() {
+    assertThatProductionModuleMethod(
+            "@Produces(coalesce = true) String str(Produced<Integer> i) { return \"\"; }")
+        .hasError(PRODUCES_METHOD_CACHED_FRAMEWORK_PARAMETER);
+  }
+
   @Test
   public void privateModule() {
     JavaFileObject moduleFile = JavaFileObjects.forSourceLines("test.Enclosing",
@@ -0,0 +1,231 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.googlejavaformat.java.Formatter;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.TypeSpec;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager.Location;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class SourceFileWriterTest {
+  private final FakeFiler filer = new FakeFiler();
+  private final FakeMessager messager = new FakeMessager();
+  private final SourceFileWriter sourceFileWriter = new SourceFileWriter(filer);
+
+  @After
+  public void shutdown() {
+    sourceFileWriter.shutdown();
+  }
+
+  @Test
+  public void flush_writesFilesInSubmissionOrder() {
+    // The first file is the slowest to render, so it finishes rendering last.
+    sourceFileWriter.write(javaFile("First", new SlowLiteral("first")), Optional.empty());
+    sourceFileWriter.write(javaFile("Second", "\"second\""), Optional.empty());
+    sourceFileWriter.write(javaFile("Third", "\"third\""), Optional.empty());
+    assertThat(filer.sourceFiles).isEmpty();
+
+    sourceFileWriter.flush(messager);
+
+    assertThat(filer.sourceFiles.keySet())
+        .containsExactly("test.First", "test.Second", "test.Third")
+        .inOrder();
+    assertThat(filer.sourceFiles.get("test.First").toString()).contains("\"first\"");
+    assertThat(filer.sourceFiles.get("test.Third").toString()).contains("\"third\"");
+    assertThat(messager.errors).isEmpty();
+  }
+
+  @Test
+  public void flush_reportsRenderingFailure() {
+    sourceFileWriter.write(javaFile("Broken", new BrokenLiteral()), Optional.empty());
+    sourceFileWriter.write(javaFile("Fine", "\"fine\""), Optional.empty());
+
+    sourceFileWriter.flush(messager);
+
+    assertThat(filer.sourceFiles.keySet()).containsExactly("test.Fine");
+    assertThat(messager.errors).hasSize(1);
+    assertThat(messager.errors.get(0)).contains("Could not generate test.Broken");
+    assertThat(messager.errors.get(0)).contains("rendering failed");
+  }
+
+  @Test
+  public void flush_writesEachFileOnce() {
+    sourceFileWriter.write(javaFile("First", "\"first\""), Optional.empty());
+    sourceFileWriter.flush(messager);
+    sourceFileWriter.write(javaFile("Second", "\"second\""), Optional.empty());
+    sourceFileWriter.flush(messager);
+
+    assertThat(filer.sourceFiles.keySet()).containsExactly("test.First", "test.Second").inOrder();
+    assertThat(messager.errors).isEmpty();
+  }
+
+  @Test
+  public void flush_formatsFilesWithFormatter() {
+    SourceFileWriter formattingWriter = new SourceFileWriter(filer, Optional.of(new Formatter()));
+    try {
+      formattingWriter.write(javaFile("Sum", "1+2"), Optional.empty());
+      formattingWriter.write(javaFile("Unparseable", "(("), Optional.empty());
+      formattingWriter.flush(messager);
+    } finally {
+      formattingWriter.shutdown();
+    }
+
+    assertThat(filer.sourceFiles.get("test.Sum").toString()).contains("VALUE = 1 + 2;");
+    // Source that can't be formatted is written as rendered.
+    assertThat(filer.sourceFiles.get("test.Unparseable").toString()).contains("VALUE = ((;");
+    assertThat(messager.errors).isEmpty();
+  }
+
+  /**
+   * Returns a file for a class with a field initialized to {@code initializer}, which is only
+   * converted to a string when the file is rendered.
+   */
+  private static JavaFile javaFile(String className, Object initializer) {
+    return JavaFile.builder(
+            "test",
+            TypeSpec.classBuilder(className)
+                .addField(
+                    FieldSpec.builder(Object.class, "VALUE")
+                        .initializer(CodeBlock.of("$L", initializer))
+                        .build())
+                .build())
+        .build();
+  }
+
+  /** Renders as a string literal, slowly. */
+  private static final class SlowLiteral {
+    private final String value;
+
+    SlowLiteral(String value) {
+      this.value = value;
+    }
+
+    @Override
+    public String toString() {
+      Uninterruptibles.sleepUninterruptibly(200, TimeUnit.MILLISECONDS);
+      return "\"" + value + "\"";
+    }
+  }
+
+  /** Fails to render. */
+  private static final class BrokenLiteral {
+    @Override
+    public String toString() {
+      throw new IllegalStateException("rendering failed");
+    }
+  }
+
+  /** A filer that keeps the source files it creates in memory. */
+  private static final class FakeFiler implements Filer {
+    final Map<String, StringWriter> sourceFiles = new LinkedHashMap<>();
+
+    @Override
+    public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) {
+      StringWriter contents = new StringWriter();
+      sourceFiles.put(name.toString(), contents);
+      return new SimpleJavaFileObject(
+          URI.create("mem:///" + name.toString().replace('.', '/') + ".java"),
+          JavaFileObject.Kind.SOURCE) {
+        @Override
+        public Writer openWriter() {
+          return contents;
+        }
+      };
+    }
+
+    @Override
+    public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FileObject createResource(
+        Location location,
+        CharSequence pkg,
+        CharSequence relativeName,
+        Element... originatingElements) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FileObject getResource(Location location, CharSequence pkg, CharSequence relativeName) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** A messager that keeps the errors it's given. */
+  private static final class FakeMessager implements Messager {
+    final List<String> errors = new ArrayList<>();
+
+    @Override
+    public void printMessage(Diagnostic.Kind kind, CharSequence msg) {
+      if (kind.equals(ERROR)) {
+        errors.add(msg.toString());
+      }
+    }
+
+    @Override
+    public void printMessage(Diagnostic.Kind kind, CharSequence msg, Element e) {
+      printMessage(kind, msg);
+    }
+
+    @Override
+    public void printMessage(
+        Diagnostic.Kind kind, CharSequence msg, Element e, AnnotationMirror a) {
+      printMessage(kind, msg);
+    }
+
+    @Override
+    public void printMessage(
+        Diagnostic.Kind kind,
+        CharSequence msg,
+        Element e,
+        AnnotationMirror a,
+        AnnotationValue v) {
+      printMessage(kind, msg);
+    }
+  }
+}
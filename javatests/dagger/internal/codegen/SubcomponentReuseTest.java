@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for subcomponents that are installed in more than one parent, whose resolution under one
+ * parent may be reused under another.
+ */
+@RunWith(JUnit4.class)
+public class SubcomponentReuseTest {
+  private static final JavaFileObject FOO =
+      JavaFileObjects.forSourceLines(
+          "test.Foo",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Foo {",
+          "  @Inject Foo() {}",
+          "}");
+
+  @Test
+  public void subcomponentIndependentOfParents_sameBindingsInEveryParent() throws Exception {
+    JavaFileObject bar =
+        JavaFileObjects.forSourceLines(
+            "test.Bar",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Bar {",
+            "  @Inject Bar(Foo foo) {}",
+            "}");
+    JavaFileObject child =
+        JavaFileObjects.forSourceLines(
+            "test.Child",
+            "package test;",
+            "",
+            "import dagger.Subcomponent;",
+            "",
+            "@Subcomponent",
+            "interface Child {",
+            "  Foo foo();",
+            "  Grandchild grandchild();",
+            "}");
+    JavaFileObject grandchild =
+        JavaFileObjects.forSourceLines(
+            "test.Grandchild",
+            "package test;",
+            "",
+            "import dagger.Subcomponent;",
+            "",
+            "@Subcomponent",
+            "interface Grandchild {",
+            "  Bar bar();",
+            "}");
+    JavaFileObject parentA =
+        JavaFileObjects.forSourceLines(
+            "test.ParentA",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface ParentA {",
+            "  Child child();",
+            "}");
+    JavaFileObject parentB =
+        JavaFileObjects.forSourceLines(
+            "test.ParentB",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Component(modules = ParentB.NumberModule.class)",
+            "interface ParentB {",
+            "  Child child();",
+            "  Integer number();",
+            "",
+            "  @Module",
+            "  final class NumberModule {",
+            "    @Provides static Integer number() {",
+            "      return 1;",
+            "    }",
+            "  }",
+            "}");
+
+    Compilation compilation =
+        daggerCompiler().compile(FOO, bar, child, grandchild, parentA, parentB);
+    assertThat(compilation).succeeded();
+    for (String parent : new String[] {"test.DaggerParentA", "test.DaggerParentB"}) {
+      String generated = generatedSource(compilation, parent);
+      assertThat(generated).contains("private final class ChildImpl implements Child");
+      assertThat(generated).contains("private final class GrandchildImpl implements Grandchild");
+      assertThat(generated).containsMatch("return new Bar\\(\\s*new Foo\\(\\)\\);");
+    }
+
+    ImmutableList<BindingGraph> parents =
+        resolveParents(FOO, bar, child, grandchild, parentA, parentB);
+    BindingGraph childInA = getOnlyElement(parents.get(0).subgraphs());
+    BindingGraph childInB = getOnlyElement(parents.get(1).subgraphs());
+    assertThat(resolvedBindings(childInB, "test.Foo"))
+        .isSameAs(resolvedBindings(childInA, "test.Foo"));
+    assertThat(resolvedBindings(getOnlyElement(childInB.subgraphs()), "test.Bar"))
+        .isSameAs(resolvedBindings(getOnlyElement(childInA.subgraphs()), "test.Bar"));
+  }
+
+  @Test
+  public void subcomponentUsesBindingFromSecondParent_resolvedAgain() throws Exception {
+    JavaFileObject child =
+        JavaFileObjects.forSourceLines(
+            "test.Child",
+            "package test;",
+            "",
+            "import dagger.Subcomponent;",
+            "",
+            "@Subcomponent",
+            "interface Child {",
+            "  Foo foo();",
+            "}");
+    JavaFileObject parentA =
+        JavaFileObjects.forSourceLines(
+            "test.ParentA",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface ParentA {",
+            "  Child child();",
+            "}");
+    JavaFileObject parentB =
+        JavaFileObjects.forSourceLines(
+            "test.ParentB",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Component(modules = ParentB.FooModule.class)",
+            "interface ParentB {",
+            "  Child child();",
+            "",
+            "  @Module",
+            "  final class FooModule {",
+            "    @Provides static Foo foo() {",
+            "      return new Foo();",
+            "    }",
+            "  }",
+            "}");
+
+    Compilation compilation = daggerCompiler().compile(FOO, child, parentA, parentB);
+    assertThat(compilation).succeeded();
+    assertThat(generatedSource(compilation, "test.DaggerParentA")).contains("new Foo()");
+    String parentBComponent = generatedSource(compilation, "test.DaggerParentB");
+    assertThat(parentBComponent).contains("FooModule");
+    assertThat(parentBComponent).doesNotContain("new Foo()");
+
+    ImmutableList<BindingGraph> parents = resolveParents(FOO, child, parentA, parentB);
+    ResolvedBindings fooInA =
+        resolvedBindings(getOnlyElement(parents.get(0).subgraphs()), "test.Foo");
+    ResolvedBindings fooInB =
+        resolvedBindings(getOnlyElement(parents.get(1).subgraphs()), "test.Foo");
+    assertThat(fooInB).isNotSameAs(fooInA);
+    assertThat(getOnlyElement(fooInA.allContributionBindings().values()).bindingKind())
+        .isEqualTo(ContributionBinding.Kind.INJECTION);
+    assertThat(getOnlyElement(fooInB.allContributionBindings().values()).bindingKind())
+        .isEqualTo(ContributionBinding.Kind.PROVISION);
+  }
+
+  @Test
+  public void subcomponentMissingBindingInSecondParent_reported() {
+    JavaFileObject bar =
+        JavaFileObjects.forSourceLines(
+            "test.Bar",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Bar {",
+            "  @Inject Bar(String string) {}",
+            "}");
+    JavaFileObject child =
+        JavaFileObjects.forSourceLines(
+            "test.Child",
+            "package test;",
+            "",
+            "import dagger.Subcomponent;",
+            "",
+            "@Subcomponent",
+            "interface Child {",
+            "  Bar bar();",
+            "}");
+    JavaFileObject parentA =
+        JavaFileObjects.forSourceLines(
+            "test.ParentA",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "import dagger.Module;",
+            "import dagger.Provides;",
+            "",
+            "@Component(modules = ParentA.StringModule.class)",
+            "interface ParentA {",
+            "  Child child();",
+            "",
+            "  @Module",
+            "  final class StringModule {",
+            "    @Provides static String string() {",
+            "      return \"a\";",
+            "    }",
+            "  }",
+            "}");
+    JavaFileObject parentB =
+        JavaFileObjects.forSourceLines(
+            "test.ParentB",
+            "package test;",
+            "",
+            "import dagger.Component;",
+            "",
+            "@Component",
+            "interface ParentB {",
+            "  Child child();",
+            "}");
+
+    Compilation compilation = daggerCompiler().compile(bar, child, parentA, parentB);
+    assertThat(compilation).failed();
+    assertThat(compilation).hadErrorCount(1);
+    assertThat(compilation)
+        .hadErrorContaining(
+            "java.lang.String cannot be provided without an @Inject constructor or from an "
+                + "@Provides-annotated method")
+        .inFile(parentB)
+        .onLineContaining("interface ParentB");
+  }
+
+  /**
+   * Returns the graphs for {@code test.ParentA} and then {@code test.ParentB}, resolved by the same
+   * {@link BindingGraph.Factory}, so that the second can reuse subcomponent resolutions from the
+   * first.
+   */
+  private static ImmutableList<BindingGraph> resolveParents(JavaFileObject... sources) {
+    ParentResolvingProcessor processor = new ParentResolvingProcessor();
+    assertThat(javac().withProcessors(processor).compile(sources)).succeeded();
+    return ImmutableList.copyOf(processor.graphs);
+  }
+
+  private static ResolvedBindings resolvedBindings(BindingGraph graph, String key) {
+    return getOnlyElement(
+        Maps.filterKeys(graph.contributionBindings(), k -> k.toString().equals(key)).values());
+  }
+
+  private static final class ParentResolvingProcessor extends AbstractProcessor {
+    final List<BindingGraph> graphs = new ArrayList<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+      return ImmutableSet.of("*");
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      if (graphs.isEmpty()) {
+        KytheBindingGraphFactory factory =
+            new KytheBindingGraphFactory(
+                processingEnv.getTypeUtils(), processingEnv.getElementUtils());
+        for (String parent : new String[] {"test.ParentA", "test.ParentB"}) {
+          graphs.add(
+              factory.create(processingEnv.getElementUtils().getTypeElement(parent)).get());
+        }
+      }
+      return false;
+    }
+  }
+
+  private static String generatedSource(Compilation compilation, String qualifiedName)
+      throws Exception {
+    return compilation
+        .generatedSourceFile(qualifiedName)
+        .get()
+        .getCharContent(true)
+        .toString();
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static dagger.internal.codegen.Compilers.daggerCompiler;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.Compiler;
+import com.google.testing.compile.JavaFileObjects;
+import java.io.File;
+import java.nio.file.Files;
+import javax.tools.JavaFileObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class ValidatedGraphCacheTest {
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private static final JavaFileObject COMPONENT =
+      JavaFileObjects.forSourceLines(
+          "test.TestComponent",
+          "package test;",
+          "",
+          "import dagger.Component;",
+          "",
+          "@Component",
+          "interface TestComponent {",
+          "  Foo foo();",
+          "}");
+
+  private static final JavaFileObject FOO =
+      JavaFileObjects.forSourceLines(
+          "test.Foo",
+          "package test;",
+          "",
+          "import javax.inject.Inject;",
+          "",
+          "final class Foo {",
+          "  @Inject Foo() {}",
+          "}");
+
+  private Compiler compiler() {
+    return daggerCompiler()
+        .withOptions("-Adagger.graphCacheDirectory=" + temporaryFolder.getRoot());
+  }
+
+  /** Returns a compiler that uses the cache and writes a profile, which shows the phases run. */
+  private Compiler profilingCompiler(File profile) {
+    return daggerCompiler()
+        .withOptions(
+            "-Adagger.graphCacheDirectory=" + temporaryFolder.getRoot(),
+            "-Adagger.profile=" + profile.getAbsolutePath());
+  }
+
+  @Test
+  public void cleanGraph_isRecorded() {
+    assertThat(compiler().compile(COMPONENT, FOO)).succeeded();
+    assertThat(new File(temporaryFolder.getRoot(), "test.TestComponent.fingerprint").exists())
+        .isTrue();
+
+    assertThat(compiler().compile(COMPONENT, FOO)).succeeded();
+  }
+
+  @Test
+  public void cacheHit_skipsValidation() throws Exception {
+    File profile = new File(temporaryFolder.newFolder("profile"), "profile.json");
+
+    assertThat(profilingCompiler(profile).compile(COMPONENT, FOO)).succeeded();
+    String missProfile = new String(Files.readAllBytes(profile.toPath()), UTF_8);
+    assertThat(missProfile).contains("\"fingerprint\": {\"count\": 1, ");
+    assertThat(missProfile).contains("\"validation\": {\"count\": 1, ");
+
+    assertThat(profilingCompiler(profile).compile(COMPONENT, FOO)).succeeded();
+    String hitProfile = new String(Files.readAllBytes(profile.toPath()), UTF_8);
+    assertThat(hitProfile).contains("\"fingerprint\": {\"count\": 1, ");
+    assertThat(hitProfile).doesNotContain("\"validation\"");
+  }
+
+  @Test
+  public void changedGraph_isValidatedAgain() {
+    assertThat(compiler().compile(COMPONENT, FOO)).succeeded();
+
+    JavaFileObject fooWithMissingDependency =
+        JavaFileObjects.forSourceLines(
+            "test.Foo",
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "",
+            "final class Foo {",
+            "  @Inject Foo(CharSequence missing) {}",
+            "}");
+    Compilation compilation = compiler().compile(COMPONENT, fooWithMissingDependency);
+    assertThat(compilation).failed();
+    assertThat(compilation)
+        .hadErrorContaining(
+            "java.lang.CharSequence cannot be provided without an @Provides-annotated method");
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@code --name=value} flags passed to a benchmark's {@code main} method. Every benchmark
+ * accepts {@code --output=<path>}, which names the file that results are written to instead of
+ * stdout.
+ */
+final class BenchmarkFlags {
+  private final ImmutableMap<String, String> flags;
+
+  private BenchmarkFlags(Map<String, String> flags) {
+    this.flags = ImmutableMap.copyOf(flags);
+  }
+
+  static BenchmarkFlags parse(String[] args) {
+    Map<String, String> flags = new HashMap<>();
+    for (String arg : args) {
+      checkState(arg.startsWith("--") && arg.contains("="), "Expected --name=value: %s", arg);
+      int equals = arg.indexOf('=');
+      flags.put(arg.substring(2, equals), arg.substring(equals + 1));
+    }
+    return new BenchmarkFlags(flags);
+  }
+
+  String get(String name, String defaultValue) {
+    return flags.getOrDefault(name, defaultValue);
+  }
+
+  long getLong(String name, long defaultValue) {
+    return flags.containsKey(name) ? Long.parseLong(flags.get(name)) : defaultValue;
+  }
+
+  int getInt(String name, int defaultValue) {
+    return Ints.checkedCast(getLong(name, defaultValue));
+  }
+
+  /** Returns the comma-separated integers in a flag's value. */
+  ImmutableList<Integer> getInts(String name, String defaultValue) {
+    ImmutableList.Builder<Integer> values = ImmutableList.builder();
+    String commaSeparated = get(name, defaultValue);
+    for (String value : Splitter.on(',').trimResults().omitEmptyStrings().split(commaSeparated)) {
+      values.add(Ints.checkedCast(Long.parseLong(value)));
+    }
+    return values.build();
+  }
+
+  /** Returns the comma-separated booleans in a flag's value. */
+  ImmutableList<Boolean> getBooleans(String name, String defaultValue) {
+    ImmutableList.Builder<Boolean> values = ImmutableList.builder();
+    String commaSeparated = get(name, defaultValue);
+    for (String value : Splitter.on(',').trimResults().omitEmptyStrings().split(commaSeparated)) {
+      checkState(
+          value.equals("true") || value.equals("false"),
+          "Expected a boolean: --%s=%s",
+          name,
+          value);
+      values.add(Boolean.parseBoolean(value));
+    }
+    return values.build();
+  }
+
+  /** Writes {@code results} as JSON to the file named by {@code --output}, or to stdout. */
+  void writeResults(Iterable<BenchmarkResult> results) throws IOException {
+    if (flags.containsKey("output")) {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(flags.get("output")), UTF_8)) {
+        BenchmarkResult.writeJson(results, writer);
+      }
+    } else {
+      BenchmarkResult.writeJson(results, new OutputStreamWriter(System.out, UTF_8));
+    }
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A single measurement of a benchmark. Results are written in the same JSON layout as JMH's {@code
+ * -rf json} output, so that the same tooling can be used to compare runs and gate regressions.
+ */
+@AutoValue
+abstract class BenchmarkResult {
+  /** The fully qualified name of the benchmark. */
+  abstract String benchmark();
+
+  /** The mode of the primary metric, such as {@code thrpt} or {@code ss} (single shot). */
+  abstract String mode();
+
+  abstract int threads();
+
+  /** The parameters that identify this measurement within its benchmark. */
+  abstract ImmutableMap<String, String> params();
+
+  abstract Metric primaryMetric();
+
+  abstract ImmutableMap<String, Metric> secondaryMetrics();
+
+  static Builder builder() {
+    return new AutoValue_BenchmarkResult.Builder().setThreads(1);
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+    abstract Builder setBenchmark(String benchmark);
+
+    abstract Builder setMode(String mode);
+
+    abstract Builder setThreads(int threads);
+
+    abstract ImmutableMap.Builder<String, String> paramsBuilder();
+
+    abstract Builder setPrimaryMetric(Metric primaryMetric);
+
+    abstract ImmutableMap.Builder<String, Metric> secondaryMetricsBuilder();
+
+    Builder putParam(String name, Object value) {
+      paramsBuilder().put(name, String.valueOf(value));
+      return this;
+    }
+
+    Builder putSecondaryMetric(String name, double score, String unit) {
+      secondaryMetricsBuilder().put(name, Metric.create(score, unit));
+      return this;
+    }
+
+    abstract BenchmarkResult build();
+  }
+
+  /** A score and its unit. */
+  @AutoValue
+  abstract static class Metric {
+    abstract double score();
+
+    abstract String scoreUnit();
+
+    static Metric create(double score, String scoreUnit) {
+      return new AutoValue_BenchmarkResult_Metric(score, scoreUnit);
+    }
+  }
+
+  /** Writes {@code results} as a JSON array to {@code writer}. */
+  static void writeJson(Iterable<BenchmarkResult> results, Writer writer) throws IOException {
+    writer.write("[\n");
+    for (Iterator<BenchmarkResult> iterator = results.iterator(); iterator.hasNext(); ) {
+      iterator.next().writeJson(writer);
+      writer.write(iterator.hasNext() ? ",\n" : "\n");
+    }
+    writer.write("]\n");
+    writer.flush();
+  }
+
+  private void writeJson(Writer writer) throws IOException {
+    writer.write("  {\n");
+    writer.write("    \"benchmark\": " + quote(benchmark()) + ",\n");
+    writer.write("    \"mode\": " + quote(mode()) + ",\n");
+    writer.write("    \"threads\": " + threads() + ",\n");
+    writer.write("    \"params\": {");
+    writeEntries(writer, params(), "      ", BenchmarkResult::quote);
+    writer.write("},\n");
+    writer.write("    \"primaryMetric\": " + metricJson(primaryMetric()) + ",\n");
+    writer.write("    \"secondaryMetrics\": {");
+    writeEntries(writer, secondaryMetrics(), "      ", BenchmarkResult::metricJson);
+    writer.write("}\n");
+    writer.write("  }");
+  }
+
+  private static <V> void writeEntries(
+      Writer writer,
+      Map<String, V> entries,
+      String indent,
+      Function<V, String> valueFormatter)
+      throws IOException {
+    if (entries.isEmpty()) {
+      return;
+    }
+    writer.write("\n");
+    for (Iterator<Map.Entry<String, V>> iterator = entries.entrySet().iterator();
+        iterator.hasNext(); ) {
+      Map.Entry<String, V> entry = iterator.next();
+      writer.write(indent + quote(entry.getKey()) + ": " + valueFormatter.apply(entry.getValue()));
+      writer.write(iterator.hasNext() ? ",\n" : "\n");
+    }
+    writer.write(indent.substring(2));
+  }
+
+  private static String metricJson(Metric metric) {
+    return String.format(
+        "{\"score\": %s, \"scoreUnit\": %s}",
+        Double.isFinite(metric.score()) ? metric.score() : "null",
+        quote(metric.scoreUnit()));
+  }
+
+  private static String quote(String string) {
+    StringBuilder quoted = new StringBuilder(string.length() + 2).append('"');
+    for (char c : string.toCharArray()) {
+      switch (c) {
+        case '"':
+          quoted.append("\\\"");
+          break;
+        case '\\':
+          quoted.append("\\\\");
+          break;
+        case '\n':
+          quoted.append("\\n");
+          break;
+        case '\t':
+          quoted.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            quoted.append(String.format("\\u%04x", (int) c));
+          } else {
+            quoted.append(c);
+          }
+      }
+    }
+    return quoted.append('"').toString();
+  }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Uninterruptibles.joinUninterruptibly;
+import static com.google.testing.compile.Compiler.javac;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.Compilation;
+import dagger.internal.codegen.ComponentProcessor;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+
+/** Utilities for benchmarks that measure compiling sources with {@link ComponentProcessor}. */
+final class CompilationBenchmarks {
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private static final com.sun.management.OperatingSystemMXBean OPERATING_SYSTEM_MX_BEAN =
+      (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+  /**
+   * Compiles {@code sources} in-process {@code warmupIterations + iterations} times, and returns a
+   * single-shot result whose primary metric is the median wall time of the measured iterations.
+   * The secondary metrics are:
+   *
+   * <ul>
+   *   <li>{@code cpu.time}: the CPU time of the whole process. This includes the pool threads
+   *       that Dagger renders sources and runs plugins on, as well as the JVM's JIT compiler and
+   *       garbage collector threads.
+   *   <li>{@code processor.time}: the wall time spent in {@link ComponentProcessor}'s rounds,
+   *       without parsing, attribution and bytecode generation
+   *   <li>{@code ·gc.alloc.rate.norm}: the bytes allocated by all threads, including Dagger's
+   *       pool threads. See {@link AllocationSampler}.
+   *   <li>{@code heap.peak}: the largest peak heap usage of any measured iteration, summed over
+   *       the heap's memory pools
+   * </ul>
+   *
+   * <p>The returned builder has its benchmark name and mode set. Callers should add the parameters
+   * that identify the sources.
+   *
+   * @throws IllegalStateException if the sources do not compile
+   */
+  static BenchmarkResult.Builder measureCompilation(
+      String benchmark, Iterable<JavaFileObject> sources, int warmupIterations, int iterations) {
+    return measureCompilation(benchmark, sources, ImmutableList.of(), warmupIterations, iterations);
+  }
+
+  /**
+   * Like {@link #measureCompilation(String, Iterable, int, int)}, but passes {@code options} to
+   * javac in every iteration.
+   */
+  static BenchmarkResult.Builder measureCompilation(
+      String benchmark,
+      Iterable<JavaFileObject> sources,
+      Iterable<String> options,
+      int warmupIterations,
+      int iterations) {
+    checkArgument(iterations > 0, "iterations must be positive: %s", iterations);
+    for (int i = 0; i < warmupIterations; i++) {
+      compile(sources, options);
+    }
+
+    long[] wallNanos = new long[iterations];
+    long cpuNanos = 0;
+    long processorNanos = 0;
+    long allocatedBytes = 0;
+    long peakHeapBytes = 0;
+    for (int i = 0; i < iterations; i++) {
+      resetPeakHeapUsage();
+      AllocationSampler allocationSampler = AllocationSampler.start();
+      long cpuBefore = OPERATING_SYSTEM_MX_BEAN.getProcessCpuTime();
+      long start = System.nanoTime();
+      processorNanos += compile(sources, options);
+      wallNanos[i] = System.nanoTime() - start;
+      cpuNanos += OPERATING_SYSTEM_MX_BEAN.getProcessCpuTime() - cpuBefore;
+      allocatedBytes += allocationSampler.stop();
+      peakHeapBytes = Math.max(peakHeapBytes, peakHeapUsage());
+    }
+    Arrays.sort(wallNanos);
+
+    return BenchmarkResult.builder()
+        .setBenchmark(benchmark)
+        .setMode("ss")
+        .setPrimaryMetric(BenchmarkResult.Metric.create(millis(wallNanos[iterations / 2]), "ms/op"))
+        .putSecondaryMetric("cpu.time", millis(cpuNanos) / iterations, "ms/op")
+        .putSecondaryMetric("processor.time", millis(processorNanos) / iterations, "ms/op")
+        .putSecondaryMetric("·gc.alloc.rate.norm", allocatedBytes / (double) iterations, "B/op")
+        .putSecondaryMetric("heap.peak", peakHeapBytes / (double) (1 << 20), "MB");
+  }
+
+  /** Compiles {@code sources} and returns the wall time spent in the processor. */
+  private static long compile(Iterable<JavaFileObject> sources, Iterable<String> options) {
+    TimedProcessor processor = new TimedProcessor(new ComponentProcessor());
+    Compilation compilation =
+        javac().withProcessors(processor).withOptions(options).compile(sources);
+    if (!compilation.status().equals(Compilation.Status.SUCCESS)) {
+      throw new IllegalStateException("Benchmark sources did not compile: " + compilation.errors());
+    }
+    return processor.nanos;
+  }
+
+  private static void resetPeakHeapUsage() {
+    System.gc();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType().equals(MemoryType.HEAP)) {
+        pool.resetPeakUsage();
+      }
+    }
+  }
+
+  private static long peakHeapUsage() {
+    long bytes = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType().equals(MemoryType.HEAP)) {
+        bytes += pool.getPeakUsage().getUsed();
+      }
+    }
+    return bytes;
+  }
+
+  private static double millis(long nanos) {
+    return nanos / (double) MILLISECONDS.toNanos(1);
+  }
+
+  /**
+   * Sums the bytes allocated by every thread between {@link #start()} and {@link #stop()}.
+   *
+   * <p>A thread's allocation counter disappears when the thread exits, and Dagger's pool threads
+   * exit when processing is over. So the counters of all live threads are sampled every {@value
+   * #PERIOD_MILLIS} millisecond until stopped, and a thread that exits is counted up to its last
+   * sample. The pools are idle by the time they are shut down, so little is missed.
+   */
+  private static final class AllocationSampler {
+    private static final long PERIOD_MILLIS = 1;
+
+    private final Map<Long, Long> startBytes;
+    private final Map<Long, Long> latestBytes = new HashMap<>();
+    private final Thread samplingThread;
+    private volatile boolean stopped;
+
+    static AllocationSampler start() {
+      AllocationSampler sampler = new AllocationSampler();
+      sampler.samplingThread.start();
+      return sampler;
+    }
+
+    private AllocationSampler() {
+      this.startBytes = sample();
+      this.samplingThread = new Thread(this::run, "allocation-sampler");
+      samplingThread.setDaemon(true);
+    }
+
+    private void run() {
+      while (!stopped) {
+        latestBytes.putAll(sample());
+        try {
+          Thread.sleep(PERIOD_MILLIS);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    }
+
+    /** Stops sampling and returns the bytes allocated by all threads other than the sampler. */
+    long stop() {
+      stopped = true;
+      samplingThread.interrupt();
+      joinUninterruptibly(samplingThread);
+      latestBytes.putAll(sample());
+      latestBytes.remove(samplingThread.getId());
+      long bytes = 0;
+      for (Map.Entry<Long, Long> thread : latestBytes.entrySet()) {
+        bytes += thread.getValue() - startBytes.getOrDefault(thread.getKey(), 0L);
+      }
+      return bytes;
+    }
+
+    private static Map<Long, Long> sample() {
+      long[] threadIds = THREAD_MX_BEAN.getAllThreadIds();
+      long[] allocatedBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadIds);
+      Map<Long, Long> sample = new HashMap<>();
+      for (int i = 0; i < threadIds.length; i++) {
+        // -1 means the thread exited after its ID was read.
+        if (allocatedBytes[i] >= 0) {
+          sample.put(threadIds[i], allocatedBytes[i]);
+        }
+      }
+      return sample;
+    }
+  }
+
+  /** A processor that delegates to another and sums the wall time of its rounds. */
+  private static final class TimedProcessor implements Processor {
+    private final Processor delegate;
+    long nanos;
+
+    TimedProcessor(Processor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+      return delegate.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+      return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+      long start = System.nanoTime();
+      delegate.init(processingEnv);
+      nanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      long start = System.nanoTime();
+      try {
+        return delegate.process(annotations, roundEnv);
+      } finally {
+        nanos += System.nanoTime() - start;
+      }
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(
+        Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+      return delegate.getCompletions(element, annotation, member, userText);
+    }
+  }
+
+  private CompilationBenchmarks() {}
+}
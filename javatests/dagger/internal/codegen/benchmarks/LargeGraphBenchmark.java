@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static dagger.internal.codegen.benchmarks.CompilationBenchmarks.measureCompilation;
+import static java.util.stream.Collectors.joining;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.testing.compile.JavaFileObjects;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.tools.JavaFileObject;
+
+/**
+ * Measures compiling a synthetic project with a large binding graph.
+ *
+ * <p>The project is a tree of components: a root component with {@code --subcomponentFanout}
+ * subcomponents, each of which has as many subcomponents of its own, {@code --subcomponentDepth}
+ * levels deep. The {@code --bindings} bindings are split evenly between the components. The
+ * bindings in each component are:
+ *
+ * <ul>
+ *   <li>{@code @Inject} classes, each of which depends on two others, on a {@code @Provides}
+ *       binding, and, for the root class of a subcomponent, on the root class of its parent
+ *   <li>{@code @Provides} methods for qualified strings
+ *   <li>{@code @IntoSet} contributions to a {@code Set<String>} that every component requests
+ *   <li>{@code @IntoMap} contributions to a {@code Map<String, Integer>} that every component
+ *       requests, both directly and as {@code Map<String, Provider<Integer>>}
+ *   <li>chains of {@code --bindsChainLength} {@code @Binds} methods, each binding an interface to
+ *       a subtype, ending in an {@code @Inject} class
+ * </ul>
+ *
+ * <p>The module methods are split into modules of {@code --bindingsPerModule} methods. Every
+ * binding is reachable from an entry point, so every binding is resolved, validated and generated.
+ *
+ * <p>In addition to the compilation time, each result reports the time spent in the processor and
+ * the peak heap usage.
+ *
+ * <p>With {@code --graphCache=true}, each project is compiled with {@code
+ * -Adagger.graphCacheDirectory}. The warmup iterations fill the cache, so every measured iteration
+ * fingerprints the graphs instead of validating them. Passing {@code --graphCache=false,true}
+ * measures both, which shows whether fingerprinting is cheaper than validating for graphs of each
+ * size.
+ *
+ * <p>Other flags, with their defaults:
+ *
+ * <ul>
+ *   <li>{@code --bindings=1000,10000,50000}
+ *   <li>{@code --subcomponentDepth=2}
+ *   <li>{@code --subcomponentFanout=3}
+ *   <li>{@code --bindsChainLength=5}
+ *   <li>{@code --bindingsPerModule=25}
+ *   <li>{@code --graphCache=false}
+ *   <li>{@code --warmupIterations=1}
+ *   <li>{@code --iterations=3}
+ * </ul>
+ */
+public final class LargeGraphBenchmark {
+  public static void main(String[] args) throws Exception {
+    BenchmarkFlags flags = BenchmarkFlags.parse(args);
+    int subcomponentDepth = flags.getInt("subcomponentDepth", 2);
+    int subcomponentFanout = flags.getInt("subcomponentFanout", 3);
+    int bindsChainLength = flags.getInt("bindsChainLength", 5);
+    checkArgument(bindsChainLength > 0, "--bindsChainLength must be positive");
+    int bindingsPerModule = flags.getInt("bindingsPerModule", 25);
+    int warmupIterations = flags.getInt("warmupIterations", 1);
+    int iterations = flags.getInt("iterations", 3);
+    ImmutableList<Boolean> graphCaches = flags.getBooleans("graphCache", "false");
+    checkArgument(
+        warmupIterations > 0 || !graphCaches.contains(true),
+        "--graphCache=true needs a warmup iteration to fill the cache");
+
+    List<BenchmarkResult> results = new ArrayList<>();
+    for (int bindings : flags.getInts("bindings", "1000,10000,50000")) {
+      Project project =
+          new Project(
+              bindings, subcomponentDepth, subcomponentFanout, bindsChainLength, bindingsPerModule);
+      ImmutableList<JavaFileObject> sources = project.sources();
+      for (boolean graphCache : graphCaches) {
+        ImmutableList<String> options =
+            graphCache
+                ? ImmutableList.of(
+                    "-Adagger.graphCacheDirectory="
+                        + Files.createTempDirectory("dagger-graph-cache"))
+                : ImmutableList.of();
+        results.add(
+            measureCompilation(
+                    LargeGraphBenchmark.class.getName() + ".compile",
+                    sources,
+                    options,
+                    warmupIterations,
+                    iterations)
+                .putParam("bindings", bindings)
+                .putParam("components", project.components.size())
+                .putParam("subcomponentDepth", subcomponentDepth)
+                .putParam("subcomponentFanout", subcomponentFanout)
+                .putParam("bindsChainLength", bindsChainLength)
+                .putParam("bindingsPerModule", bindingsPerModule)
+                .putParam("graphCache", graphCache)
+                .build());
+      }
+    }
+    flags.writeResults(results);
+  }
+
+  /** The generated sources. Component {@code c} has a name prefix of {@code C<c>}. */
+  private static final class Project {
+    final List<ComponentNode> components = new ArrayList<>();
+    private final int bindsChainLength;
+    private final int bindingsPerModule;
+    private final ImmutableList.Builder<JavaFileObject> sources = ImmutableList.builder();
+
+    Project(
+        int bindings,
+        int subcomponentDepth,
+        int subcomponentFanout,
+        int bindsChainLength,
+        int bindingsPerModule) {
+      this.bindsChainLength = bindsChainLength;
+      this.bindingsPerModule = bindingsPerModule;
+      addComponents(Optional.empty(), 0, subcomponentDepth, subcomponentFanout);
+      int bindingsPerComponent = Math.max(bindings / components.size(), 10);
+      for (ComponentNode component : components) {
+        component.allocate(bindingsPerComponent, bindsChainLength);
+      }
+    }
+
+    private ComponentNode addComponents(
+        Optional<ComponentNode> parent, int depth, int maxDepth, int fanout) {
+      ComponentNode component = new ComponentNode(components.size(), parent);
+      components.add(component);
+      if (depth < maxDepth) {
+        for (int i = 0; i < fanout; i++) {
+          component.children.add(
+              addComponents(Optional.of(component), depth + 1, maxDepth, fanout));
+        }
+      }
+      return component;
+    }
+
+    ImmutableList<JavaFileObject> sources() {
+      for (ComponentNode component : components) {
+        addInjectClasses(component);
+        addBindsChains(component);
+        addComponent(component, addModules(component));
+      }
+      return sources.build();
+    }
+
+    private void addInjectClasses(ComponentNode component) {
+      for (int i = 0; i < component.injectClasses; i++) {
+        List<String> parameters = new ArrayList<>();
+        for (int child = 2 * i + 1; child <= 2 * i + 2; child++) {
+          if (child < component.injectClasses) {
+            parameters.add(component.prefix + "Inject" + child + " inject" + child);
+          }
+        }
+        parameters.add(
+            String.format(
+                "@Named(\"%s\") String string", component.name(i % component.providesMethods)));
+        if (i == 0 && component.parent.isPresent()) {
+          parameters.add(component.parent.get().prefix + "Inject0 parent");
+        }
+        String className = component.prefix + "Inject" + i;
+        add(
+            className,
+            "package test;",
+            "",
+            "import javax.inject.Inject;",
+            "import javax.inject.Named;",
+            "",
+            "final class " + className + " {",
+            "  @Inject " + className + "(" + String.join(", ", parameters) + ") {}",
+            "}");
+      }
+    }
+
+    private void addBindsChains(ComponentNode component) {
+      for (int chain = 0; chain < component.bindsChains; chain++) {
+        String className = component.prefix + "Chain" + chain;
+        List<String> lines = new ArrayList<>();
+        lines.add("package test;");
+        lines.add("");
+        lines.add("import javax.inject.Inject;");
+        lines.add("");
+        lines.add("final class " + className + " {");
+        lines.add("  interface Api0 {}");
+        for (int link = 1; link < bindsChainLength; link++) {
+          lines.add(String.format("  interface Api%s extends Api%s {}", link, link - 1));
+        }
+        lines.add(
+            String.format(
+                "  static final class Impl implements Api%s {", bindsChainLength - 1));
+        lines.add(
+            String.format(
+                "    @Inject Impl(%sInject%s inject) {}",
+                component.prefix, chain % component.injectClasses));
+        lines.add("  }");
+        lines.add("}");
+        add(className, lines);
+      }
+    }
+
+    /** Adds the component's modules and returns their names. */
+    private List<String> addModules(ComponentNode component) {
+      List<String> methods = new ArrayList<>();
+      for (int i = 0; i < component.providesMethods; i++) {
+        methods.add(
+            String.format(
+                "@Provides @Named(\"%1$s\") static String provide%1$s() { return \"%1$s\"; }",
+                component.name(i)));
+      }
+      for (int i = 0; i < component.setContributions; i++) {
+        methods.add(
+            String.format(
+                "@Provides @IntoSet static String set%1$s() { return \"%1$s\"; }",
+                component.name(i)));
+      }
+      for (int i = 0; i < component.mapContributions; i++) {
+        methods.add(
+            String.format(
+                "@Provides @IntoMap @StringKey(\"%1$s\") static Integer map%1$s() { return %2$s; }",
+                component.name(i), i));
+      }
+      for (int chain = 0; chain < component.bindsChains; chain++) {
+        String chainClass = component.prefix + "Chain" + chain;
+        for (int link = 0; link < bindsChainLength; link++) {
+          methods.add(
+              String.format(
+                  "@Binds abstract %1$s.Api%2$s bind%1$sApi%2$s(%1$s.%3$s impl);",
+                  chainClass,
+                  link,
+                  link == bindsChainLength - 1 ? "Impl" : "Api" + (link + 1)));
+        }
+      }
+
+      List<String> modules = new ArrayList<>();
+      for (List<String> moduleMethods : Lists.partition(methods, bindingsPerModule)) {
+        String moduleName = component.prefix + "Module" + modules.size();
+        List<String> lines = new ArrayList<>();
+        lines.add("package test;");
+        lines.add("");
+        lines.add("import dagger.Binds;");
+        lines.add("import dagger.Module;");
+        lines.add("import dagger.Provides;");
+        lines.add("import dagger.multibindings.IntoMap;");
+        lines.add("import dagger.multibindings.IntoSet;");
+        lines.add("import dagger.multibindings.StringKey;");
+        lines.add("import javax.inject.Named;");
+        lines.add("");
+        lines.add("@Module");
+        lines.add("abstract class " + moduleName + " {");
+        for (String method : moduleMethods) {
+          lines.add("  " + method);
+        }
+        lines.add("}");
+        add(moduleName, lines);
+        modules.add(moduleName);
+      }
+      return modules;
+    }
+
+    private void addComponent(ComponentNode component, List<String> modules) {
+      String componentName = component.prefix + "Component";
+      List<String> lines = new ArrayList<>();
+      lines.add("package test;");
+      lines.add("");
+      lines.add("import java.util.Map;");
+      lines.add("import java.util.Set;");
+      lines.add("import javax.inject.Provider;");
+      lines.add("");
+      lines.add(
+          String.format(
+              "@dagger.%s(modules = {%s})",
+              component.parent.isPresent() ? "Subcomponent" : "Component",
+              modules.stream().map(module -> module + ".class").collect(joining(", "))));
+      lines.add("interface " + componentName + " {");
+      lines.add("  " + component.prefix + "Inject0 inject();");
+      lines.add("  Set<String> strings();");
+      lines.add("  Map<String, Integer> integers();");
+      lines.add("  Map<String, Provider<Integer>> integerProviders();");
+      for (int chain = 0; chain < component.bindsChains; chain++) {
+        lines.add(String.format("  %1$sChain%2$s.Api0 chain%2$s();", component.prefix, chain));
+      }
+      for (ComponentNode child : component.children) {
+        lines.add(String.format("  %1$sComponent child%1$s();", child.prefix));
+      }
+      lines.add("}");
+      add(componentName, lines);
+    }
+
+    private void add(String className, String... lines) {
+      add(className, ImmutableList.copyOf(lines));
+    }
+
+    private void add(String className, List<String> lines) {
+      sources.add(JavaFileObjects.forSourceLines("test." + className, lines));
+    }
+  }
+
+  /** A component in the generated project, and how many of each kind of binding it has. */
+  private static final class ComponentNode {
+    final String prefix;
+    final Optional<ComponentNode> parent;
+    final List<ComponentNode> children = new ArrayList<>();
+    int injectClasses;
+    int providesMethods;
+    int setContributions;
+    int mapContributions;
+    int bindsChains;
+
+    ComponentNode(int index, Optional<ComponentNode> parent) {
+      this.prefix = "C" + index;
+      this.parent = parent;
+    }
+
+    /**
+     * Splits {@code bindings} into 40% {@code @Inject} classes, 20% {@code @Provides} methods, 10%
+     * set contributions, 10% map contributions and 20% {@code @Binds} chains.
+     */
+    void allocate(int bindings, int bindsChainLength) {
+      injectClasses = Math.max(bindings * 4 / 10, 1);
+      providesMethods = Math.max(bindings * 2 / 10, 1);
+      setContributions = bindings / 10;
+      mapContributions = bindings / 10;
+      bindsChains = bindings * 2 / 10 / (bindsChainLength + 1);
+    }
+
+    /** Returns a name for the {@code i}th binding of some kind that is unique in the project. */
+    String name(int i) {
+      return prefix + "_" + i;
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static dagger.internal.codegen.benchmarks.CompilationBenchmarks.measureCompilation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.testing.compile.JavaFileObjects;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.JavaFileObject;
+
+/**
+ * Measures compiling many root components that all install the same tree of modules.
+ *
+ * <p>The generated project has {@code --modules} modules, each of which includes the next two in a
+ * binary tree and has {@code --bindingsPerModule} {@code @Provides} methods. Each of the {@code
+ * --components} root components installs the root of the tree and has one entry point, so almost
+ * all of the processor's work for a component is building the descriptors for its modules.
+ *
+ * <p>The marginal cost of each additional component shows how much of that work is shared. Compare
+ * the results from two revisions of the processor to see the effect of a change. Other flags, with
+ * their defaults:
+ *
+ * <ul>
+ *   <li>{@code --components=1,10,40}
+ *   <li>{@code --modules=300}
+ *   <li>{@code --bindingsPerModule=5}
+ *   <li>{@code --warmupIterations=3}
+ *   <li>{@code --iterations=5}
+ * </ul>
+ */
+public final class SharedModulesBenchmark {
+  public static void main(String[] args) throws Exception {
+    BenchmarkFlags flags = BenchmarkFlags.parse(args);
+    int modules = flags.getInt("modules", 300);
+    int bindingsPerModule = flags.getInt("bindingsPerModule", 5);
+    int warmupIterations = flags.getInt("warmupIterations", 3);
+    int iterations = flags.getInt("iterations", 5);
+
+    List<BenchmarkResult> results = new ArrayList<>();
+    for (int components : flags.getInts("components", "1,10,40")) {
+      results.add(
+          measureCompilation(
+                  SharedModulesBenchmark.class.getName() + ".compile",
+                  sources(components, modules, bindingsPerModule),
+                  warmupIterations,
+                  iterations)
+              .putParam("components", components)
+              .putParam("modules", modules)
+              .putParam("bindingsPerModule", bindingsPerModule)
+              .build());
+    }
+    flags.writeResults(results);
+  }
+
+  private static ImmutableList<JavaFileObject> sources(
+      int components, int modules, int bindingsPerModule) {
+    ImmutableList.Builder<JavaFileObject> sources = ImmutableList.builder();
+    for (int module = 0; module < modules; module++) {
+      sources.add(module(module, modules, bindingsPerModule));
+    }
+    for (int component = 0; component < components; component++) {
+      sources.add(
+          JavaFileObjects.forSourceLines(
+              "test.Component" + component,
+              "package test;",
+              "",
+              "import dagger.Component;",
+              "import javax.inject.Named;",
+              "",
+              "@Component(modules = Module0.class)",
+              "interface Component" + component + " {",
+              "  @Named(\"0_0\") String entryPoint();",
+              "}"));
+    }
+    return sources.build();
+  }
+
+  private static JavaFileObject module(int module, int modules, int bindingsPerModule) {
+    List<String> includes = new ArrayList<>();
+    for (int child = 2 * module + 1; child <= 2 * module + 2 && child < modules; child++) {
+      includes.add("Module" + child + ".class");
+    }
+    List<String> lines = new ArrayList<>();
+    lines.add("package test;");
+    lines.add("");
+    lines.add("import dagger.Module;");
+    lines.add("import dagger.Provides;");
+    lines.add("import javax.inject.Named;");
+    lines.add("");
+    lines.add("@Module(includes = {" + String.join(", ", includes) + "})");
+    lines.add("final class Module" + module + " {");
+    for (int binding = 0; binding < bindingsPerModule; binding++) {
+      String name = module + "_" + binding;
+      lines.add(
+          String.format(
+              "  @Provides @Named(\"%1$s\") static String provide%1$s() { return \"%1$s\"; }",
+              name));
+    }
+    lines.add("}");
+    return JavaFileObjects.forSourceLines("test.Module" + module, lines);
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.internal.codegen.benchmarks;
+
+import static com.google.testing.compile.Compiler.javac;
+import static java.lang.invoke.MethodType.methodType;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import dagger.EncryptConstant;
+import dagger.internal.codegen.ComponentProcessor;
+import dagger.internal.codegen.SymEncGenerator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.tools.JavaFileObject;
+
+/**
+ * Measures the throughput and allocation of the encryptors generated for {@link dagger.SymEncrypt}
+ * types.
+ *
+ * <p>For each {@linkplain #CONFIGURATIONS configuration}, a fixture annotated with that
+ * configuration is compiled in-process with {@link ComponentProcessor}, and the generated {@code
+ * SecureDagger_} class is loaded from the compilation output. Its {@code encrypt} and {@code
+ * decrypt} methods are then measured for every payload size and thread count. The benchmark fails
+ * if the processor rejects a configuration, or if its generated encryptor fails at runtime.
+ *
+ * <p>The generated encryptor is a singleton that shares one {@link javax.crypto.Cipher}, which is
+ * not thread-safe, so every benchmark thread measures its own instance.
+ *
+ * <p>Results are written as JSON in JMH's layout, to stdout or to the file given by {@code
+ * --output}. Other flags, with their defaults:
+ *
+ * <ul>
+ *   <li>{@code --payloads=16,256,4096,65536,1048576,16777216,67108864} (bytes)
+ *   <li>{@code --threads=1,<available processors>}
+ *   <li>{@code --warmupMillis=1000}
+ *   <li>{@code --measurementMillis=2000}
+ * </ul>
+ *
+ * <p>The largest payloads need roughly 400 MB of heap per thread.
+ */
+public final class SymEncBenchmark {
+  private static final String BENCHMARK_PREFIX = SymEncBenchmark.class.getName() + ".";
+  private static final String DEFAULT_PAYLOADS = "16,256,4096,65536,1048576,16777216,67108864";
+
+  /**
+   * The configurations to measure. {@code SymEncValidator} rejects ECB and key sizes other than 32,
+   * 64 and 128 bits, and the JDK's AES key generator only accepts 128, 192 and 256 bits, so AES-128
+   * with CBC is the only configuration that generates a working encryptor today.
+   */
+  private static final ImmutableList<Configuration> CONFIGURATIONS =
+      ImmutableList.of(Configuration.create(EncryptConstant.AES, EncryptConstant.CBC, 128));
+
+  private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  /** Keeps the JIT from eliminating the measured calls. */
+  private static volatile long sink;
+
+  /** The {@link dagger.SymEncrypt} parameters that a fixture is compiled with. */
+  @AutoValue
+  abstract static class Configuration {
+    abstract String algorithm();
+
+    abstract String blockMode();
+
+    abstract int keySize();
+
+    String fixtureName() {
+      return algorithm() + keySize() + blockMode();
+    }
+
+    static Configuration create(String algorithm, String blockMode, int keySize) {
+      return new AutoValue_SymEncBenchmark_Configuration(algorithm, blockMode, keySize);
+    }
+  }
+
+  private enum Operation {
+    ENCRYPT("encrypt"),
+    DECRYPT("decrypt"),
+    ;
+
+    final String methodName;
+
+    Operation(String methodName) {
+      this.methodName = methodName;
+    }
+  }
+
+  private final ImmutableList<Integer> payloadSizes;
+  private final ImmutableSet<Integer> threadCounts;
+  private final long warmupNanos;
+  private final long measurementNanos;
+
+  private SymEncBenchmark(
+      ImmutableList<Integer> payloadSizes,
+      ImmutableSet<Integer> threadCounts,
+      long warmupMillis,
+      long measurementMillis) {
+    this.payloadSizes = payloadSizes;
+    this.threadCounts = threadCounts;
+    this.warmupNanos = MILLISECONDS.toNanos(warmupMillis);
+    this.measurementNanos = MILLISECONDS.toNanos(measurementMillis);
+  }
+
+  public static void main(String[] args) throws Exception {
+    BenchmarkFlags flags = BenchmarkFlags.parse(args);
+    SymEncBenchmark benchmark =
+        new SymEncBenchmark(
+            flags.getInts("payloads", DEFAULT_PAYLOADS),
+            ImmutableSet.copyOf(
+                flags.getInts("threads", "1," + Runtime.getRuntime().availableProcessors())),
+            flags.getLong("warmupMillis", 1000),
+            flags.getLong("measurementMillis", 2000));
+
+    List<BenchmarkResult> results = new ArrayList<>();
+    for (Configuration configuration : CONFIGURATIONS) {
+      results.addAll(benchmark.run(configuration, compileEncryptor(configuration)));
+    }
+    flags.writeResults(results);
+  }
+
+  /**
+   * Runs the processor over a fixture for {@code configuration} and returns the generated
+   * encryptor class.
+   */
+  private static Class<?> compileEncryptor(Configuration configuration)
+      throws ClassNotFoundException {
+    String fixtureName = configuration.fixtureName();
+    JavaFileObject fixture =
+        JavaFileObjects.forSourceLines(
+            "test." + fixtureName,
+            "package test;",
+            "",
+            "import dagger.SymEncrypt;",
+            "",
+            String.format(
+                "@SymEncrypt(algorithm = \"%s\", blockMode = \"%s\", keySize = %d)",
+                configuration.algorithm(), configuration.blockMode(), configuration.keySize()),
+            "final class " + fixtureName + " {}");
+    Compilation compilation = javac().withProcessors(new ComponentProcessor()).compile(fixture);
+    if (!compilation.status().equals(Compilation.Status.SUCCESS)) {
+      throw new IllegalStateException(
+          String.format("%s does not compile: %s", configuration, compilation.errors()));
+    }
+    return new CompilationClassLoader(compilation)
+        .loadClass("test." + SymEncGenerator.PREFIX + fixtureName);
+  }
+
+  private ImmutableList<BenchmarkResult> run(Configuration configuration, Class<?> encryptorClass)
+      throws Exception {
+    Constructor<?> constructor = encryptorClass.getDeclaredConstructor();
+    constructor.setAccessible(true);
+    ImmutableList.Builder<BenchmarkResult> results = ImmutableList.builder();
+    if (!canEncrypt(constructor)) {
+      throw new IllegalStateException(
+          configuration + "'s encryptor returns null for a valid input");
+    }
+    for (Operation operation : Operation.values()) {
+      MethodHandle method =
+          MethodHandles.publicLookup()
+              .findVirtual(
+                  encryptorClass, operation.methodName, methodType(String.class, String.class))
+              .asType(methodType(String.class, Object.class, String.class));
+      for (int payloadSize : payloadSizes) {
+        for (int threads : threadCounts) {
+          results.add(measure(configuration, constructor, method, operation, payloadSize, threads));
+        }
+      }
+    }
+    return results.build();
+  }
+
+  /**
+   * Returns true if the generated encryptor can encrypt at all. The generated code returns null
+   * instead of throwing when the cipher rejects its parameters.
+   */
+  private static boolean canEncrypt(Constructor<?> constructor) throws Exception {
+    Object encryptor = constructor.newInstance();
+    return input(encryptor, Operation.DECRYPT, 16) != null;
+  }
+
+  private BenchmarkResult measure(
+      Configuration configuration,
+      Constructor<?> constructor,
+      MethodHandle method,
+      Operation operation,
+      int payloadSize,
+      int threads)
+      throws Exception {
+    CyclicBarrier start = new CyclicBarrier(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<WorkerResult>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < threads; i++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  Object encryptor = constructor.newInstance();
+                  String input = input(encryptor, operation, payloadSize);
+                  start.await();
+                  return runWorker(encryptor, method, input);
+                }));
+      }
+      double opsPerSecond = 0;
+      long ops = 0;
+      long allocatedBytes = 0;
+      for (Future<WorkerResult> future : futures) {
+        WorkerResult result = future.get();
+        opsPerSecond += result.ops() / (result.elapsedNanos() / (double) SECONDS.toNanos(1));
+        ops += result.ops();
+        allocatedBytes += result.allocatedBytes();
+      }
+      return BenchmarkResult.builder()
+          .setBenchmark(BENCHMARK_PREFIX + operation.methodName)
+          .setMode("thrpt")
+          .setThreads(threads)
+          .putParam("algorithm", configuration.algorithm())
+          .putParam("keySize", configuration.keySize())
+          .putParam("blockMode", configuration.blockMode())
+          .putParam("payloadBytes", payloadSize)
+          .setPrimaryMetric(BenchmarkResult.Metric.create(opsPerSecond, "ops/s"))
+          .putSecondaryMetric("payload.rate", opsPerSecond * payloadSize, "B/s")
+          .putSecondaryMetric("·gc.alloc.rate.norm", allocatedBytes / (double) ops, "B/op")
+          .build();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private WorkerResult runWorker(Object encryptor, MethodHandle method, String input)
+      throws Exception {
+    long warmupEnd = System.nanoTime() + warmupNanos;
+    long checksum = 0;
+    while (System.nanoTime() < warmupEnd) {
+      checksum += invoke(method, encryptor, input).length();
+    }
+
+    long threadId = Thread.currentThread().getId();
+    long allocatedBefore = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+    long startNanos = System.nanoTime();
+    long measurementEnd = startNanos + measurementNanos;
+    long ops = 0;
+    long now;
+    do {
+      checksum += invoke(method, encryptor, input).length();
+      ops++;
+      now = System.nanoTime();
+    } while (now < measurementEnd);
+    long allocatedBytes = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    sink += checksum;
+    return WorkerResult.create(ops, now - startNanos, allocatedBytes);
+  }
+
+  private static String invoke(MethodHandle method, Object encryptor, String input)
+      throws Exception {
+    try {
+      return (String) method.invokeExact(encryptor, input);
+    } catch (Throwable t) {
+      Throwables.throwIfInstanceOf(t, Exception.class);
+      Throwables.throwIfUnchecked(t);
+      throw new AssertionError(t);
+    }
+  }
+
+  /** Returns the argument to pass to {@code operation}, for a plaintext of {@code size} bytes. */
+  private static String input(Object encryptor, Operation operation, int size) throws Exception {
+    char[] plaintext = new char[size];
+    for (int i = 0; i < size; i++) {
+      plaintext[i] = (char) ('a' + i % 26);
+    }
+    String input = new String(plaintext);
+    if (operation.equals(Operation.DECRYPT)) {
+      input =
+          (String) encryptor.getClass().getMethod("encrypt", String.class).invoke(encryptor, input);
+    }
+    return input;
+  }
+
+  @AutoValue
+  abstract static class WorkerResult {
+    abstract long ops();
+
+    abstract long elapsedNanos();
+
+    abstract long allocatedBytes();
+
+    static WorkerResult create(long ops, long elapsedNanos, long allocatedBytes) {
+      return new AutoValue_SymEncBenchmark_WorkerResult(ops, elapsedNanos, allocatedBytes);
+    }
+  }
+
+  /** Loads classes from the class files that a {@link Compilation} wrote. */
+  private static final class CompilationClassLoader extends ClassLoader {
+    private final Compilation compilation;
+
+    CompilationClassLoader(Compilation compilation) {
+      super(SymEncBenchmark.class.getClassLoader());
+      this.compilation = compilation;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      String path = "/" + name.replace('.', '/') + ".class";
+      for (JavaFileObject file : compilation.generatedFiles()) {
+        if (file.getKind().equals(JavaFileObject.Kind.CLASS)
+            && file.toUri().getPath().endsWith(path)) {
+          try (InputStream inputStream = file.openInputStream()) {
+            byte[] bytes = ByteStreams.toByteArray(inputStream);
+            return defineClass(name, bytes, 0, bytes.length);
+          } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+          }
+        }
+      }
+      throw new ClassNotFoundException(name);
+    }
+  }
+}
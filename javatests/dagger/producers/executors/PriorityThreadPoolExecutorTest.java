@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.executors;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class PriorityThreadPoolExecutorTest {
+  private final PriorityThreadPoolExecutor executor = new PriorityThreadPoolExecutor(1);
+  private final List<String> runOrder = new CopyOnWriteArrayList<>();
+
+  @Test
+  public void waitingTasks_runInOrderOfPriorityThenSubmission() throws Exception {
+    CountDownLatch blockerStarted = new CountDownLatch(1);
+    CountDownLatch releaseBlocker = new CountDownLatch(1);
+    executor.execute(blocker(blockerStarted, releaseBlocker));
+    assertThat(blockerStarted.await(10, SECONDS)).isTrue();
+
+    CountDownLatch done = new CountDownLatch(5);
+    executor.execute(recording("low", done), 1);
+    executor.execute(recording("highFirst", done), 3);
+    executor.execute(recording("default", done));
+    executor.execute(recording("medium", done), 2);
+    executor.execute(recording("highSecond", done), 3);
+    releaseBlocker.countDown();
+
+    assertThat(done.await(10, SECONDS)).isTrue();
+    assertThat(runOrder)
+        .containsExactly("highFirst", "highSecond", "medium", "low", "default")
+        .inOrder();
+  }
+
+  @Test
+  public void idleExecutor_runsTaskRightAway() throws Exception {
+    CountDownLatch done = new CountDownLatch(1);
+    executor.execute(recording("only", done), 5);
+    assertThat(done.await(10, SECONDS)).isTrue();
+    assertThat(runOrder).containsExactly("only");
+  }
+
+  /** Occupies the executor's only thread until {@code release} is counted down. */
+  private static Runnable blocker(final CountDownLatch started, final CountDownLatch release) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        started.countDown();
+        try {
+          release.await(10, SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  private Runnable recording(final String name, final CountDownLatch done) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        runOrder.add(name);
+        done.countDown();
+      }
+    };
+  }
+}
@@ -17,6 +17,7 @@
 package dagger.producers.internal;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.verify;
@@ -30,7 +31,11 @@ import dagger.producers.Producer;
 import dagger.producers.monitoring.ProducerMonitor;
 import dagger.producers.monitoring.ProducerToken;
 import dagger.producers.monitoring.ProductionComponentMonitor;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.inject.Provider;
 import org.junit.Before;
 import org.junit.Test;
@@ -89,6 +94,127 @@ public class AbstractProducerTest {
     assertThat(producer.get().get()).isEqualTo(0);
   }
 
+  @Test
+  public void get_concurrentRequestsDoNotWaitForCompute() throws Exception {
+    final CountDownLatch computing = new CountDownLatch(1);
+    final CountDownLatch otherRequestReturned = new CountDownLatch(1);
+    final SettableFuture<Integer> delegateFuture = SettableFuture.create();
+    final AtomicInteger computeCalls = new AtomicInteger();
+    final Producer<Integer> producer =
+        new AbstractProducer<Integer>(componentMonitorProvider, null) {
+          @Override
+          public ListenableFuture<Integer> compute() {
+            computeCalls.incrementAndGet();
+            computing.countDown();
+            try {
+              assertThat(otherRequestReturned.await(10, SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+            return delegateFuture;
+          }
+        };
+    final AtomicReference<ListenableFuture<Integer>> otherFuture = new AtomicReference<>();
+    Thread other =
+        new Thread() {
+          @Override
+          public void run() {
+            try {
+              computing.await();
+            } catch (InterruptedException e) {
+              throw new AssertionError(e);
+            }
+            otherFuture.set(producer.get());
+            otherRequestReturned.countDown();
+          }
+        };
+    other.start();
+
+    ListenableFuture<Integer> future = producer.get();
+    other.join();
+    assertThat(otherFuture.get()).isSameAs(future);
+    assertThat(computeCalls.get()).isEqualTo(1);
+    delegateFuture.set(42);
+    assertThat(otherFuture.get().get()).isEqualTo(42);
+  }
+
+  @Test
+  public void get_computeThrows_laterRequestsTryAgain() throws Exception {
+    Producer<Integer> producer =
+        new AbstractProducer<Integer>(componentMonitorProvider, null) {
+          int i = 0;
+
+          @Override
+          public ListenableFuture<Integer> compute() {
+            if (i++ == 0) {
+              throw new IllegalStateException("monkey");
+            }
+            return Futures.immediateFuture(i);
+          }
+        };
+    try {
+      producer.get();
+      fail();
+    } catch (IllegalStateException expected) {
+    }
+    assertThat(producer.get().get()).isEqualTo(2);
+  }
+
+  @Test
+  public void dependencyFuture_cancelledOnceNoDependentIsWaiting() throws Exception {
+    SettableFuture<Integer> delegateFuture = SettableFuture.create();
+    Producer<Integer> producer = new DelegateProducer<>(componentMonitorProvider, delegateFuture);
+
+    ListenableFuture<Integer> first = Producers.dependencyFuture(producer);
+    ListenableFuture<Integer> second = Producers.dependencyFuture(producer);
+    first.cancel(true);
+    assertThat(delegateFuture.isCancelled()).isFalse();
+    second.cancel(true);
+    assertThat(delegateFuture.isCancelled()).isTrue();
+    verify(monitor).failed(any(CancellationException.class));
+  }
+
+  @Test
+  public void dependencyFuture_notCancelledIfRequestedDirectly() throws Exception {
+    SettableFuture<Integer> delegateFuture = SettableFuture.create();
+    Producer<Integer> producer = new DelegateProducer<>(componentMonitorProvider, delegateFuture);
+
+    ListenableFuture<Integer> dependent = Producers.dependencyFuture(producer);
+    ListenableFuture<Integer> direct = producer.get();
+    dependent.cancel(true);
+    assertThat(direct.isCancelled()).isFalse();
+    delegateFuture.set(42);
+    assertThat(direct.get()).isEqualTo(42);
+  }
+
+  @Test
+  public void dependencyFuture_afterRequestedDirectly_notCancelled() throws Exception {
+    SettableFuture<Integer> delegateFuture = SettableFuture.create();
+    Producer<Integer> producer = new DelegateProducer<>(componentMonitorProvider, delegateFuture);
+
+    ListenableFuture<Integer> direct = producer.get();
+    ListenableFuture<Integer> dependent = Producers.dependencyFuture(producer);
+    dependent.cancel(true);
+    assertThat(dependent.isCancelled()).isTrue();
+    assertThat(direct.isCancelled()).isFalse();
+    assertThat(delegateFuture.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void dependencyFuture_requestedDirectlyBetweenCancellations_notCancelled()
+      throws Exception {
+    SettableFuture<Integer> delegateFuture = SettableFuture.create();
+    Producer<Integer> producer = new DelegateProducer<>(componentMonitorProvider, delegateFuture);
+
+    ListenableFuture<Integer> first = Producers.dependencyFuture(producer);
+    ListenableFuture<Integer> second = Producers.dependencyFuture(producer);
+    first.cancel(true);
+    ListenableFuture<Integer> direct = producer.get();
+    second.cancel(true);
+    assertThat(direct.isCancelled()).isFalse();
+    assertThat(delegateFuture.isCancelled()).isFalse();
+  }
+
   @Test
   public void monitor_success() throws Exception {
     SettableFuture<Integer> delegateFuture = SettableFuture.create();
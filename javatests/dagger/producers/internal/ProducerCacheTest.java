@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2018 The Dagger Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dagger.producers.internal;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ProducerCacheTest {
+  private static final List<Object> KEY = ImmutableList.<Object>of("monkey", 42);
+
+  private final ProducerCache<String> cache = ProducerCache.create(10000, 10);
+
+  @Test
+  public void pendingFuture_isShared() throws Exception {
+    SettableFuture<String> pending = SettableFuture.create();
+    assertThat(cache.putIfAbsent(KEY, pending)).isNull();
+    ListenableFuture<String> cached =
+        cache.putIfAbsent(ImmutableList.<Object>of("monkey", 42), SettableFuture.<String>create());
+    assertThat(cached.isDone()).isFalse();
+    pending.set("value");
+    assertThat(cached.get()).isEqualTo("value");
+  }
+
+  @Test
+  public void successfulFuture_isCached() throws Exception {
+    SettableFuture<String> pending = SettableFuture.create();
+    cache.putIfAbsent(KEY, pending);
+    pending.set("value");
+    assertThat(cache.putIfAbsent(KEY, SettableFuture.<String>create()).get()).isEqualTo("value");
+    assertThat(
+            cache.putIfAbsent(
+                ImmutableList.<Object>of("monkey", 43), SettableFuture.<String>create()))
+        .isNull();
+  }
+
+  @Test
+  public void failedFuture_isRemoved() {
+    SettableFuture<String> pending = SettableFuture.create();
+    cache.putIfAbsent(KEY, pending);
+    pending.setException(new RuntimeException("monkey"));
+    assertThat(cache.putIfAbsent(KEY, SettableFuture.<String>create())).isNull();
+  }
+
+  @Test
+  public void cancellingAReturnedFuture_doesNotCancelTheCachedOne() {
+    SettableFuture<String> pending = SettableFuture.create();
+    cache.putIfAbsent(KEY, pending);
+    cache.putIfAbsent(KEY, SettableFuture.<String>create()).cancel(true);
+    assertThat(pending.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void coalescing_forgetsSuccessfulFutures() throws Exception {
+    ProducerCache<String> coalescing = ProducerCache.coalescing();
+    SettableFuture<String> pending = SettableFuture.create();
+    coalescing.putIfAbsent(KEY, pending);
+    assertThat(coalescing.putIfAbsent(KEY, SettableFuture.<String>create())).isNotNull();
+    pending.set("value");
+    assertThat(coalescing.putIfAbsent(KEY, SettableFuture.<String>create())).isNull();
+  }
+}
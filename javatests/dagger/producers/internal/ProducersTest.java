@@ -20,14 +20,20 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.AsyncFunction;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.SettableFuture;
+import dagger.producers.PrioritizedExecutor;
 import dagger.producers.Produced;
 import dagger.producers.Producer;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import javax.inject.Provider;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -124,6 +130,240 @@ public class ProducersTest {
     }
   }
 
+  @Test
+  public void cancelInputsOnFailure_cancelsPendingInputs() throws Exception {
+    SettableFuture<String> pending = SettableFuture.create();
+    SettableFuture<String> failing = SettableFuture.create();
+    ListenableFuture<List<String>> aggregate =
+        Producers.cancelInputsOnFailure(Futures.allAsList(pending, failing), pending, failing);
+
+    failing.setException(new RuntimeException("monkey"));
+    assertThat(aggregate.isDone()).isTrue();
+    assertThat(pending.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void cancelInputsOnFailure_success() throws Exception {
+    SettableFuture<String> first = SettableFuture.create();
+    SettableFuture<String> second = SettableFuture.create();
+    ListenableFuture<List<String>> aggregate =
+        Producers.cancelInputsOnFailure(Futures.allAsList(first, second), first, second);
+
+    first.set("monkey");
+    second.set("gorilla");
+    assertThat(aggregate.get()).containsExactly("monkey", "gorilla").inOrder();
+    assertThat(first.isCancelled()).isFalse();
+    assertThat(second.isCancelled()).isFalse();
+  }
+
+  @Test
+  public void cancelInputsOnFailure_onlyCancelsGivenInputs() throws Exception {
+    SettableFuture<String> pending = SettableFuture.create();
+    SettableFuture<String> failing = SettableFuture.create();
+    ListenableFuture<List<String>> aggregate =
+        Producers.cancelInputsOnFailure(Futures.allAsList(pending, failing), failing);
+
+    failing.setException(new RuntimeException("monkey"));
+    assertThat(aggregate.isDone()).isTrue();
+    assertThat(pending.isDone()).isFalse();
+  }
+
+  @Test
+  public void doneAsList_success() throws Exception {
+    ListenableFuture<List<Object>> future =
+        Producers.doneAsList(Futures.immediateFuture("monkey"), Futures.immediateFuture(42));
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.get()).containsExactly("monkey", 42).inOrder();
+  }
+
+  @Test
+  public void doneAsList_failure() throws Exception {
+    ListenableFuture<List<Object>> future =
+        Producers.doneAsList(
+            Futures.immediateFuture("monkey"),
+            Futures.immediateFailedFuture(new RuntimeException("gorilla")));
+    assertThat(future.isDone()).isTrue();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).hasMessage("gorilla");
+    }
+  }
+
+  @Test
+  public void doneAsList_cancelled() throws Exception {
+    ListenableFuture<List<Object>> future =
+        Producers.doneAsList(
+            Futures.immediateFuture("monkey"), Futures.immediateCancelledFuture());
+    assertThat(future.isCancelled()).isTrue();
+  }
+
+  @Test
+  public void transformDone_success() throws Exception {
+    ListenableFuture<Integer> future =
+        Producers.transformDone(Futures.immediateFuture("monkey"), STRING_LENGTH);
+    assertThat(future.isDone()).isTrue();
+    assertThat(future.get()).isEqualTo(6);
+  }
+
+  @Test
+  public void transformDone_inputFailure() throws Exception {
+    ListenableFuture<Integer> future =
+        Producers.transformDone(
+            Futures.<String>immediateFailedFuture(new RuntimeException("monkey")), STRING_LENGTH);
+    assertThat(future.isDone()).isTrue();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).hasMessage("monkey");
+    }
+  }
+
+  @Test
+  public void transformDone_functionThrows() throws Exception {
+    ListenableFuture<Integer> future =
+        Producers.transformDone(Futures.<String>immediateFuture(null), STRING_LENGTH);
+    assertThat(future.isDone()).isTrue();
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(NullPointerException.class);
+    }
+  }
+
+  private static final AsyncFunction<String, Integer> STRING_LENGTH =
+      new AsyncFunction<String, Integer>() {
+        @Override
+        public ListenableFuture<Integer> apply(String input) {
+          return Futures.immediateFuture(input.length());
+        }
+      };
+
+  @Test
+  public void hedgedTransformAsync_firstAttemptWins() throws Exception {
+    Attempts attempts = new Attempts();
+    ListenableFuture<String> future =
+        Producers.hedgedTransformAsync(
+            Futures.immediateFuture("monkey"), attempts, MoreExecutors.directExecutor(), 10000);
+    assertThat(attempts.started).hasSize(1);
+    attempts.started.get(0).set("first");
+    assertThat(future.get()).isEqualTo("first");
+  }
+
+  @Test
+  public void hedgedTransformAsync_secondAttemptWins() throws Exception {
+    Attempts attempts = new Attempts();
+    ListenableFuture<String> future =
+        Producers.hedgedTransformAsync(
+            Futures.immediateFuture("monkey"), attempts, MoreExecutors.directExecutor(), 1);
+    while (attempts.started.size() < 2) {
+      Thread.sleep(1);
+    }
+    attempts.started.get(1).set("second");
+    assertThat(future.get()).isEqualTo("second");
+    assertThat(attempts.started.get(0).isCancelled()).isTrue();
+  }
+
+  @Test
+  public void hedgedTransformAsync_cancelCancelsAttempts() throws Exception {
+    Attempts attempts = new Attempts();
+    ListenableFuture<String> future =
+        Producers.hedgedTransformAsync(
+            Futures.immediateFuture("monkey"), attempts, MoreExecutors.directExecutor(), 10000);
+    future.cancel(true);
+    assertThat(attempts.started.get(0).isCancelled()).isTrue();
+  }
+
+  /** Starts an attempt that completes when the test sets it. */
+  private static final class Attempts implements AsyncFunction<String, String> {
+    final List<SettableFuture<String>> started = new CopyOnWriteArrayList<>();
+
+    @Override
+    public ListenableFuture<String> apply(String input) {
+      SettableFuture<String> attempt = SettableFuture.create();
+      started.add(attempt);
+      return attempt;
+    }
+  }
+
+  @Test
+  public void executorWithPriority_passesPriorityToPrioritizedExecutor() {
+    final List<Integer> priorities = new CopyOnWriteArrayList<>();
+    final PrioritizedExecutor prioritizedExecutor =
+        new PrioritizedExecutor() {
+          @Override
+          public void execute(Runnable runnable) {
+            execute(runnable, 0);
+          }
+
+          @Override
+          public void execute(Runnable runnable, int priority) {
+            priorities.add(priority);
+            runnable.run();
+          }
+        };
+    Executor executor =
+        Producers.executorWithPriority(
+                new Provider<Executor>() {
+                  @Override
+                  public Executor get() {
+                    return prioritizedExecutor;
+                  }
+                },
+                3)
+            .get();
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {}
+        });
+    assertThat(priorities).containsExactly(3);
+  }
+
+  @Test
+  public void executorWithPriority_reusesExecutorForSameDelegate() {
+    final PrioritizedExecutor prioritizedExecutor =
+        new PrioritizedExecutor() {
+          @Override
+          public void execute(Runnable runnable) {
+            execute(runnable, 0);
+          }
+
+          @Override
+          public void execute(Runnable runnable, int priority) {
+            runnable.run();
+          }
+        };
+    Provider<Executor> executorProvider =
+        Producers.executorWithPriority(
+            new Provider<Executor>() {
+              @Override
+              public Executor get() {
+                return prioritizedExecutor;
+              }
+            },
+            3);
+    assertThat(executorProvider.get()).isSameAs(executorProvider.get());
+  }
+
+  @Test
+  public void executorWithPriority_returnsOtherExecutors() {
+    final Executor directExecutor = MoreExecutors.directExecutor();
+    Provider<Executor> executorProvider =
+        Producers.executorWithPriority(
+            new Provider<Executor>() {
+              @Override
+              public Executor get() {
+                return directExecutor;
+              }
+            },
+            3);
+    assertThat(executorProvider.get()).isSameAs(directExecutor);
+  }
+
   @Test public void producerFromProvider_doesntCache() throws Exception {
     Producer<Integer> producer = Producers.producerFromProvider(new Provider<Integer>() {
       int i = 0;
@@ -12,6 +12,7 @@ python $(dirname $0)/maven/generate_poms.py $VERSION_NAME \
   //gwt:gwt \
   //java/dagger/internal/codegen:processor \
   //java/dagger/producers:producers \
+  //java/dagger/producers/executors:executors \
   //java/dagger/model:model \
   //java/dagger/android:android \
   //java/dagger/android:libandroid.jar \
@@ -74,6 +75,12 @@ deploy_library \
   java/dagger/producers/producers-javadoc.jar \
   dagger-producers.pom.xml
 
+deploy_library \
+  java/dagger/producers/executors/libexecutors.jar \
+  java/dagger/producers/executors/libexecutors-src.jar \
+  java/dagger/producers/executors/executors-javadoc.jar \
+  dagger-producers-executors.pom.xml
+
 deploy_library \
   shaded_spi.jar \
   java/dagger/model/libmodel-src.jar \
@@ -73,6 +73,10 @@ METADATA = {
         'name': 'Dagger Producers',
         'artifact': 'dagger-producers',
     },
+    '//java/dagger/producers/executors:executors': {
+        'name': 'Dagger Producers Executors',
+        'artifact': 'dagger-producers-executors',
+    },
     '//java/dagger/model:model': {
         'name': 'Dagger SPI',
         'artifact': 'dagger-spi',